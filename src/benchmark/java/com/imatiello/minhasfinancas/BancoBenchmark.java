@@ -0,0 +1,93 @@
+package com.imatiello.minhasfinancas;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+
+/**
+ * Sobe a aplicação no profile de teste (H2 em memória, migrações do Flyway) e popula
+ * o banco uma vez por fork. Metade dos usuários (ids ímpares) tem saldo materializado,
+ * a outra metade cai no cálculo pelas somas.
+ */
+@State(Scope.Benchmark)
+public class BancoBenchmark {
+
+	public static final int USUARIOS = 1_000;
+	public static final int LANCAMENTOS_POR_USUARIO = 200;
+	
+	private ConfigurableApplicationContext contexto;
+	private List<Usuario> usuarios;
+	
+	
+	@Setup
+	public void iniciar() {
+		
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.profiles("test")
+				.run("--server.port=0",
+						"--spring.jpa.show-sql=false",
+						"--spring.devtools.restart.enabled=false",
+						"--logging.level.root=WARN");
+		
+		popular(bean(JdbcTemplate.class));
+		usuarios = bean(UsuarioRepository.class).findAll();
+	}
+	
+	
+	@TearDown
+	public void encerrar() {
+		contexto.close();
+	}
+	
+	
+	public <T> T bean(Class<T> tipo) {
+		return contexto.getBean(tipo);
+	}
+	
+	
+	// id de 1 a USUARIOS
+	public Usuario usuario(long id) {
+		return usuarios.get((int) (id - 1));
+	}
+	
+	
+	private void popular(JdbcTemplate jdbc) {
+		
+		int lancamentos = USUARIOS * LANCAMENTOS_POR_USUARIO;
+		
+		jdbc.update("insert into financas.usuario (id, nome, email, senha) "
+				+ "select x, 'usuario ' || x, 'usuario' || x || '@email.com', 'senha' || x "
+				+ "from system_range(1, ?)", USUARIOS);
+		jdbc.execute("alter table financas.usuario alter column id restart with " + (USUARIOS + 1));
+		
+		jdbc.update("insert into financas.lancamento "
+				+ "(id, descricao, mes, ano, valor, tipo, status, id_usuario, data_cadastro) "
+				+ "select x, "
+				+ "case mod(x, 6) when 0 then 'salario' when 1 then 'conta de luz' when 2 then 'mercado' "
+				+ "when 3 then 'aluguel' when 4 then 'farmacia' else 'conta de agua' end, "
+				+ "mod(x, 12) + 1, 2018 + mod(x, 3), "
+				+ "cast(mod(x * 7919, 500000) / 100.0 + 1 as decimal(19, 2)), "
+				+ "case mod(x, 6) when 0 then 'RECEITA' else 'DESPESA' end, "
+				+ "case mod(x, 3) when 0 then 'PENDENTE' when 1 then 'EFETIVADO' else 'CANCELADO' end, "
+				+ "mod(x - 1, ?) + 1, current_timestamp "
+				+ "from system_range(1, ?)", USUARIOS, lancamentos);
+		jdbc.execute("alter sequence financas.lancamento_seq restart with " + (lancamentos + 1));
+		
+		jdbc.update("insert into financas.saldo_usuario (id_usuario, receitas, despesas, versao) "
+				+ "select id_usuario, "
+				+ "coalesce(sum(case tipo when 'RECEITA' then valor end), 0), "
+				+ "coalesce(sum(case tipo when 'DESPESA' then valor end), 0), 0 "
+				+ "from financas.lancamento where mod(id_usuario, 2) = 1 group by id_usuario");
+		
+		jdbc.execute("analyze");
+	}
+}
@@ -0,0 +1,104 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+
+/**
+ * Serialização de uma listagem de lançamentos: o JSON do ObjectMapper (o que a API
+ * responde hoje) contra Smile e CBOR, pelo ObjectMapper dos conversores e pelo escritor
+ * em fluxo da exportação. Os tamanhos de cada codificação saem no log do setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CodificacaoBenchmark {
+
+	@State(Scope.Thread)
+	public static class Listagem {
+		
+		@Param({"100", "5000"})
+		int quantidade;
+		
+		List<LancamentoDTO> lancamentos;
+		ObjectMapper json = new ObjectMapper(Codificacao.JSON.novaFabrica());
+		ObjectMapper smile = new ObjectMapper(Codificacao.SMILE.novaFabrica());
+		ObjectMapper cbor = new ObjectMapper(Codificacao.CBOR.novaFabrica());
+		
+		@Setup
+		public void gerar() throws IOException {
+			
+			String[] descricoes = {"salario", "aluguel", "conta de luz", "mercado", "farmacia", "internet"};
+			lancamentos = new ArrayList<>(quantidade);
+			for (int i = 0; i < quantidade; i++) {
+				lancamentos.add(new LancamentoDTO((long) i + 1, descricoes[i % descricoes.length], i % 12 + 1,
+						2015 + i % 6, BigDecimal.valueOf(100 + i * 37L % 90_000, 2), 42L,
+						i % 3 == 0 ? "RECEITA" : "DESPESA", i % 4 == 0 ? "PENDENTE" : "EFETIVADO"));
+			}
+			
+			System.out.printf("%n%d lançamentos: json=%d smile=%d cbor=%d bytes%n", quantidade,
+					json.writeValueAsBytes(lancamentos).length, smile.writeValueAsBytes(lancamentos).length,
+					cbor.writeValueAsBytes(lancamentos).length);
+		}
+	}
+	
+	
+	@Benchmark
+	public byte[] jsonObjectMapper(Listagem listagem) throws IOException {
+		return listagem.json.writeValueAsBytes(listagem.lancamentos);
+	}
+	
+	
+	@Benchmark
+	public byte[] smileObjectMapper(Listagem listagem) throws IOException {
+		return listagem.smile.writeValueAsBytes(listagem.lancamentos);
+	}
+	
+	
+	@Benchmark
+	public byte[] cborObjectMapper(Listagem listagem) throws IOException {
+		return listagem.cbor.writeValueAsBytes(listagem.lancamentos);
+	}
+	
+	
+	@Benchmark
+	public byte[] smileEmFluxo(Listagem listagem) throws IOException {
+		return exportar(FormatoExportacao.SMILE, listagem.lancamentos);
+	}
+	
+	
+	@Benchmark
+	public byte[] ndjsonEmFluxo(Listagem listagem) throws IOException {
+		return exportar(FormatoExportacao.NDJSON, listagem.lancamentos);
+	}
+	
+	
+	private byte[] exportar(FormatoExportacao formato, List<LancamentoDTO> lancamentos) throws IOException {
+		
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		try (EscritorLancamentos escritor = formato.criarEscritor(saida)) {
+			lancamentos.forEach(escritor);
+		}
+		return saida.toByteArray();
+	}
+}
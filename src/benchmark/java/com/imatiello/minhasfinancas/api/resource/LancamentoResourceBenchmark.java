@@ -0,0 +1,55 @@
+package com.imatiello.minhasfinancas.api.resource;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imatiello.minhasfinancas.BancoBenchmark;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LancamentoResourceBenchmark {
+
+	@State(Scope.Thread)
+	public static class Conversao {
+		
+		LancamentoResource resource;
+		
+		LancamentoDTO dto = LancamentoDTO.builder()
+				.descricao("conta de luz")
+				.mes(1)
+				.ano(2020)
+				.valor(BigDecimal.valueOf(150.5))
+				.usuario(1l)
+				.tipo("DESPESA")
+				.status("PENDENTE")
+				.build();
+		
+		// o usuário vem do cache de usuários, como numa requisição real depois da primeira
+		@Setup
+		public void iniciar(BancoBenchmark banco) {
+			resource = banco.bean(LancamentoResource.class);
+		}
+	}
+	
+	
+	@Benchmark
+	public Lancamento converter(Conversao estado) {
+		return estado.resource.converter(estado.dto);
+	}
+}
@@ -0,0 +1,176 @@
+package com.imatiello.minhasfinancas.carga;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imatiello.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.UsuarioDTO;
+
+/**
+ * Chamadas HTTP da API usadas pelo teste de carga. Respostas de erro não lançam exceção:
+ * o status volta para quem mede, e falhas de conexão voltam como {@link #FALHA_CONEXAO}.
+ */
+public class ClienteFinancas {
+
+	public static final int FALHA_CONEXAO = 0;
+	
+	// não havia lançamento livre para a operação; não entra nas medições
+	public static final int IGNORADA = -1;
+	
+	private final String base;
+	private final RestTemplate rest = new RestTemplate();
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	
+	public ClienteFinancas(String base) {
+		
+		this.base = base;
+		rest.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) throws IOException {
+				return false;
+			}
+		});
+	}
+	
+	
+	public static class UsuarioCarga {
+		
+		final Long id;
+		final String email;
+		final String senha;
+		final Deque<Long> lancamentos = new ConcurrentLinkedDeque<>();
+		
+		UsuarioCarga(Long id, String email, String senha) {
+			this.id = id;
+			this.email = email;
+			this.senha = senha;
+		}
+	}
+	
+	
+	public UsuarioCarga criarUsuario(int indice) {
+		
+		String email = "carga" + indice + "@email.com";
+		String senha = "senha" + indice;
+		
+		ResponseEntity<String> resposta = rest.postForEntity(base + "/api/usuarios",
+				new UsuarioDTO(email, "usuario " + indice, senha), String.class);
+		
+		return new UsuarioCarga(lerId(resposta), email, senha);
+	}
+	
+	
+	public int executar(Operacao operacao, UsuarioCarga usuario) {
+		
+		try {
+			switch (operacao) {
+			case LOGIN:
+				return rest.postForEntity(base + "/api/usuarios/autenticar",
+						new UsuarioDTO(usuario.email, null, usuario.senha), String.class).getStatusCodeValue();
+			case CRIAR:
+				return criarLancamento(usuario);
+			case BUSCAR:
+				return rest.getForEntity(base + "/api/lancamentos?usuario={id}&ano={ano}", String.class,
+						usuario.id, 2020).getStatusCodeValue();
+			case SALDO:
+				return rest.getForEntity(base + "/api/usuarios/{id}/saldo", String.class, usuario.id)
+						.getStatusCodeValue();
+			default:
+				return alterarLancamento(operacao, usuario);
+			}
+		} catch (RestClientException e) {
+			return FALHA_CONEXAO;
+		}
+	}
+	
+	
+	public int criarLancamento(UsuarioCarga usuario) {
+		
+		ResponseEntity<String> resposta = rest.postForEntity(base + "/api/lancamentos", lancamento(usuario),
+				String.class);
+		
+		if (resposta.getStatusCode().is2xxSuccessful()) {
+			usuario.lancamentos.offerLast(lerId(resposta));
+		}
+		return resposta.getStatusCodeValue();
+	}
+	
+	
+	// o id sai da fila enquanto está em uso, então dois pedidos nunca alteram o mesmo lançamento
+	private int alterarLancamento(Operacao operacao, UsuarioCarga usuario) {
+		
+		Long id = usuario.lancamentos.pollFirst();
+		if (id == null) {
+			return IGNORADA;
+		}
+		
+		int status = FALHA_CONEXAO;
+		try {
+			switch (operacao) {
+			case ATUALIZAR:
+				status = trocar(HttpMethod.PUT, "/api/lancamentos/{id}", lancamento(usuario), id);
+				break;
+			case STATUS:
+				status = trocar(HttpMethod.PUT, "/api/lancamentos/{id}/atualiza-status",
+						new AtualizaStatusDTO("EFETIVADO"), id);
+				break;
+			default:
+				status = trocar(HttpMethod.DELETE, "/api/lancamentos/{id}", null, id);
+			}
+			return status;
+		} finally {
+			if (operacao != Operacao.DELETAR || status < 200 || status >= 300) {
+				usuario.lancamentos.offerLast(id);
+			}
+		}
+	}
+	
+	
+	private int trocar(HttpMethod metodo, String caminho, Object corpo, Long id) {
+		
+		return rest.exchange(base + caminho, metodo, new HttpEntity<>(corpo), String.class, id)
+				.getStatusCodeValue();
+	}
+	
+	
+	private LancamentoDTO lancamento(UsuarioCarga usuario) {
+		
+		return LancamentoDTO.builder()
+				.descricao("conta de luz")
+				.mes(1)
+				.ano(2020)
+				.valor(BigDecimal.valueOf(150.5))
+				.usuario(usuario.id)
+				.tipo("DESPESA")
+				.build();
+	}
+	
+	
+	private Long lerId(ResponseEntity<String> resposta) {
+		
+		if (!resposta.getStatusCode().is2xxSuccessful()) {
+			throw new IllegalStateException("Falha ao preparar a carga: " + resposta.getStatusCodeValue()
+					+ " " + resposta.getBody());
+		}
+		try {
+			JsonNode corpo = mapper.readTree(resposta.getBody());
+			return corpo.get("id").asLong();
+		} catch (IOException e) {
+			throw new IllegalStateException("Resposta sem id: " + resposta.getBody(), e);
+		}
+	}
+}
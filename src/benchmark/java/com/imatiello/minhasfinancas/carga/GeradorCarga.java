@@ -0,0 +1,107 @@
+package com.imatiello.minhasfinancas.carga;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.imatiello.minhasfinancas.carga.ClienteFinancas.UsuarioCarga;
+
+/**
+ * Modelo aberto: os pedidos chegam num processo de Poisson com a taxa configurada,
+ * independente de quantos ainda estão em andamento. O agendamento nunca espera uma
+ * resposta; se o pool de conexões estiver cheio o pedido aguarda na fila e esse tempo
+ * conta na latência de resposta. Ao fim da duração, todos os pedidos já agendados são enviados
+ * e medidos: descartar os que ficaram na fila esconderia justamente as piores latências.
+ */
+public class GeradorCarga {
+
+	private final ClienteFinancas cliente;
+	private final MixOperacoes mix;
+	private final List<UsuarioCarga> usuarios;
+	private final double taxaPorSegundo;
+	private final Random random;
+	private final Map<Operacao, Medicao> medicoes = new EnumMap<>(Operacao.class);
+	
+	
+	public GeradorCarga(ClienteFinancas cliente, MixOperacoes mix, List<UsuarioCarga> usuarios,
+			double taxaPorSegundo, long semente) {
+		
+		this.cliente = cliente;
+		this.mix = mix;
+		this.usuarios = usuarios;
+		this.taxaPorSegundo = taxaPorSegundo;
+		this.random = new Random(semente);
+		
+		for (Operacao operacao : Operacao.values()) {
+			medicoes.put(operacao, new Medicao());
+		}
+	}
+	
+	
+	// pedidos agendados durante o aquecimento são executados, mas não medidos
+	public Map<Operacao, Medicao> executar(Duration aquecimento, Duration duracao, int conexoes)
+			throws InterruptedException {
+		
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(conexoes);
+		
+		long inicio = System.nanoTime();
+		long inicioMedicao = inicio + aquecimento.toNanos();
+		long fim = inicioMedicao + duracao.toNanos();
+		
+		for (long previsto = inicio; previsto < fim; previsto += proximoIntervalo()) {
+			
+			esperarAte(previsto);
+			
+			Operacao operacao = mix.sortear(random);
+			UsuarioCarga usuario = usuarios.get(random.nextInt(usuarios.size()));
+			long agendado = previsto;
+			boolean medir = previsto >= inicioMedicao;
+			
+			executor.execute( () -> executar(operacao, usuario, agendado, medir) );
+		}
+		
+		executor.shutdown();
+		while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+			System.out.printf("Aguardando %d pedidos agendados e %d em andamento%n",
+					executor.getQueue().size(), executor.getActiveCount());
+		}
+		
+		return Collections.unmodifiableMap(medicoes);
+	}
+	
+	
+	private void executar(Operacao operacao, UsuarioCarga usuario, long agendado, boolean medir) {
+		
+		long envio = System.nanoTime();
+		int status = cliente.executar(operacao, usuario);
+		long fim = System.nanoTime();
+		
+		if (medir && status != ClienteFinancas.IGNORADA) {
+			medicoes.get(operacao).registrar(fim - agendado, fim - envio, status);
+		}
+	}
+	
+	
+	// intervalo exponencial com média 1 / taxa
+	private long proximoIntervalo() {
+		
+		double segundos = -Math.log(1 - random.nextDouble()) / taxaPorSegundo;
+		return Math.max(1, (long) (segundos * TimeUnit.SECONDS.toNanos(1)));
+	}
+	
+	
+	private void esperarAte(long instante) {
+		
+		long restante;
+		while ((restante = instante - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(restante);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.imatiello.minhasfinancas.carga;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latências de uma operação em nanossegundos. A resposta conta a partir do instante em que o
+ * pedido deveria ter saído pelo agendamento, não de quando saiu: atrasos do próprio gerador
+ * (fila, pool cheio) entram na medida e não escondem a lentidão do servidor (coordinated omission).
+ * O tempo de serviço, medido do envio real, fica ao lado para comparação.
+ */
+public class Medicao {
+
+	private final Histogram resposta = new ConcurrentHistogram(3);
+	private final Histogram servico = new ConcurrentHistogram(3);
+	private final LongAdder erros = new LongAdder();
+	
+	
+	public void registrar(long latenciaResposta, long latenciaServico, int status) {
+		
+		resposta.recordValue(latenciaResposta);
+		servico.recordValue(latenciaServico);
+		
+		if (status < 200 || status >= 400) {
+			erros.increment();
+		}
+	}
+	
+	
+	public Histogram getResposta() {
+		return resposta;
+	}
+	
+	public Histogram getServico() {
+		return servico;
+	}
+	
+	public long getErros() {
+		return erros.sum();
+	}
+}
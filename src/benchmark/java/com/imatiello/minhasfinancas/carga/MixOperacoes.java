@@ -0,0 +1,71 @@
+package com.imatiello.minhasfinancas.carga;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sorteia a próxima operação pelo peso de cada uma. O mix vem no formato
+ * "buscar:30,saldo:25,criar:15"; operações não informadas ficam com peso zero.
+ */
+public class MixOperacoes {
+
+	private final Operacao[] operacoes;
+	private final int[] pesosAcumulados;
+	private final int total;
+	
+	
+	private MixOperacoes(Map<Operacao, Integer> pesos) {
+		
+		operacoes = pesos.keySet().toArray(new Operacao[0]);
+		pesosAcumulados = new int[operacoes.length];
+		
+		int acumulado = 0;
+		for (int i = 0; i < operacoes.length; i++) {
+			acumulado += pesos.get(operacoes[i]);
+			pesosAcumulados[i] = acumulado;
+		}
+		
+		if (acumulado <= 0) {
+			throw new IllegalArgumentException("O mix de operações precisa de ao menos um peso positivo.");
+		}
+		total = acumulado;
+	}
+	
+	
+	public static MixOperacoes padrao() {
+		
+		Map<Operacao, Integer> pesos = new EnumMap<>(Operacao.class);
+		for (Operacao operacao : Operacao.values()) {
+			pesos.put(operacao, operacao.getPesoPadrao());
+		}
+		return new MixOperacoes(pesos);
+	}
+	
+	
+	public static MixOperacoes de(String mix) {
+		
+		Map<Operacao, Integer> pesos = new EnumMap<>(Operacao.class);
+		for (String item : mix.split(",")) {
+			
+			String[] partes = item.trim().split(":");
+			if (partes.length != 2) {
+				throw new IllegalArgumentException("Item de mix inválido: " + item);
+			}
+			pesos.put(Operacao.valueOf(partes[0].trim().toUpperCase()), Integer.valueOf(partes[1].trim()));
+		}
+		return new MixOperacoes(pesos);
+	}
+	
+	
+	public Operacao sortear(Random random) {
+		
+		int sorteio = random.nextInt(total);
+		for (int i = 0; i < pesosAcumulados.length; i++) {
+			if (sorteio < pesosAcumulados[i]) {
+				return operacoes[i];
+			}
+		}
+		return operacoes[operacoes.length - 1];
+	}
+}
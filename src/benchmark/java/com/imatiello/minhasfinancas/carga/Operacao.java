@@ -0,0 +1,27 @@
+package com.imatiello.minhasfinancas.carga;
+
+public enum Operacao {
+
+	LOGIN(10),
+	CRIAR(15),
+	ATUALIZAR(10),
+	STATUS(5),
+	DELETAR(5),
+	BUSCAR(30),
+	SALDO(25);
+	
+	private final int pesoPadrao;
+	
+	Operacao(int pesoPadrao) {
+		this.pesoPadrao = pesoPadrao;
+	}
+	
+	public int getPesoPadrao() {
+		return pesoPadrao;
+	}
+	
+	// operações que precisam de um lançamento já criado pelo usuário
+	public boolean alteraLancamento() {
+		return this == ATUALIZAR || this == STATUS || this == DELETAR;
+	}
+}
@@ -0,0 +1,178 @@
+package com.imatiello.minhasfinancas.carga;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.imatiello.minhasfinancas.MinhasfinancasApplication;
+import com.imatiello.minhasfinancas.carga.ClienteFinancas.UsuarioCarga;
+
+/**
+ * Teste de carga ponta a ponta: sobe a aplicação no profile de teste (H2 em memória),
+ * cria os usuários e lançamentos iniciais pela própria API e dispara o mix de operações
+ * em modelo aberto. Configuração por propriedades de sistema:
+ *
+ * <ul>
+ * <li>carga.taxa - pedidos por segundo (200)</li>
+ * <li>carga.duracao / carga.aquecimento - segundos medidos e descartados (60 / 10)</li>
+ * <li>carga.usuarios / carga.lancamentos-por-usuario - massa inicial (100 / 20)</li>
+ * <li>carga.conexoes - pedidos simultâneos do cliente (64)</li>
+ * <li>carga.mix - pesos, ex. "buscar:30,saldo:25,criar:15" (pesos padrão de {@link Operacao})</li>
+ * <li>carga.semente - semente do sorteio, para repetir a mesma sequência (1)</li>
+ * <li>carga.saida - diretório dos histogramas (target/carga)</li>
+ * </ul>
+ *
+ * Para cada operação são gravados {@code <operacao>.hlog} (log do HdrHistogram com as
+ * latências de resposta e de serviço) e {@code <operacao>.hgrm} (distribuição de percentis
+ * em milissegundos), que podem ser comparados entre builds.
+ */
+public class TesteCarga {
+
+	private static final double NANOS_POR_MILI = 1_000_000.0;
+	
+	
+	public static void main(String[] args) throws Exception {
+		
+		double taxa = Double.parseDouble(System.getProperty("carga.taxa", "200"));
+		Duration duracao = Duration.ofSeconds(Long.getLong("carga.duracao", 60));
+		Duration aquecimento = Duration.ofSeconds(Long.getLong("carga.aquecimento", 10));
+		int quantidadeUsuarios = Integer.getInteger("carga.usuarios", 100);
+		int lancamentosPorUsuario = Integer.getInteger("carga.lancamentos-por-usuario", 20);
+		int conexoes = Integer.getInteger("carga.conexoes", 64);
+		long semente = Long.getLong("carga.semente", 1);
+		String mix = System.getProperty("carga.mix");
+		File saida = new File(System.getProperty("carga.saida", "target/carga"));
+		
+		// o keep-alive do HttpURLConnection guarda só 5 conexões por destino por padrão
+		System.setProperty("http.maxConnections", String.valueOf(conexoes));
+		
+		ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class)
+				.profiles("test")
+				.run("--server.port=0",
+						"--spring.jpa.show-sql=false",
+						"--spring.devtools.restart.enabled=false",
+						"--logging.level.root=WARN");
+		
+		try {
+			int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+			ClienteFinancas cliente = new ClienteFinancas("http://localhost:" + porta);
+			
+			List<UsuarioCarga> usuarios = popular(cliente, quantidadeUsuarios, lancamentosPorUsuario);
+			
+			GeradorCarga gerador = new GeradorCarga(cliente,
+					mix == null ? MixOperacoes.padrao() : MixOperacoes.de(mix), usuarios, taxa, semente);
+			
+			System.out.printf("Carga de %.0f pedidos/s por %ds (aquecimento de %ds), %d conexões%n",
+					taxa, duracao.getSeconds(), aquecimento.getSeconds(), conexoes);
+			
+			long inicio = System.currentTimeMillis() + aquecimento.toMillis();
+			Map<Operacao, Medicao> medicoes = gerador.executar(aquecimento, duracao, conexoes);
+			long fim = System.currentTimeMillis();
+			
+			// inclui o tempo para esvaziar a fila de pedidos agendados
+			relatar(medicoes, Duration.ofMillis(fim - inicio), System.out);
+			gravar(medicoes, inicio, fim, saida);
+			
+		} finally {
+			contexto.close();
+		}
+	}
+	
+	
+	private static List<UsuarioCarga> popular(ClienteFinancas cliente, int quantidade, int lancamentosPorUsuario) {
+		
+		List<UsuarioCarga> usuarios = new ArrayList<>(quantidade);
+		for (int i = 1; i <= quantidade; i++) {
+			
+			UsuarioCarga usuario = cliente.criarUsuario(i);
+			for (int j = 0; j < lancamentosPorUsuario; j++) {
+				cliente.criarLancamento(usuario);
+			}
+			usuarios.add(usuario);
+		}
+		return usuarios;
+	}
+	
+	
+	// req/s são as respostas recebidas no tempo decorrido, não a taxa agendada
+	private static void relatar(Map<Operacao, Medicao> medicoes, Duration decorrido, PrintStream saida) {
+		
+		saida.printf("%n%-10s %9s %7s %9s %9s %9s %9s %9s %9s %12s%n", "operacao", "pedidos", "erros",
+				"req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms", "servico p99");
+		
+		medicoes.forEach( (operacao, medicao) -> {
+			
+			Histogram resposta = medicao.getResposta();
+			if (resposta.getTotalCount() == 0) {
+				return;
+			}
+			
+			saida.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+					operacao, resposta.getTotalCount(), medicao.getErros(),
+					resposta.getTotalCount() / (decorrido.toMillis() / 1000.0),
+					mili(resposta.getValueAtPercentile(50)),
+					mili(resposta.getValueAtPercentile(95)),
+					mili(resposta.getValueAtPercentile(99)),
+					mili(resposta.getValueAtPercentile(99.9)),
+					mili(resposta.getMaxValue()),
+					mili(medicao.getServico().getValueAtPercentile(99)));
+		});
+	}
+	
+	
+	private static void gravar(Map<Operacao, Medicao> medicoes, long inicio, long fim, File diretorio)
+			throws FileNotFoundException {
+		
+		if (!diretorio.isDirectory() && !diretorio.mkdirs()) {
+			throw new IllegalStateException("Não foi possível criar " + diretorio);
+		}
+		
+		for (Map.Entry<Operacao, Medicao> entrada : medicoes.entrySet()) {
+			
+			String nome = entrada.getKey().name().toLowerCase();
+			Histogram resposta = entrada.getValue().getResposta();
+			Histogram servico = entrada.getValue().getServico();
+			
+			try (PrintStream log = new PrintStream(new File(diretorio, nome + ".hlog"))) {
+				
+				HistogramLogWriter escritor = new HistogramLogWriter(log);
+				escritor.outputLogFormatVersion();
+				escritor.outputStartTime(inicio);
+				escritor.outputLegend();
+				escritor.outputIntervalHistogram(intervalo(resposta, "resposta", inicio, fim));
+				escritor.outputIntervalHistogram(intervalo(servico, "servico", inicio, fim));
+			}
+			
+			try (PrintStream percentis = new PrintStream(new File(diretorio, nome + ".hgrm"))) {
+				resposta.outputPercentileDistribution(percentis, NANOS_POR_MILI);
+			}
+		}
+		
+		System.out.println("Histogramas gravados em " + diretorio.getAbsolutePath());
+	}
+	
+	
+	private static Histogram intervalo(Histogram histograma, String tag, long inicio, long fim) {
+		
+		Histogram copia = histograma.copy();
+		copia.setTag(tag);
+		copia.setStartTimeStamp(inicio);
+		copia.setEndTimeStamp(fim);
+		return copia;
+	}
+	
+	
+	private static double mili(long nanos) {
+		return nanos / NANOS_POR_MILI;
+	}
+}
@@ -0,0 +1,91 @@
+package com.imatiello.minhasfinancas.model;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saldo de uma série de lançamentos (receitas menos despesas) somado em BigDecimal e
+ * em centavos. Rodar com o profiler de GC do profile: o que interessa além do tempo é
+ * o gc.alloc.rate.norm, que deve ser zero no caminho em centavos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CentavosBenchmark {
+
+	@State(Scope.Thread)
+	public static class Valores {
+		
+		@Param({"1000", "100000"})
+		int quantidade;
+		
+		BigDecimal[] reais;
+		long[] centavos;
+		boolean[] receita;
+		
+		@Setup
+		public void gerar() {
+			
+			Random aleatorio = new Random(42);
+			reais = new BigDecimal[quantidade];
+			centavos = new long[quantidade];
+			receita = new boolean[quantidade];
+			for (int i = 0; i < quantidade; i++) {
+				reais[i] = BigDecimal.valueOf(1 + aleatorio.nextInt(500_000), 2);
+				centavos[i] = Centavos.de(reais[i]);
+				receita[i] = aleatorio.nextBoolean();
+			}
+		}
+	}
+	
+	
+	@Benchmark
+	public BigDecimal saldoEmBigDecimal(Valores valores) {
+		
+		BigDecimal saldo = BigDecimal.ZERO;
+		for (int i = 0; i < valores.quantidade; i++) {
+			saldo = valores.receita[i] ? saldo.add(valores.reais[i]) : saldo.subtract(valores.reais[i]);
+		}
+		return saldo;
+	}
+	
+	
+	@Benchmark
+	public long saldoEmCentavos(Valores valores) {
+		
+		long saldo = 0;
+		for (int i = 0; i < valores.quantidade; i++) {
+			saldo = valores.receita[i] ? Centavos.somar(saldo, valores.centavos[i])
+					: Centavos.subtrair(saldo, valores.centavos[i]);
+		}
+		return saldo;
+	}
+	
+	
+	// o custo de converter na borda, para comparar com o ganho na soma
+	@Benchmark
+	public BigDecimal saldoEmCentavosConvertendo(Valores valores) {
+		
+		long saldo = 0;
+		for (int i = 0; i < valores.quantidade; i++) {
+			long centavos = Centavos.de(valores.reais[i]);
+			saldo = valores.receita[i] ? Centavos.somar(saldo, centavos) : Centavos.subtrair(saldo, centavos);
+		}
+		return Centavos.paraReais(saldo);
+	}
+}
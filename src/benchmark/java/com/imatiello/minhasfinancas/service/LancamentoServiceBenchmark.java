@@ -0,0 +1,92 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imatiello.minhasfinancas.BancoBenchmark;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.service.impl.LancamentoServiceImpl;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LancamentoServiceBenchmark {
+
+	@State(Scope.Thread)
+	public static class Validacao {
+		
+		// validar não toca em nenhuma dependência
+		LancamentoService service = new LancamentoServiceImpl(null, null, null, null, null);
+		
+		Lancamento lancamento = Lancamento.builder()
+				.descricao("conta de luz")
+				.mes(1)
+				.ano(2020)
+				.valor(BigDecimal.valueOf(150.5))
+				.tipo(TipoLancamento.DESPESA)
+				.status(StatusLancamento.PENDENTE)
+				.usuario(Usuario.builder().id(1l).build())
+				.build();
+	}
+	
+	
+	@State(Scope.Thread)
+	public static class Consulta {
+		
+		LancamentoService service;
+		long proximo;
+		
+		@Setup
+		public void iniciar(BancoBenchmark banco) {
+			service = banco.bean(LancamentoService.class);
+		}
+		
+		long proximoUsuario() {
+			return (proximo++ % BancoBenchmark.USUARIOS) + 1;
+		}
+	}
+	
+	
+	@Benchmark
+	public Lancamento validar(Validacao estado) {
+		
+		estado.service.validar(estado.lancamento);
+		return estado.lancamento;
+	}
+	
+	
+	// mesmo filtro montado pelo GET api/lancamentos: usuário, mês e ano
+	@Benchmark
+	public List<Lancamento> buscarComExample(BancoBenchmark banco, Consulta estado) {
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(banco.usuario(estado.proximoUsuario()));
+		filtro.setAno(2019);
+		filtro.setMes(3);
+		
+		return estado.service.buscar(filtro);
+	}
+	
+	
+	@Benchmark
+	public BigDecimal obterSaldoPorUsuario(Consulta estado) {
+		return estado.service.obterSaldoPorUsuario(estado.proximoUsuario());
+	}
+}
@@ -0,0 +1,46 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.imatiello.minhasfinancas.BancoBenchmark;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UsuarioServiceBenchmark {
+
+	@State(Scope.Thread)
+	public static class Autenticacao {
+		
+		UsuarioService service;
+		long proximo;
+		
+		@Setup
+		public void iniciar(BancoBenchmark banco) {
+			service = banco.bean(UsuarioService.class);
+		}
+	}
+	
+	
+	// credenciais geradas pelo BancoBenchmark
+	@Benchmark
+	public Usuario autenticar(Autenticacao estado) {
+		
+		long id = (estado.proximo++ % BancoBenchmark.USUARIOS) + 1;
+		return estado.service.autenticar("usuario" + id + "@email.com", "senha" + id);
+	}
+}
@@ -0,0 +1,20 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgregadoLancamentosDTO {
+
+	private String grupo;
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+	private long quantidade;
+}
@@ -0,0 +1,14 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErroImportacaoDTO {
+
+	private Integer linha;
+	private String mensagem;
+}
@@ -0,0 +1,37 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticasCacheDTO {
+
+	private String nome;
+	private long tamanho;
+	private long acertos;
+	private long faltas;
+	private double taxaAcerto;
+	private long remocoes;
+	
+	
+	public static EstatisticasCacheDTO de(String nome, Cache<?, ?> cache) {
+		
+		CacheStats estatisticas = cache.stats();
+		return EstatisticasCacheDTO.builder()
+				.nome(nome)
+				.tamanho(cache.estimatedSize())
+				.acertos(estatisticas.hitCount())
+				.faltas(estatisticas.missCount())
+				.taxaAcerto(estatisticas.hitRate())
+				.remocoes(estatisticas.evictionCount())
+				.build();
+	}
+}
@@ -2,6 +2,9 @@ package com.imatiello.minhasfinancas.api.dto;
 
 import java.math.BigDecimal;
 
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,4 +25,12 @@ public class LancamentoDTO {
 	private Long usuario;
 	private String tipo;
 	private String status;
+	
+	// usado nas projeções JPQL/Criteria, que entregam os enums
+	public LancamentoDTO(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor,
+			Long usuario, TipoLancamento tipo, StatusLancamento status) {
+		this(id, descricao, mes, ano, valor, usuario,
+				tipo == null ? null : tipo.name(),
+				status == null ? null : status.name());
+	}
 }
@@ -0,0 +1,17 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+
+	private List<T> itens;
+	private Integer limite;
+	private String proximoCursor;
+}
@@ -0,0 +1,17 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ResultadoImportacaoDTO {
+
+	private int totalLinhas;
+	private int importadas;
+	private int rejeitadas;
+	private long duracaoMs;
+	private double linhasPorSegundo;
+	private List<ErroImportacaoDTO> erros = new ArrayList<>();
+}
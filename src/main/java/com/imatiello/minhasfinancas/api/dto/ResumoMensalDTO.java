@@ -0,0 +1,39 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Total e quantidade de lançamentos de um mês (ou de um ano, sem mês) por tipo e status. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensalDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private String tipo;
+	private String status;
+	private BigDecimal total;
+	private Long quantidade;
+	
+	// usado nas projeções JPQL/Criteria, que entregam os enums
+	public ResumoMensalDTO(Integer ano, Integer mes, TipoLancamento tipo, StatusLancamento status,
+			BigDecimal total, Long quantidade) {
+		this(ano, mes, tipo == null ? null : tipo.name(), status == null ? null : status.name(),
+				total, quantidade);
+	}
+	
+	// resumo anual: a soma dos meses
+	public ResumoMensalDTO(Integer ano, TipoLancamento tipo, StatusLancamento status,
+			BigDecimal total, Long quantidade) {
+		this(ano, null, tipo, status, total, quantidade);
+	}
+}
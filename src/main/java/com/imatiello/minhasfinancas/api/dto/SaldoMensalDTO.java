@@ -0,0 +1,27 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Movimento de um mês e o saldo acumulado até o fim dele. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoMensalDTO {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+	private BigDecimal saldo;
+	
+	// usado na projeção JPQL do movimento; o saldo é acumulado depois
+	public SaldoMensalDTO(Integer ano, Integer mes, BigDecimal receitas, BigDecimal despesas) {
+		this(ano, mes, receitas, despesas, null);
+	}
+}
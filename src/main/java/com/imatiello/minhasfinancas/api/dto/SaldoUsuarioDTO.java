@@ -0,0 +1,23 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoUsuarioDTO {
+
+	private Long usuario;
+	private BigDecimal saldo;
+	
+	// usado na projeção do saldo materializado; sem linha em saldo_usuario o saldo fica nulo
+	public SaldoUsuarioDTO(Long usuario, BigDecimal receitas, BigDecimal despesas) {
+		this(usuario, receitas == null || despesas == null ? null : receitas.subtract(despesas));
+	}
+}
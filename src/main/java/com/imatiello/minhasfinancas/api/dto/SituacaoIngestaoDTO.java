@@ -0,0 +1,18 @@
+package com.imatiello.minhasfinancas.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SituacaoIngestaoDTO {
+
+	private String id;
+	private String situacao;
+	private Long lancamento;
+	private String mensagem;
+}
@@ -0,0 +1,84 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Codificações das respostas com o mesmo modelo de dados do JSON. No Smile, nomes de
+ * campo e valores curtos repetidos (tipo, status, descrições frequentes) viram referências
+ * a uma ocorrência anterior, o que encolhe bem as listas de lançamentos.
+ */
+public enum Codificacao {
+
+	JSON(MediaType.APPLICATION_JSON, JsonFactory::new),
+	SMILE(MediaType.parseMediaType("application/x-jackson-smile"), () -> new SmileFactory()
+			.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)),
+	CBOR(MediaType.parseMediaType("application/cbor"), CBORFactory::new);
+
+	private final MediaType tipoConteudo;
+	private final Supplier<JsonFactory> configuracao;
+	private final JsonFactory fabrica;
+
+	Codificacao(MediaType tipoConteudo, Supplier<JsonFactory> configuracao) {
+		this.tipoConteudo = tipoConteudo;
+		this.configuracao = configuracao;
+		this.fabrica = novaFabrica();
+	}
+
+	public MediaType getTipoConteudo() {
+		return tipoConteudo;
+	}
+
+	/** Fábrica com a mesma configuração, para um ObjectMapper, que se registra nela como codec. */
+	public JsonFactory novaFabrica() {
+		return configuracao.get().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	public JsonGenerator criarGerador(OutputStream saida) throws IOException {
+		return fabrica.createGenerator(saida);
+	}
+
+	/**
+	 * A primeira codificação aceita, na ordem de preferência do Accept; JSON quando
+	 * o cliente aceita qualquer coisa ou nenhuma das binárias.
+	 */
+	public static Codificacao negociar(List<MediaType> aceitos) {
+
+		List<MediaType> ordenados = new ArrayList<>(aceitos);
+		MediaType.sortBySpecificityAndQuality(ordenados);
+		for (MediaType aceito : ordenados) {
+			if (aceito.isWildcardType() || aceito.isWildcardSubtype()) {
+				continue;
+			}
+			for (Codificacao codificacao : values()) {
+				if (aceito.includes(codificacao.tipoConteudo)) {
+					return codificacao;
+				}
+			}
+		}
+		return JSON;
+	}
+
+	/** Negocia a partir do cabeçalho Accept; um cabeçalho mal formado vale como ausente. */
+	public static Codificacao negociar(String aceito) {
+
+		try {
+			return negociar(MediaType.parseMediaTypes(aceito));
+		} catch (InvalidMediaTypeException e) {
+			return JSON;
+		}
+	}
+}
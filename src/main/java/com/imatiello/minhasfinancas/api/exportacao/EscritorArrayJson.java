@@ -0,0 +1,45 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Grava itens como um array JSON (ou Smile/CBOR), um por vez, sem acumulá-los em memória.
+ * Fechar o escritor fecha o array e descarrega o buffer, mas não fecha a saída.
+ */
+public abstract class EscritorArrayJson<T> implements Consumer<T>, Closeable {
+
+	private final JsonGenerator gerador;
+
+	protected EscritorArrayJson(OutputStream saida) throws IOException {
+		this(saida, Codificacao.JSON);
+	}
+
+	protected EscritorArrayJson(OutputStream saida, Codificacao codificacao) throws IOException {
+		this.gerador = codificacao.criarGerador(saida);
+		this.gerador.writeStartArray();
+	}
+
+	@Override
+	public void accept(T item) {
+		try {
+			gerador.writeStartObject();
+			escrever(gerador, item);
+			gerador.writeEndObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	protected abstract void escrever(JsonGenerator gerador, T item) throws IOException;
+
+	@Override
+	public void close() throws IOException {
+		gerador.close();
+	}
+}
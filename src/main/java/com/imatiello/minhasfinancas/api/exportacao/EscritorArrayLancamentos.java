@@ -0,0 +1,28 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+
+/** Exportação em um único array, para as codificações binárias, que não têm separador de linha. */
+class EscritorArrayLancamentos extends EscritorLancamentos {
+
+	private final JsonGenerator gerador;
+
+	EscritorArrayLancamentos(OutputStream saida, Codificacao codificacao) throws IOException {
+		this.gerador = codificacao.criarGerador(saida);
+		this.gerador.writeStartArray();
+	}
+
+	@Override
+	protected void escrever(LancamentoDTO lancamento) throws IOException {
+		escreverObjeto(gerador, lancamento);
+	}
+
+	@Override
+	public void close() throws IOException {
+		gerador.close();
+	}
+}
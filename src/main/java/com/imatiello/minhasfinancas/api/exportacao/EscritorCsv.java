@@ -0,0 +1,63 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+
+class EscritorCsv extends EscritorLancamentos {
+
+	static final String CABECALHO = "id,descricao,mes,ano,valor,usuario,tipo,status";
+
+	private final Writer saida;
+
+	EscritorCsv(OutputStream saida) throws IOException {
+		this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+		this.saida.write(CABECALHO);
+		this.saida.write("\r\n");
+	}
+
+	@Override
+	protected void escrever(LancamentoDTO lancamento) throws IOException {
+
+		campo(lancamento.getId()).write(',');
+		texto(lancamento.getDescricao()).write(',');
+		campo(lancamento.getMes()).write(',');
+		campo(lancamento.getAno()).write(',');
+		campo(lancamento.getValor() == null ? null : lancamento.getValor().toPlainString()).write(',');
+		campo(lancamento.getUsuario()).write(',');
+		campo(lancamento.getTipo()).write(',');
+		campo(lancamento.getStatus()).write("\r\n");
+	}
+
+	private Writer campo(Object valor) throws IOException {
+		if (valor != null) {
+			saida.write(valor.toString());
+		}
+		return saida;
+	}
+
+	// RFC 4180: aspas quando houver separador, aspas ou quebra de linha
+	private Writer texto(String valor) throws IOException {
+		if (valor == null) {
+			return saida;
+		}
+		if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+			saida.write(valor);
+			return saida;
+		}
+		saida.write('"');
+		saida.write(valor.replace("\"", "\"\""));
+		saida.write('"');
+		return saida;
+	}
+
+	@Override
+	public void close() throws IOException {
+		saida.flush();
+	}
+}
@@ -0,0 +1,42 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+
+/**
+ * Grava lançamentos um a um na saída, sem acumulá-los em memória.
+ * Fechar o escritor descarrega o buffer mas não fecha a saída.
+ */
+public abstract class EscritorLancamentos implements Consumer<LancamentoDTO>, Closeable {
+
+	@Override
+	public void accept(LancamentoDTO lancamento) {
+		try {
+			escrever(lancamento);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	protected abstract void escrever(LancamentoDTO lancamento) throws IOException;
+
+	// campos sempre na mesma ordem: no Smile, a partir da segunda linha os nomes viram referências
+	static void escreverObjeto(JsonGenerator gerador, LancamentoDTO lancamento) throws IOException {
+
+		gerador.writeStartObject();
+		gerador.writeObjectField("id", lancamento.getId());
+		gerador.writeStringField("descricao", lancamento.getDescricao());
+		gerador.writeObjectField("mes", lancamento.getMes());
+		gerador.writeObjectField("ano", lancamento.getAno());
+		gerador.writeObjectField("valor", lancamento.getValor());
+		gerador.writeObjectField("usuario", lancamento.getUsuario());
+		gerador.writeStringField("tipo", lancamento.getTipo());
+		gerador.writeStringField("status", lancamento.getStatus());
+		gerador.writeEndObject();
+	}
+}
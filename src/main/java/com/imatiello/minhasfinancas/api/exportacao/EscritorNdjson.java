@@ -0,0 +1,33 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+
+class EscritorNdjson extends EscritorLancamentos {
+
+	private static final JsonFactory FABRICA = new JsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final JsonGenerator gerador;
+
+	EscritorNdjson(OutputStream saida) throws IOException {
+		this.gerador = FABRICA.createGenerator(saida);
+		this.gerador.setRootValueSeparator(null);
+	}
+
+	@Override
+	protected void escrever(LancamentoDTO lancamento) throws IOException {
+
+		escreverObjeto(gerador, lancamento);
+		gerador.writeRaw('\n');
+	}
+
+	@Override
+	public void close() throws IOException {
+		gerador.close();
+	}
+}
@@ -0,0 +1,29 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO;
+
+/** Série de saldos mensais de um usuário. */
+public class EscritorSaldos extends EscritorArrayJson<SaldoMensalDTO> {
+
+	public EscritorSaldos(OutputStream saida) throws IOException {
+		super(saida);
+	}
+
+	public EscritorSaldos(OutputStream saida, Codificacao codificacao) throws IOException {
+		super(saida, codificacao);
+	}
+
+	@Override
+	protected void escrever(JsonGenerator gerador, SaldoMensalDTO saldo) throws IOException {
+
+		gerador.writeObjectField("ano", saldo.getAno());
+		gerador.writeObjectField("mes", saldo.getMes());
+		gerador.writeObjectField("receitas", saldo.getReceitas());
+		gerador.writeObjectField("despesas", saldo.getDespesas());
+		gerador.writeObjectField("saldo", saldo.getSaldo());
+	}
+}
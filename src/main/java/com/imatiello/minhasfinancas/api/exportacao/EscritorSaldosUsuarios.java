@@ -0,0 +1,26 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+
+/** Saldos de vários usuários, para os relatórios em lote. */
+public class EscritorSaldosUsuarios extends EscritorArrayJson<SaldoUsuarioDTO> {
+
+	public EscritorSaldosUsuarios(OutputStream saida) throws IOException {
+		super(saida);
+	}
+
+	public EscritorSaldosUsuarios(OutputStream saida, Codificacao codificacao) throws IOException {
+		super(saida, codificacao);
+	}
+
+	@Override
+	protected void escrever(JsonGenerator gerador, SaldoUsuarioDTO saldo) throws IOException {
+
+		gerador.writeObjectField("usuario", saldo.getUsuario());
+		gerador.writeObjectField("saldo", saldo.getSaldo());
+	}
+}
@@ -0,0 +1,50 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum FormatoExportacao {
+
+	NDJSON("application/x-ndjson", "ndjson") {
+		@Override
+		public EscritorLancamentos criarEscritor(OutputStream saida) throws IOException {
+			return new EscritorNdjson(saida);
+		}
+	},
+	CSV("text/csv", "csv") {
+		@Override
+		public EscritorLancamentos criarEscritor(OutputStream saida) throws IOException {
+			return new EscritorCsv(saida);
+		}
+	},
+	SMILE("application/x-jackson-smile", "sml") {
+		@Override
+		public EscritorLancamentos criarEscritor(OutputStream saida) throws IOException {
+			return new EscritorArrayLancamentos(saida, Codificacao.SMILE);
+		}
+	},
+	CBOR("application/cbor", "cbor") {
+		@Override
+		public EscritorLancamentos criarEscritor(OutputStream saida) throws IOException {
+			return new EscritorArrayLancamentos(saida, Codificacao.CBOR);
+		}
+	};
+
+	private final String tipoConteudo;
+	private final String extensao;
+
+	FormatoExportacao(String tipoConteudo, String extensao) {
+		this.tipoConteudo = tipoConteudo;
+		this.extensao = extensao;
+	}
+
+	public String getTipoConteudo() {
+		return tipoConteudo;
+	}
+
+	public String getExtensao() {
+		return extensao;
+	}
+
+	public abstract EscritorLancamentos criarEscritor(OutputStream saida) throws IOException;
+}
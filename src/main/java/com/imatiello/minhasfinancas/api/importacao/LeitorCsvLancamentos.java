@@ -0,0 +1,197 @@
+package com.imatiello.minhasfinancas.api.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+
+/**
+ * Lê lançamentos de um CSV com cabeçalho (descricao, mes, ano, valor, tipo, em
+ * qualquer ordem), um registro por vez. Um campo entre aspas pode conter quebras de
+ * linha, como os que a exportação gera. Um registro mal formado gera
+ * {@link RegraNegocioException} em {@link #next()} e a leitura segue no próximo.
+ */
+public class LeitorCsvLancamentos implements Iterator<LancamentoDTO> {
+
+	private final Reader leitor;
+	private final char[] buffer = new char[8192];
+	private int posicao;
+	private int limite;
+	private final int descricao;
+	private final int mes;
+	private final int ano;
+	private final int valor;
+	private final int tipo;
+	private String proximaLinha;
+
+	public LeitorCsvLancamentos(InputStream entrada) {
+
+		this.leitor = new InputStreamReader(entrada, StandardCharsets.UTF_8);
+
+		String cabecalho = lerRegistro();
+		if (cabecalho == null) {
+			throw new RegraNegocioException("Arquivo CSV vazio.");
+		}
+		List<String> colunas = Arrays.asList(cabecalho.trim().toLowerCase().split("\\s*,\\s*"));
+		this.descricao = coluna(colunas, "descricao");
+		this.mes = coluna(colunas, "mes");
+		this.ano = coluna(colunas, "ano");
+		this.valor = coluna(colunas, "valor");
+		this.tipo = coluna(colunas, "tipo");
+		this.proximaLinha = lerRegistro();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return proximaLinha != null;
+	}
+
+	@Override
+	public LancamentoDTO next() {
+
+		if (proximaLinha == null) {
+			throw new NoSuchElementException();
+		}
+		String linha = proximaLinha;
+		proximaLinha = lerRegistro();
+
+		if (aspasAbertas(linha)) {
+			throw new RegraNegocioException("Linha com aspas não fechadas: " + linha);
+		}
+		List<String> campos = separar(linha);
+		try {
+			return LancamentoDTO.builder()
+					.descricao(campo(campos, descricao))
+					.mes(inteiro(campo(campos, mes)))
+					.ano(inteiro(campo(campos, ano)))
+					.valor(campo(campos, valor) == null ? null : new BigDecimal(campo(campos, valor)))
+					.tipo(campo(campos, tipo))
+					.build();
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException("Linha com valor numérico inválido: " + linha);
+		}
+	}
+
+	private int coluna(List<String> colunas, String nome) {
+		int indice = colunas.indexOf(nome);
+		if (indice < 0) {
+			throw new RegraNegocioException("Coluna obrigatória ausente no CSV: " + nome + ".");
+		}
+		return indice;
+	}
+
+	private String campo(List<String> campos, int indice) {
+		if (indice >= campos.size() || campos.get(indice).isEmpty()) {
+			return null;
+		}
+		return campos.get(indice);
+	}
+
+	private Integer inteiro(String texto) {
+		return texto == null ? null : Integer.valueOf(texto.trim());
+	}
+
+	// o registro termina na quebra de linha fora de aspas; registros em branco são ignorados
+	private String lerRegistro() {
+
+		StringBuilder registro = new StringBuilder();
+		boolean entreAspas = false;
+		boolean emBranco = true;
+
+		for (int c = ler(); c >= 0; c = ler()) {
+			if (!entreAspas && (c == '\n' || c == '\r')) {
+				if (c == '\r' && espiar() == '\n') {
+					ler();
+				}
+				if (!emBranco) {
+					return registro.toString();
+				}
+				registro.setLength(0);
+				continue;
+			}
+			if (c == '"') {
+				entreAspas = !entreAspas;
+			}
+			emBranco &= Character.isWhitespace(c);
+			registro.append((char) c);
+		}
+		return emBranco ? null : registro.toString();
+	}
+
+	private int ler() {
+		int c = espiar();
+		if (c >= 0) {
+			posicao++;
+		}
+		return c;
+	}
+
+	private int espiar() {
+		try {
+			if (posicao == limite) {
+				limite = leitor.read(buffer);
+				posicao = 0;
+				if (limite < 0) {
+					limite = 0;
+					return -1;
+				}
+			}
+			return buffer[posicao];
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// aspas escapadas ("") não mudam a paridade
+	private static boolean aspasAbertas(String registro) {
+		boolean abertas = false;
+		for (int i = 0; i < registro.length(); i++) {
+			if (registro.charAt(i) == '"') {
+				abertas = !abertas;
+			}
+		}
+		return abertas;
+	}
+
+	// separa os campos respeitando aspas (RFC 4180); a quebra de linha entre aspas fica no campo
+	static List<String> separar(String linha) {
+
+		List<String> campos = new ArrayList<>();
+		StringBuilder atual = new StringBuilder();
+		boolean entreAspas = false;
+
+		for (int i = 0; i < linha.length(); i++) {
+			char c = linha.charAt(i);
+			if (entreAspas) {
+				if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+					atual.append('"');
+					i++;
+				} else if (c == '"') {
+					entreAspas = false;
+				} else {
+					atual.append(c);
+				}
+			} else if (c == '"') {
+				entreAspas = true;
+			} else if (c == ',') {
+				campos.add(atual.toString().trim());
+				atual.setLength(0);
+			} else {
+				atual.append(c);
+			}
+		}
+		campos.add(atual.toString().trim());
+		return campos;
+	}
+}
@@ -0,0 +1,58 @@
+package com.imatiello.minhasfinancas.api.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+
+/**
+ * Lê um array JSON de lançamentos elemento a elemento, sem carregar o array
+ * inteiro. Um elemento com campo inválido gera {@link RegraNegocioException} em
+ * {@link #next()} e a leitura continua no elemento seguinte.
+ */
+public class LeitorJsonLancamentos implements Iterator<LancamentoDTO> {
+
+	private static final ObjectReader LEITOR = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.readerFor(LancamentoDTO.class);
+
+	private final MappingIterator<LancamentoDTO> elementos;
+
+	public LeitorJsonLancamentos(InputStream entrada) {
+		try {
+			this.elementos = LEITOR.readValues(entrada);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return elementos.hasNextValue();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public LancamentoDTO next() {
+		try {
+			return elementos.next();
+		} catch (RuntimeJsonMappingException e) {
+			String motivo = e.getCause() instanceof JsonProcessingException
+					? ((JsonProcessingException) e.getCause()).getOriginalMessage()
+					: e.getMessage();
+			throw new RegraNegocioException("Lançamento inválido: " + motivo);
+		}
+	}
+}
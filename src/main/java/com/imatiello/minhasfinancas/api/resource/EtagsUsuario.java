@@ -0,0 +1,50 @@
+package com.imatiello.minhasfinancas.api.resource;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import com.imatiello.minhasfinancas.api.exportacao.Codificacao;
+
+/**
+ * ETags fortes derivadas da versão dos dados de um usuário, no formato
+ * "idUsuario.versao" em JSON e "idUsuario.versao.codificacao" em Smile ou CBOR.
+ * A versão muda a cada escrita nos lançamentos dele.
+ */
+final class EtagsUsuario {
+
+	private EtagsUsuario() {
+	}
+
+	// sem aspas: ResponseEntity e WebRequest.checkNotModified acrescentam. Uma ETag forte
+	// identifica os bytes da resposta, e a mesma URL responde JSON, Smile ou CBOR conforme o Accept
+	static String gerar(Long idUsuario, long versao, WebRequest requisicao) {
+
+		String aceito = requisicao.getHeader(HttpHeaders.ACCEPT);
+		Codificacao codificacao = Codificacao.negociar(aceito);
+		String etag = idUsuario + "." + versao;
+		return codificacao == Codificacao.JSON ? etag : etag + "." + codificacao.name().toLowerCase();
+	}
+
+	/**
+	 * Versão informada num If-Match para o usuário, ou null se nenhuma ETag
+	 * forte do cabeçalho for dele. A codificação não importa: a versão é a mesma.
+	 */
+	static Long versao(String ifMatch, Long idUsuario) {
+
+		for (String etag : ifMatch.split(",")) {
+			etag = etag.trim();
+			if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+				continue;
+			}
+			String[] partes = etag.substring(1, etag.length() - 1).split("\\.");
+			if ((partes.length == 2 || partes.length == 3) && partes[0].equals(String.valueOf(idUsuario))) {
+				try {
+					return Long.valueOf(partes[1]);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -1,8 +1,24 @@
 package com.imatiello.minhasfinancas.api.resource;
 
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,21 +26,40 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.imatiello.minhasfinancas.api.dto.AtualizaStatusDTO;
+import com.imatiello.minhasfinancas.api.dto.AtualizaStatusEmLoteDTO;
 import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.exportacao.Codificacao;
+import com.imatiello.minhasfinancas.api.exportacao.EscritorLancamentos;
+import com.imatiello.minhasfinancas.api.exportacao.EscritorSaldos;
+import com.imatiello.minhasfinancas.api.exportacao.FormatoExportacao;
+import com.imatiello.minhasfinancas.api.importacao.LeitorCsvLancamentos;
+import com.imatiello.minhasfinancas.api.importacao.LeitorJsonLancamentos;
+import com.imatiello.minhasfinancas.exception.FilaCheiaException;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.AgrupamentoAnalise;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
 import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
 import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.FiltroAnalise;
+import com.imatiello.minhasfinancas.service.AnaliseLancamentoService;
+import com.imatiello.minhasfinancas.service.ImportacaoLancamentoService;
+import com.imatiello.minhasfinancas.service.IngestaoLancamentoService;
 import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.ResumoMensalService;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
 import com.imatiello.minhasfinancas.service.UsuarioService;
 
-import antlr.collections.List;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -34,6 +69,11 @@ public class LancamentoResource {
 
 	private final LancamentoService service;
 	private final UsuarioService usuarioService;
+	private final ImportacaoLancamentoService importacaoService;
+	private final SaldoUsuarioService saldoUsuarioService;
+	private final ResumoMensalService resumoMensalService;
+	private final AnaliseLancamentoService analiseService;
+	private final ObjectProvider<IngestaoLancamentoService> ingestaoService;
 	
 	
 	@GetMapping
@@ -41,7 +81,9 @@ public class LancamentoResource {
 			@RequestParam (value = "descrição", required = false) String descricao,
 			@RequestParam (value = "mês", required = false) Integer mes,
 			@RequestParam (value = "ano", required = false) Integer ano,
-			@RequestParam ( "usuario") Long idUsuario
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam (value = "fields", required = false) List<String> fields,
+			WebRequest requisicao
 				) {
 		
 		Lancamento lancamentoFiltro=   new Lancamento();
@@ -49,9 +91,22 @@ public class LancamentoResource {
 		lancamentoFiltro.setAno(ano);
 		lancamentoFiltro.setMes(mes);
 		
+		Set<CampoLancamento> campos = null;
+		if (fields != null) {
+			campos = EnumSet.noneOf(CampoLancamento.class);
+			try {
+				for (String campo : fields) {
+					campos.add(CampoLancamento.valueOf(campo.trim().toUpperCase()));
+				}
+			}catch (IllegalArgumentException e) {
+				return ResponseEntity.badRequest().body
+				("Campo inválido. Use id, descricao, mes, ano, valor, usuario, tipo ou status.");
+			}
+		}
+		
 		
 		Optional<Usuario> usuario= usuarioService.obterPorId(idUsuario);
-		if (usuario.isPresent()) {
+		if (!usuario.isPresent()) {
 			
 			return ResponseEntity.badRequest().body
 			("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
@@ -59,14 +114,297 @@ public class LancamentoResource {
 			lancamentoFiltro.setUsuario(usuario.get());
 		}
 		
-		List lancamentos= (List) service.buscar(lancamentoFiltro); //TODO mudança no original 
-		return ResponseEntity.ok(lancamentos);
+		// a versão é lida antes dos dados: uma escrita no meio só gera uma ETag antiga
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		if (campos != null) {
+			try {
+				return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+						.body(service.buscarCampos(lancamentoFiltro, campos));
+			}catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		}
+		
+		List<LancamentoDTO> lancamentos= service.buscarProjecoes(lancamentoFiltro);
+		return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(lancamentos);
+	}
+	
+	
+	
+	
+	
+	
+	
+	
+	@GetMapping("pagina")
+	public ResponseEntity buscarPagina(
+			@RequestParam (value = "descrição", required = false) String descricao,
+			@RequestParam (value = "mês", required = false) Integer mes,
+			@RequestParam (value = "ano", required = false) Integer ano,
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam (value = "limite", required = false) Integer limite,
+			@RequestParam (value = "cursor", required = false) String cursor,
+			WebRequest requisicao
+				) {
+		
+		Lancamento lancamentoFiltro=   new Lancamento();
+		lancamentoFiltro.setDescricao(descricao);
+		lancamentoFiltro.setAno(ano);
+		lancamentoFiltro.setMes(mes);
+		
+		Optional<Usuario> usuario= usuarioService.obterPorId(idUsuario);
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body
+			("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
+		}
+		lancamentoFiltro.setUsuario(usuario.get());
+		
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		try {
+			return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+					.body(service.buscarPagina(lancamentoFiltro, cursor, limite));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	
+	
+	@GetMapping("pesquisa")
+	public ResponseEntity pesquisar(
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam ( "q") String termos,
+			@RequestParam (value = "limite", required = false) Integer limite
+				) {
+		
+		try {
+			return ResponseEntity.ok(service.pesquisar(idUsuario, termos, limite));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	
+	
+	@GetMapping("resumo/mensal")
+	public ResponseEntity resumoMensal(
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam ( "ano") Integer ano,
+			WebRequest requisicao
+				) {
+		
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body
+			("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
+		}
+		
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+				.body(resumoMensalService.obterMensal(idUsuario, ano));
 	}
 	
 	
 	
+	@GetMapping("resumo/anual")
+	public ResponseEntity resumoAnual(
+			@RequestParam ( "usuario") Long idUsuario,
+			WebRequest requisicao
+				) {
+		
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body
+			("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
+		}
+		
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+				.body(resumoMensalService.obterAnual(idUsuario));
+	}
+	
 	
 	
+	@GetMapping("analise")
+	public ResponseEntity analise(
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam (value = "agrupar", defaultValue = "MES") String agrupar,
+			@RequestParam (value = "de", required = false) String de,
+			@RequestParam (value = "ate", required = false) String ate,
+			@RequestParam (value = "tipo", required = false) String tipo,
+			@RequestParam (value = "status", required = false) List<String> status,
+			@RequestParam (value = "descricao", required = false) String descricao,
+			WebRequest requisicao
+				) {
+		
+		AgrupamentoAnalise agrupamento;
+		FiltroAnalise filtro = new FiltroAnalise();
+		try {
+			agrupamento = AgrupamentoAnalise.valueOf(agrupar.trim().toUpperCase());
+			filtro.setDe(de == null ? null : YearMonth.parse(de));
+			filtro.setAte(ate == null ? null : YearMonth.parse(ate));
+			filtro.setTipo(tipo == null ? null : TipoLancamento.valueOf(tipo.trim().toUpperCase()));
+			if (status != null) {
+				Set<StatusLancamento> statusConsiderados = EnumSet.noneOf(StatusLancamento.class);
+				for (String valor : status) {
+					statusConsiderados.add(StatusLancamento.valueOf(valor.trim().toUpperCase()));
+				}
+				filtro.setStatus(statusConsiderados);
+			}
+			filtro.setDescricao(descricao);
+		}catch (DateTimeParseException e) {
+			return ResponseEntity.badRequest().body("Informe o período no formato aaaa-mm.");
+		}catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Agrupamento, tipo ou status inválido.");
+		}
+		
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body
+			("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado.");
+		}
+		
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		try {
+			return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+					.body(analiseService.agregar(idUsuario, filtro, agrupamento));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	
+	
+	@GetMapping("saldos")
+	public ResponseEntity<StreamingResponseBody> serieSaldos(
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam ( "de") String de,
+			@RequestParam ( "ate") String ate,
+			@RequestParam (value = "status", defaultValue = "EFETIVADO,PENDENTE") List<String> status,
+			@RequestHeader (value = HttpHeaders.ACCEPT, required = false) String aceito,
+			WebRequest requisicao
+				) {
+		
+		YearMonth inicio;
+		YearMonth fim;
+		Set<StatusLancamento> statusConsiderados = EnumSet.noneOf(StatusLancamento.class);
+		try {
+			inicio = YearMonth.parse(de);
+			fim = YearMonth.parse(ate);
+			for (String valor : status) {
+				statusConsiderados.add(StatusLancamento.valueOf(valor.trim().toUpperCase()));
+			}
+			resumoMensalService.validarPeriodo(inicio, fim, statusConsiderados);
+		}catch (DateTimeParseException e) {
+			return ResponseEntity.badRequest().body(mensagem("Informe o período no formato aaaa-mm."));
+		}catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(mensagem("Status de Lançamento inválido."));
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(mensagem(e.getMessage()));
+		}
+		
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body
+			(mensagem("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado."));
+		}
+		
+		if (requisicao.checkNotModified(etag(idUsuario, requisicao))) {
+			return null;
+		}
+		
+		Codificacao codificacao = Codificacao.negociar(aceito);
+		StreamingResponseBody corpo = saida -> {
+			try (EscritorSaldos escritor = new EscritorSaldos(saida, codificacao)) {
+				resumoMensalService.percorrerSaldos(idUsuario, inicio, fim, statusConsiderados, escritor);
+			}
+		};
+		
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.noCache())
+				.contentType(codificacao.getTipoConteudo())
+				.body(corpo);
+	}
+	
+	
+	
+	@GetMapping("exportar")
+	public ResponseEntity<StreamingResponseBody> exportar(
+			@RequestParam ( "usuario") Long idUsuario,
+			@RequestParam (value = "ano", required = false) Integer ano,
+			@RequestParam (value = "formato", defaultValue = "ndjson") String formato
+				) {
+		
+		FormatoExportacao formatoExportacao;
+		try {
+			formatoExportacao = FormatoExportacao.valueOf(formato.toUpperCase());
+		}catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(mensagem("Formato de exportação inválido. Use ndjson, csv, smile ou cbor."));
+		}
+		
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest().body
+			(mensagem("Não foi possível realizar a exportação. Usuário não encontrado para o Id informado."));
+		}
+		
+		Lancamento lancamentoFiltro = new Lancamento();
+		lancamentoFiltro.setUsuario(Usuario.builder().id(idUsuario).build());
+		lancamentoFiltro.setAno(ano);
+		
+		StreamingResponseBody corpo = saida -> {
+			try (EscritorLancamentos escritor = formatoExportacao.criarEscritor(saida)) {
+				service.exportar(lancamentoFiltro, escritor);
+			}
+		};
+		
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(formatoExportacao.getTipoConteudo()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"lancamentos-" + idUsuario + "." + formatoExportacao.getExtensao() + "\"")
+				.body(corpo);
+	}
+	
+	
+	
+	@PostMapping(value = "importar", consumes = "text/csv")
+	public ResponseEntity importarCsv(@RequestParam ( "usuario") Long idUsuario, InputStream corpo) {
+		
+		return importar(idUsuario, () -> new LeitorCsvLancamentos(corpo));
+	}
+	
+	
+	@PostMapping(value = "importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity importarJson(@RequestParam ( "usuario") Long idUsuario, InputStream corpo) {
+		
+		return importar(idUsuario, () -> new LeitorJsonLancamentos(corpo));
+	}
+	
+	
+	private ResponseEntity importar(Long idUsuario, Supplier<Iterator<LancamentoDTO>> leitor) {
+		
+		Optional<Usuario> usuario= usuarioService.obterPorId(idUsuario);
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body
+			("Não foi possível realizar a importação. Usuário não encontrado para o Id informado.");
+		}
+		
+		try {
+			return ResponseEntity.ok(importacaoService.importar(usuario.get(), leitor.get()));
+		}catch (RegraNegocioException | UncheckedIOException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
 	
 	
 	
@@ -77,24 +415,77 @@ public class LancamentoResource {
 			Lancamento entidade= converter(dto);
 			
 			entidade= service.salvar(entidade);
-			return new ResponseEntity(entidade, HttpStatus.CREATED);
+			return new ResponseEntity(converter(entidade), HttpStatus.CREATED);
 			
 		}catch(RegraNegocioException e) {
 			
 			return ResponseEntity.badRequest().body(e.getMessage());
 		}
 	}
+	
+	
+	// aceita o lançamento validado e grava depois, em lote; a situação fica em ingestao/{id}
+	@PostMapping("ingestao")
+	public ResponseEntity enfileirar(@RequestBody LancamentoDTO dto) {
+		
+		IngestaoLancamentoService ingestao = ingestaoService.getIfAvailable();
+		if (ingestao == null) {
+			return ResponseEntity.notFound().build();
+		}
+		
+		try {
+			String id = ingestao.enfileirar(converter(dto));
+			return ResponseEntity.accepted()
+					.location(URI.create("/api/lancamentos/ingestao/" + id))
+					.body(ingestao.obterSituacao(id).orElse(null));
+		}catch (FilaCheiaException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, "1")
+					.body(e.getMessage());
+		}catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+	
+	
+	@GetMapping("ingestao/{id}")
+	public ResponseEntity obterSituacaoIngestao(@PathVariable ("id") String id) {
+		
+		IngestaoLancamentoService ingestao = ingestaoService.getIfAvailable();
+		if (ingestao == null) {
+			return ResponseEntity.notFound().build();
+		}
+		
+		return ingestao.obterSituacao(id)
+				.map(situacao -> ResponseEntity.ok(situacao))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+	
+	
 		@PutMapping("{id}")
-	public ResponseEntity atualizar(@PathVariable ("id") Long id, @RequestBody LancamentoDTO dto) {
+	public ResponseEntity atualizar(@PathVariable ("id") Long id, @RequestBody LancamentoDTO dto,
+			@RequestHeader (value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		
 		return service.obterPorId(id).map(  entity ->{
 			try {
 				Lancamento lancamento= converter(dto);
 				lancamento.setId(entity.getId());
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);		
+				
+				if (ifMatch == null || ifMatch.trim().equals("*")) {
+					service.atualizar(lancamento);
+				} else {
+					Long versao = EtagsUsuario.versao(ifMatch, entity.getUsuario().getId());
+					if (versao == null) {
+						return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+								.body("If-Match não corresponde aos lançamentos deste usuário.");
+					}
+					service.atualizar(lancamento, versao);
+				}
+				return ResponseEntity.ok(converter(lancamento));		
 				
 				
+			}catch (VersaoDesatualizadaException e) {
+				return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
 			}catch (RegraNegocioException e) {
 				return ResponseEntity.badRequest().body(e.getMessage());
 			}
@@ -103,6 +494,39 @@ public class LancamentoResource {
 		}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na Base de Dados.",HttpStatus.BAD_REQUEST) );
 		
 	}
+		@PutMapping("atualiza-status")
+		public ResponseEntity atualizarStatusEmLote(@RequestBody AtualizaStatusEmLoteDTO dto) {
+			
+			if ((dto.getIds() == null || dto.getIds().isEmpty()) && dto.getAno() == null
+					&& dto.getMes() == null && dto.getStatusAtual() == null) {
+				return ResponseEntity.badRequest()
+						.body("Informe os ids dos lançamentos ou um filtro (ano, mês ou status atual).");
+			}
+			
+			Lancamento lancamentoFiltro = new Lancamento();
+			lancamentoFiltro.setUsuario(Usuario.builder().id(dto.getUsuario()).build());
+			lancamentoFiltro.setAno(dto.getAno());
+			lancamentoFiltro.setMes(dto.getMes());
+			
+			try {
+				if (dto.getStatusAtual() != null) {
+					lancamentoFiltro.setStatus(StatusLancamento.valueOf(dto.getStatusAtual()));
+				}
+				StatusLancamento status = StatusLancamento.valueOf(String.valueOf(dto.getStatus()));
+				
+				List<Long> ids = dto.getIds() == null || dto.getIds().isEmpty() ? null : dto.getIds();
+				int atualizados = service.atualizarStatusEmLote(lancamentoFiltro, ids, status);
+				
+				return ResponseEntity.ok(Collections.singletonMap("atualizados", atualizados));
+			}catch (IllegalArgumentException e) {
+				return ResponseEntity.badRequest()
+						.body("Não foi possível atualizar o status de lançamento, por favor envie um status válido.");
+			}catch (RegraNegocioException e) {
+				return ResponseEntity.badRequest().body(e.getMessage());
+			}
+		}
+		
+		
 		@PutMapping("{id}/atualiza-status")
 		public ResponseEntity atualizarStatus(@PathVariable ("id") Long id, @RequestBody AtualizaStatusDTO dto   ) {
 			
@@ -116,9 +540,10 @@ public class LancamentoResource {
 							.body("Não foi possível atualizar o status de lançamento, por favor envie um status válido.");
 				}
 				try {
-					entity.setStatus(statusLancamento);
-					service.atualizar(entity);
-					return ResponseEntity.ok(entity);	
+					service.atulizarStatus(entity, statusLancamento);
+					return ResponseEntity.ok(converter(entity));	
+				}catch (VersaoDesatualizadaException e) {
+					return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
 				}catch (RegraNegocioException e) {
 					return ResponseEntity.badRequest().body(e.getMessage());
 				}
@@ -136,8 +561,12 @@ public class LancamentoResource {
 		public ResponseEntity deletar (@PathVariable ("id") Long id){
 			
 			return service.obterPorId(id).map(  entity ->{
-				service.deletar(entity);
-				return new ResponseEntity(HttpStatus.NO_CONTENT);
+				try {
+					service.deletar(entity);
+					return new ResponseEntity(HttpStatus.NO_CONTENT);
+				}catch (VersaoDesatualizadaException e) {
+					return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+				}
 			}).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na Base de Dados."
 					,HttpStatus.BAD_REQUEST) );
 			
@@ -145,7 +574,29 @@ public class LancamentoResource {
 		}
 	
 	
-	private Lancamento converter (LancamentoDTO dto) {
+	private String etag(Long idUsuario, WebRequest requisicao) {
+		
+		return EtagsUsuario.gerar(idUsuario, saldoUsuarioService.obterVersao(idUsuario), requisicao);
+	}
+	
+	
+	private StreamingResponseBody mensagem(String mensagem) {
+		
+		return saida -> saida.write(mensagem.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	// a resposta leva só o id do usuário, sem inicializar a associação lazy
+	private LancamentoDTO converter (Lancamento lancamento) {
+		
+		return new LancamentoDTO(lancamento.getId(), lancamento.getDescricao(), lancamento.getMes(),
+				lancamento.getAno(), lancamento.getValor(), lancamento.getUsuario().getId(),
+				lancamento.getTipo(), lancamento.getStatus());
+	}
+	
+	
+	// visível no pacote para o LancamentoResourceBenchmark
+	Lancamento converter (LancamentoDTO dto) {
 		
 		Lancamento lancamento = new Lancamento();
 		
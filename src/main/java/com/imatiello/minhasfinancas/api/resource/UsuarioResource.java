@@ -1,23 +1,38 @@
 package com.imatiello.minhasfinancas.api.resource;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.imatiello.minhasfinancas.api.dto.EstatisticasCacheDTO;
 import com.imatiello.minhasfinancas.api.dto.UsuarioDTO;
+import com.imatiello.minhasfinancas.api.exportacao.Codificacao;
+import com.imatiello.minhasfinancas.api.exportacao.EscritorSaldosUsuarios;
+import com.imatiello.minhasfinancas.config.CacheConfiguration;
 import com.imatiello.minhasfinancas.exception.ErroAutenticacao;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
 import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
 import com.imatiello.minhasfinancas.service.UsuarioService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,6 +44,8 @@ public class UsuarioResource {
 
 	private final UsuarioService service;
 	private final LancamentoService lancamentoService;
+	private final SaldoUsuarioService saldoUsuarioService;
+	private final CacheManager cacheManager;
 	 
 	
 	@PostMapping("/autenticar")
@@ -64,7 +81,7 @@ public class UsuarioResource {
 	}
 	
 	@GetMapping("{id}/saldo")
-	public ResponseEntity obterSaldo (@PathVariable("id") Long id) {
+	public ResponseEntity obterSaldo (@PathVariable("id") Long id, WebRequest requisicao) {
 		
 		Optional<Usuario> usuario = service.obterPorId(id);
 		
@@ -72,10 +89,59 @@ public class UsuarioResource {
 			return new ResponseEntity( HttpStatus.NOT_FOUND );
 		}
 		
+		if (requisicao.checkNotModified(EtagsUsuario.gerar(id, saldoUsuarioService.obterVersao(id), requisicao))) {
+			return null;
+		}
+		
 	BigDecimal saldo=	lancamentoService.obterSaldoPorUsuario(id);
 		
-	return ResponseEntity.ok(saldo);
+	return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(saldo);
+		
+	}
+	
+	@GetMapping("saldos")
+	public ResponseEntity<StreamingResponseBody> obterSaldos(
+			@RequestParam (value = "ids", required = false) List<Long> ids,
+			@RequestParam (value = "de", required = false) Long de,
+			@RequestParam (value = "ate", required = false) Long ate,
+			@RequestHeader (value = HttpHeaders.ACCEPT, required = false) String aceito) {
+		
+		// ou a lista de ids, ou o intervalo completo
+		boolean porIntervalo = de != null && ate != null;
+		boolean porIds = ids != null && !ids.isEmpty();
+		if (porIds == porIntervalo || (porIntervalo && de > ate)) {
+			return ResponseEntity.badRequest().body( saida -> saida.write(
+					"Informe os ids ou o intervalo (de, ate) dos usuários.".getBytes(StandardCharsets.UTF_8)) );
+		}
+		
+		Codificacao codificacao = Codificacao.negociar(aceito);
+		StreamingResponseBody corpo = saida -> {
+			try (EscritorSaldosUsuarios escritor = new EscritorSaldosUsuarios(saida, codificacao)) {
+				if (porIntervalo) {
+					lancamentoService.obterSaldosPorUsuarios(de, ate, escritor);
+				} else {
+					lancamentoService.obterSaldosPorUsuarios(ids, escritor);
+				}
+			}
+		};
+		
+		return ResponseEntity.ok().contentType(codificacao.getTipoConteudo()).body(corpo);
+	}
+	
+	@PostMapping("saldos/reconciliar")
+	public ResponseEntity reconciliarSaldos() {
+		
+		List<Long> usuariosCorrigidos = saldoUsuarioService.reconciliar();
+		
+		return ResponseEntity.ok(usuariosCorrigidos);
+	}
+	
+	@GetMapping("cache/estatisticas")
+	public ResponseEntity estatisticasCache() {
+		
+		Cache<?, ?> cache = (Cache<?, ?>) cacheManager.getCache(CacheConfiguration.USUARIOS).getNativeCache();
 		
+		return ResponseEntity.ok(EstatisticasCacheDTO.de(CacheConfiguration.USUARIOS, cache));
 	}
 	
 	
@@ -0,0 +1,189 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Guarda o resultado de {@code LancamentoService.buscarProjecoes} por usuário e filtro, limitado
+ * pelo total de bytes estimado: quem é pouco consultado sai primeiro quando o limite estoura.
+ * Cada resultado leva a versão dos lançamentos do usuário, trocada no commit de cada escrita:
+ * um resultado de versão antiga não é devolvido e sai quando o filtro é consultado de novo ou
+ * pelo limite de memória. Resultados e versões expiram no mesmo prazo, então quando a versão
+ * de uma escrita expira nenhum resultado anterior a ela continua guardado.
+ * Roda antes da coalescência e da transação, que é de leitura e pode ir para uma réplica.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@ConditionalOnProperty(prefix = "minhasfinancas.busca.cache", name = "habilitado", matchIfMissing = true)
+public class CacheBuscasAspect {
+
+	private final Cache<Chave, Resultado> resultados;
+	private final Cache<Long, Long> versoes;
+	private final AtomicLong sequencia = new AtomicLong();
+	private final ObjectProvider<SessaoLeitura> sessaoLeitura;
+	private final ObjectProvider<EscritasRecentes> escritasRecentes;
+
+
+	public CacheBuscasAspect(MeterRegistry registry, ObjectProvider<SessaoLeitura> sessaoLeitura,
+			ObjectProvider<EscritasRecentes> escritasRecentes,
+			@Value("${minhasfinancas.busca.cache.memoria-maxima:16MB}") DataSize memoriaMaxima,
+			@Value("${minhasfinancas.busca.cache.validade:10m}") Duration validade) {
+
+		this.sessaoLeitura = sessaoLeitura;
+		this.escritasRecentes = escritasRecentes;
+		this.resultados = Caffeine.newBuilder()
+				.maximumWeight(memoriaMaxima.toBytes())
+				.weigher( (Chave chave, Resultado resultado) -> resultado.bytes )
+				.expireAfterWrite(validade)
+				.recordStats()
+				.build();
+		this.versoes = Caffeine.newBuilder()
+				.expireAfterWrite(validade)
+				.build();
+
+		// mesmas chaves de tag dos caches do Spring, que o Prometheus exige para o mesmo nome de métrica
+		CaffeineCacheMetrics.monitor(registry, resultados, "buscasLancamentos",
+				Tags.of("cacheManager", "cacheBuscas", "name", "buscasLancamentos"));
+		Gauge.builder("minhasfinancas.busca.cache.acertos", resultados, cache -> cache.stats().hitRate())
+			.description("Fração das buscas de lançamentos respondidas pelo cache")
+			.register(registry);
+		Gauge.builder("minhasfinancas.busca.cache.bytes", resultados,
+				cache -> cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+			.description("Memória estimada dos resultados de busca em cache")
+			.baseUnit("bytes")
+			.register(registry);
+	}
+
+
+	@Around("execution(* com.imatiello.minhasfinancas.service.LancamentoService.buscarProjecoes(..))")
+	@SuppressWarnings("unchecked")
+	public Object buscar(ProceedingJoinPoint ponto) throws Throwable {
+
+		Lancamento filtro = (Lancamento) ponto.getArgs()[0];
+		Long idUsuario = filtro.getUsuario() == null ? null : filtro.getUsuario().getId();
+
+		// dentro de uma transação o chamador pode enxergar escritas ainda não confirmadas
+		if (idUsuario == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return ponto.proceed();
+		}
+
+		SessaoLeitura sessao = sessaoLeitura.getIfAvailable();
+		boolean primario = sessao != null && sessao.exigePrimario();
+		Chave chave = new Chave(idUsuario, filtro.getDescricao() == null ? null : filtro.getDescricao().toLowerCase(),
+				filtro.getAno(), filtro.getMes(), filtro.getTipo(), filtro.getStatus(), primario);
+		long versao = versao(idUsuario);
+
+		Resultado guardado = resultados.getIfPresent(chave);
+		if (guardado != null && guardado.versao == versao) {
+			return new ArrayList<>(guardado.lancamentos);
+		}
+
+		List<LancamentoDTO> lancamentos = (List<LancamentoDTO>) ponto.proceed();
+
+		// se uma escrita for confirmada durante a consulta, a versão gravada fica para trás; a
+		// conferência depois do put tira o resultado antes que a versão da escrita expire sem ele
+		if (lancamentos != null && podeGuardar(idUsuario)) {
+			Resultado resultado = new Resultado(versao, Collections.unmodifiableList(new ArrayList<>(lancamentos)),
+					estimarBytes(lancamentos));
+			resultados.put(chave, resultado);
+			if (versao(idUsuario) != versao) {
+				resultados.asMap().remove(chave, resultado);
+			}
+		}
+		return lancamentos;
+	}
+
+
+	// cada escrita recebe um número novo, que nunca volta mesmo depois que a versão expira
+	@TransactionalEventListener
+	public void invalidar(LancamentosAlteradosEvent evento) {
+
+		versoes.put(evento.getIdUsuario(), sequencia.incrementAndGet());
+	}
+
+
+	private long versao(Long idUsuario) {
+
+		Long versao = versoes.getIfPresent(idUsuario);
+		return versao == null ? 0L : versao;
+	}
+
+
+	// sem réplicas toda leitura vai ao primário
+	private boolean podeGuardar(Long idUsuario) {
+
+		EscritasRecentes escritas = escritasRecentes.getIfAvailable();
+		return escritas == null || escritas.podeGuardar(idUsuario);
+	}
+
+
+	// cabeçalhos, Long, BigDecimal e a descrição de cada DTO; mes, ano, tipo e status são compartilhados
+	static int estimarBytes(List<LancamentoDTO> lancamentos) {
+
+		long bytes = 64;
+		for (LancamentoDTO lancamento : lancamentos) {
+			bytes += 164;
+			if (lancamento.getDescricao() != null) {
+				bytes += 40 + 2L * lancamento.getDescricao().length();
+			}
+		}
+		return (int) Math.min(bytes, Integer.MAX_VALUE);
+	}
+
+
+	// quem precisa ler do primário não aproveita um resultado que pode ter vindo da réplica
+	@AllArgsConstructor
+	@EqualsAndHashCode
+	private static class Chave {
+
+		private final Long idUsuario;
+		private final String descricao;
+		private final Integer ano;
+		private final Integer mes;
+		private final TipoLancamento tipo;
+		private final StatusLancamento status;
+		private final boolean primario;
+	}
+
+
+	@AllArgsConstructor
+	private static class Resultado {
+
+		private final long versao;
+		private final List<LancamentoDTO> lancamentos;
+		private final int bytes;
+	}
+}
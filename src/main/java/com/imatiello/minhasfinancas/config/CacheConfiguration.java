@@ -0,0 +1,26 @@
+package com.imatiello.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+public class CacheConfiguration {
+
+	public static final String USUARIOS = "usuarios";
+
+	// puts e evicts dentro de uma transação só valem depois do commit
+	@Bean
+	public CacheManager cacheManager(
+			@Value("${minhasfinancas.cache.usuarios:maximumSize=10000,expireAfterWrite=10m,recordStats}") String especificacao) {
+
+		CaffeineCacheManager caffeine = new CaffeineCacheManager(USUARIOS);
+		caffeine.setCacheSpecification(especificacao);
+		return new TransactionAwareCacheManagerProxy(caffeine);
+	}
+}
@@ -0,0 +1,144 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Chamadas idênticas e simultâneas ao saldo e à listagem de lançamentos de um usuário
+ * compartilham uma única execução: a primeira consulta o banco e as demais aguardam o
+ * resultado dela. Roda antes da transação (que tem a menor precedência), para que quem
+ * espera não segure uma conexão.
+ * Depois do commit de uma escrita nos lançamentos do usuário, as execuções em andamento
+ * deixam de aceitar novos participantes, e quem chega depois consulta de novo.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(prefix = "minhasfinancas.coalescencia", name = "habilitada", matchIfMissing = true)
+public class CoalescenciaAspect {
+
+	public static final String CHAMADAS = "minhasfinancas.coalescencia.chamadas";
+
+	private final Map<Chave, CompletableFuture<Object>> emVoo = new ConcurrentHashMap<>();
+	private final ObjectProvider<SessaoLeitura> sessaoLeitura;
+	private final Counter executadas;
+	private final Counter compartilhadas;
+
+
+	public CoalescenciaAspect(MeterRegistry registry, ObjectProvider<SessaoLeitura> sessaoLeitura) {
+
+		this.sessaoLeitura = sessaoLeitura;
+		this.executadas = Counter.builder(CHAMADAS).tag("resultado", "executada")
+				.description("Leituras coalescidas: executadas no banco ou compartilhadas com outra em andamento")
+				.register(registry);
+		this.compartilhadas = Counter.builder(CHAMADAS).tag("resultado", "compartilhada")
+				.description("Leituras coalescidas: executadas no banco ou compartilhadas com outra em andamento")
+				.register(registry);
+		Gauge.builder("minhasfinancas.coalescencia.em-voo", emVoo, Map::size)
+			.description("Leituras em andamento que aceitam novos participantes")
+			.register(registry);
+	}
+
+
+	@Around("execution(* com.imatiello.minhasfinancas.service.LancamentoService.obterSaldoPorUsuario(Long))")
+	public Object coalescerSaldo(ProceedingJoinPoint ponto) throws Throwable {
+		return coalescer(ponto, (Long) ponto.getArgs()[0], Arrays.asList("saldo"));
+	}
+
+
+	@Around("execution(* com.imatiello.minhasfinancas.service.LancamentoService.buscarProjecoes(..))")
+	public Object coalescerBusca(ProceedingJoinPoint ponto) throws Throwable {
+
+		Lancamento filtro = (Lancamento) ponto.getArgs()[0];
+		Long idUsuario = filtro.getUsuario() == null ? null : filtro.getUsuario().getId();
+
+		// cada participante recebe a sua lista; os itens são compartilhados
+		List<?> lancamentos = (List<?>) coalescer(ponto, idUsuario, Arrays.asList("busca", filtro.getDescricao(),
+				filtro.getAno(), filtro.getMes(), filtro.getTipo(), filtro.getStatus()));
+		return lancamentos == null ? null : new ArrayList<>(lancamentos);
+	}
+
+
+	@TransactionalEventListener
+	public void invalidar(LancamentosAlteradosEvent evento) {
+		emVoo.keySet().removeIf( chave -> chave.idUsuario.equals(evento.getIdUsuario()) );
+	}
+
+
+	private Object coalescer(ProceedingJoinPoint ponto, Long idUsuario, List<Object> argumentos) throws Throwable {
+
+		// dentro de uma transação o chamador pode enxergar escritas ainda não confirmadas
+		if (idUsuario == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return ponto.proceed();
+		}
+
+		SessaoLeitura sessao = sessaoLeitura.getIfAvailable();
+		Chave chave = new Chave(idUsuario, argumentos, sessao != null && sessao.exigePrimario());
+
+		CompletableFuture<Object> execucao = new CompletableFuture<>();
+		CompletableFuture<Object> existente = emVoo.putIfAbsent(chave, execucao);
+		if (existente != null) {
+			compartilhadas.increment();
+			return aguardar(existente);
+		}
+
+		executadas.increment();
+		try {
+			Object resultado = ponto.proceed();
+			execucao.complete(resultado);
+			return resultado;
+		} catch (Throwable e) {
+			execucao.completeExceptionally(e);
+			throw e;
+		} finally {
+			emVoo.remove(chave, execucao);
+		}
+	}
+
+
+	private Object aguardar(CompletableFuture<Object> execucao) throws Throwable {
+
+		try {
+			return execucao.get();
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		}
+	}
+
+
+	// quem precisa ler do primário não aproveita uma leitura que pode ter ido à réplica
+	@AllArgsConstructor
+	@EqualsAndHashCode
+	private static class Chave {
+
+		private final Long idUsuario;
+		private final List<Object> argumentos;
+		private final boolean primario;
+	}
+}
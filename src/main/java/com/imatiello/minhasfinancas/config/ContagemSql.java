@@ -0,0 +1,72 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Conta os comandos SQL executados na thread atual enquanto estiver aberta. Contagens podem
+ * ser aninhadas (o filtro abre uma por requisição e um teste pode abrir outra em volta);
+ * cada comando entra em todas as que estiverem abertas.
+ *
+ * <pre>
+ * try (ContagemSql contagem = ContagemSql.iniciar()) {
+ *     ...
+ *     contagem.getQuantidade();
+ * }
+ * </pre>
+ */
+public final class ContagemSql implements AutoCloseable {
+
+	private static final ThreadLocal<Deque<ContagemSql>> ABERTAS = ThreadLocal.withInitial(ArrayDeque::new);
+	
+	private final List<String> comandos = new ArrayList<>();
+	private long tempoMs;
+	
+	
+	private ContagemSql() {
+	}
+	
+	
+	public static ContagemSql iniciar() {
+		
+		ContagemSql contagem = new ContagemSql();
+		ABERTAS.get().push(contagem);
+		return contagem;
+	}
+	
+	
+	static void registrar(List<String> sqls, long tempoMs) {
+		
+		for (ContagemSql contagem : ABERTAS.get()) {
+			contagem.comandos.addAll(sqls);
+			contagem.tempoMs += tempoMs;
+		}
+	}
+	
+	
+	public int getQuantidade() {
+		return comandos.size();
+	}
+	
+	public long getTempoMs() {
+		return tempoMs;
+	}
+	
+	public List<String> getComandos() {
+		return Collections.unmodifiableList(comandos);
+	}
+	
+	
+	@Override
+	public void close() {
+		
+		Deque<ContagemSql> abertas = ABERTAS.get();
+		abertas.remove(this);
+		if (abertas.isEmpty()) {
+			ABERTAS.remove();
+		}
+	}
+}
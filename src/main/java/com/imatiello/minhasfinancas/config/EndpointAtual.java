@@ -0,0 +1,38 @@
+package com.imatiello.minhasfinancas.config;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Identifica o endpoint pelo método HTTP e pelo padrão do mapeamento ("GET /api/lancamentos/{id}"),
+ * nunca pela URI concreta, para que ids não multipliquem as tags das métricas.
+ */
+public final class EndpointAtual {
+
+	public static final String NENHUM = "none";
+	
+	private EndpointAtual() {
+	}
+	
+	
+	// endpoint da requisição em andamento na thread atual
+	public static String descrever() {
+		
+		RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+		if (!(atributos instanceof ServletRequestAttributes)) {
+			return NENHUM;
+		}
+		return descrever(((ServletRequestAttributes) atributos).getRequest());
+	}
+	
+	
+	public static String descrever(HttpServletRequest requisicao) {
+		
+		Object padrao = requisicao.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return padrao == null ? NENHUM : requisicao.getMethod() + " " + padrao;
+	}
+}
@@ -0,0 +1,44 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.time.Duration;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+/**
+ * Usuários com escrita confirmada há menos que o atraso máximo das réplicas. Uma leitura feita
+ * numa réplica nesse intervalo pode ainda devolver o estado anterior, e os caches locais só a
+ * guardam se a sessão estiver presa ao primário. Cada usuário sai sozinho quando o atraso passa.
+ */
+public class EscritasRecentes {
+
+	private final SessaoLeitura sessaoLeitura;
+	private final Cache<Long, Boolean> escritas;
+	
+	
+	public EscritasRecentes(SessaoLeitura sessaoLeitura, Duration atrasoMaximo) {
+		
+		this.sessaoLeitura = sessaoLeitura;
+		this.escritas = Caffeine.newBuilder()
+				.expireAfterWrite(atrasoMaximo)
+				.build();
+	}
+	
+	
+	// antes da invalidação dos caches: quem vê a versão nova já vê a escrita recente
+	@TransactionalEventListener
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void registrar(LancamentosAlteradosEvent evento) {
+		escritas.put(evento.getIdUsuario(), Boolean.TRUE);
+	}
+	
+	
+	public boolean podeGuardar(Long idUsuario) {
+		return sessaoLeitura.exigePrimario() || escritas.getIfPresent(idUsuario) == null;
+	}
+}
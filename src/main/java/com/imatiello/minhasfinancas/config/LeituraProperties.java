@@ -0,0 +1,38 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Réplicas de leitura (minhasfinancas.leitura.*). Sem réplicas configuradas tudo vai
+ * para o spring.datasource, como antes.
+ */
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.leitura")
+public class LeituraProperties {
+
+	private List<Replica> replicas = new ArrayList<>();
+	
+	// réplica mais atrasada do que isso deixa de receber leituras
+	private Duration atrasoMaximo = Duration.ofSeconds(5);
+	
+	private Duration intervaloVerificacao = Duration.ofSeconds(2);
+	
+	// SQL que devolve o atraso da réplica em segundos; sem ela só a conexão é verificada
+	private String consultaAtraso;
+	
+	
+	@Data
+	public static class Replica {
+		
+		private String url;
+		private String username;
+		private String password;
+		private String driverClassName;
+	}
+}
@@ -0,0 +1,100 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Liga o roteamento quando há ao menos uma réplica em minhasfinancas.leitura.replicas.
+ * O spring.datasource continua sendo o primário. O roteamento é o único DataSource do
+ * contexto: primário e réplicas ficam dentro dele, para que a inicialização do Boot (que
+ * reage a cada bean DataSource) não entre em ciclo com o próprio roteamento.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "minhasfinancas.leitura", name = "replicas[0].url")
+@EnableConfigurationProperties(LeituraProperties.class)
+public class LeituraReplicaConfiguration {
+
+	@Bean
+	public SessaoLeitura sessaoLeitura(LeituraProperties propriedades) {
+		return new SessaoLeitura(propriedades.getAtrasoMaximo());
+	}
+	
+	
+	// os caches locais consultam para não guardar leituras de uma réplica atrasada
+	@Bean
+	public EscritasRecentes escritasRecentes(SessaoLeitura sessaoLeitura, LeituraProperties propriedades) {
+		return new EscritasRecentes(sessaoLeitura, propriedades.getAtrasoMaximo());
+	}
+	
+	
+	@Bean
+	public RoteamentoDataSource dataSource(DataSourceProperties propriedadesPrimario, LeituraProperties propriedades,
+			SessaoLeitura sessaoLeitura, MeterRegistry registry, Environment ambiente) {
+		
+		HikariDataSource primario = propriedadesPrimario.initializeDataSourceBuilder()
+				.type(HikariDataSource.class).build();
+		Binder.get(ambiente).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+		
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		List<LeituraProperties.Replica> configuradas = propriedades.getReplicas();
+		
+		for (int i = 0; i < configuradas.size(); i++) {
+			
+			LeituraProperties.Replica configurada = configuradas.get(i);
+			HikariDataSource replica = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.url(configurada.getUrl())
+					.username(configurada.getUsername())
+					.password(configurada.getPassword())
+					.driverClassName(configurada.getDriverClassName())
+					.build();
+			replica.setPoolName("replica-" + i);
+			replica.setReadOnly(true);
+			replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+			
+			replicas.put(replica.getPoolName(), replica);
+		}
+		
+		return new RoteamentoDataSource(primario, replicas, sessaoLeitura, propriedades);
+	}
+	
+	
+	// com open-in-view o EntityManager vive a requisição inteira; segurar a conexão entre
+	// transações faria uma escrita reaproveitar a conexão de uma leitura feita na réplica
+	@Bean
+	public HibernatePropertiesCustomizer conexaoPorTransacao() {
+		return propriedades -> propriedades.put("hibernate.connection.handling_mode",
+				"DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+	}
+	
+	
+	@Bean
+	public FilterRegistrationBean<SessaoLeituraFilter> sessaoLeituraFilter(SessaoLeitura sessaoLeitura) {
+		
+		FilterRegistrationBean<SessaoLeituraFilter> registro =
+				new FilterRegistrationBean<>(new SessaoLeituraFilter(sessaoLeitura));
+		registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registro;
+	}
+}
@@ -0,0 +1,103 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.imatiello.minhasfinancas.exception.ErroAutenticacao;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Tempo de cada chamada aos serviços e aos repositórios, com as mesmas tags de resultado
+ * do http.server.requests (outcome e exception) e o endpoint que originou a chamada.
+ * Falhas de regra de negócio e de autenticação viram CLIENT_ERROR; o resto, SERVER_ERROR.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+	public static final String SERVICO = "minhasfinancas.servico";
+	public static final String REPOSITORIO = "minhasfinancas.repositorio";
+	
+	private final MeterRegistry registry;
+	private final Map<Class<?>, String> nomes = new ConcurrentHashMap<>();
+	
+	
+	public MetricasAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+	
+	
+	@Around("within(com.imatiello.minhasfinancas.service.impl..*)")
+	public Object medirServico(ProceedingJoinPoint ponto) throws Throwable {
+		return medir(SERVICO, ponto);
+	}
+	
+	
+	// repositórios do Spring Data (inclusive métodos herdados) e os @Repository próprios
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..)) "
+			+ "|| @within(org.springframework.stereotype.Repository)")
+	public Object medirRepositorio(ProceedingJoinPoint ponto) throws Throwable {
+		return medir(REPOSITORIO, ponto);
+	}
+	
+	
+	private Object medir(String metrica, ProceedingJoinPoint ponto) throws Throwable {
+		
+		Timer.Sample amostra = Timer.start(registry);
+		Throwable erro = null;
+		try {
+			return ponto.proceed();
+		} catch (Throwable e) {
+			erro = e;
+			throw e;
+		} finally {
+			amostra.stop(Timer.builder(metrica)
+					.tag("class", nome(ponto.getTarget()))
+					.tag("method", ponto.getSignature().getName())
+					.tag("endpoint", EndpointAtual.descrever())
+					.tag("outcome", outcome(erro))
+					.tag("exception", erro == null ? "None" : erro.getClass().getSimpleName())
+					.register(registry));
+		}
+	}
+	
+	
+	static String outcome(Throwable erro) {
+		
+		if (erro == null) {
+			return "SUCCESS";
+		}
+		if (erro instanceof RegraNegocioException || erro instanceof ErroAutenticacao
+				|| erro instanceof VersaoDesatualizadaException) {
+			return "CLIENT_ERROR";
+		}
+		return "SERVER_ERROR";
+	}
+	
+	
+	// o alvo de um repositório do Spring Data é um proxy; o nome útil é o da interface da aplicação
+	private String nome(Object alvo) {
+		
+		return nomes.computeIfAbsent(alvo.getClass(), classe -> {
+			
+			for (Class<?> interfaceAlvo : ClassUtils.getAllInterfacesForClassAsSet(classe)) {
+				if (Repository.class.isAssignableFrom(interfaceAlvo)
+						&& interfaceAlvo.getName().startsWith("com.imatiello.minhasfinancas.")) {
+					return interfaceAlvo.getSimpleName();
+				}
+			}
+			return ClassUtils.getUserClass(classe).getSimpleName();
+		});
+	}
+}
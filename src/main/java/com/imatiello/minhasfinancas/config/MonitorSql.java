@@ -0,0 +1,48 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+/**
+ * Ouve cada execução no DataSource: soma o comando nas contagens abertas da thread e
+ * registra no log, com os parâmetros e o endpoint, as execuções acima do limite de tempo.
+ * Um lote (executeBatch) conta como um comando por SQL do lote.
+ */
+@Slf4j
+public class MonitorSql implements QueryExecutionListener {
+
+	private final long limiteLentaMs;
+	private final DefaultQueryLogEntryCreator formatador = new DefaultQueryLogEntryCreator();
+	
+	
+	public MonitorSql(long limiteLentaMs) {
+		this.limiteLentaMs = limiteLentaMs;
+	}
+	
+	
+	@Override
+	public void beforeQuery(ExecutionInfo execucao, List<QueryInfo> consultas) {
+	}
+	
+	
+	@Override
+	public void afterQuery(ExecutionInfo execucao, List<QueryInfo> consultas) {
+		
+		List<String> sqls = new ArrayList<>(consultas.size());
+		for (QueryInfo consulta : consultas) {
+			sqls.add(consulta.getQuery());
+		}
+		ContagemSql.registrar(sqls, execucao.getElapsedTime());
+		
+		if (execucao.getElapsedTime() >= limiteLentaMs && log.isWarnEnabled()) {
+			log.warn("SQL lento em {}: {}", EndpointAtual.descrever(),
+					formatador.getLogEntry(execucao, consultas, false, false));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Abre uma {@link ContagemSql} por requisição e publica a quantidade de comandos e o tempo
+ * gasto no banco por endpoint. Requisições acima do orçamento de comandos vão para o log,
+ * o que costuma ser o primeiro sinal de um N+1. Comandos executados fora da thread da
+ * requisição (exportação assíncrona) não entram na conta.
+ */
+@Slf4j
+public class OrcamentoSqlFilter extends OncePerRequestFilter {
+
+	public static final String COMANDOS = "minhasfinancas.sql.comandos";
+	public static final String TEMPO = "minhasfinancas.sql.tempo";
+	
+	private final MeterRegistry registry;
+	private final int orcamento;
+	
+	
+	public OrcamentoSqlFilter(MeterRegistry registry, int orcamento) {
+		this.registry = registry;
+		this.orcamento = orcamento;
+	}
+	
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest requisicao, HttpServletResponse resposta, FilterChain cadeia)
+			throws ServletException, IOException {
+		
+		try (ContagemSql contagem = ContagemSql.iniciar()) {
+			try {
+				cadeia.doFilter(requisicao, resposta);
+			} finally {
+				registrar(EndpointAtual.descrever(requisicao), contagem);
+			}
+		}
+	}
+	
+	
+	private void registrar(String endpoint, ContagemSql contagem) {
+		
+		DistributionSummary.builder(COMANDOS).tag("endpoint", endpoint).register(registry)
+			.record(contagem.getQuantidade());
+		Timer.builder(TEMPO).tag("endpoint", endpoint).register(registry)
+			.record(contagem.getTempoMs(), TimeUnit.MILLISECONDS);
+		
+		if (contagem.getQuantidade() > orcamento) {
+			log.warn("{} executou {} comandos SQL em {} ms, acima do orçamento de {}: {}", endpoint,
+					contagem.getQuantidade(), contagem.getTempoMs(), orcamento, contagem.getComandos());
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manda as conexões de transações somente leitura para as réplicas (em rodízio) e todo o resto
+ * para o primário. Só recebem leituras as réplicas que responderam à última verificação com
+ * atraso dentro do tolerado; se nenhuma estiver apta, ou se a conexão falhar, a leitura vai
+ * para o primário. As conexões entregues são tardias (LazyConnectionDataSourceProxy): o
+ * readOnly da transação só é conhecido depois que ela começa, então o destino é escolhido
+ * no primeiro comando.
+ */
+@Slf4j
+public class RoteamentoDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+	@FunctionalInterface
+	private interface Abertura {
+		Connection abrir(DataSource dataSource) throws SQLException;
+	}
+	
+	private final DataSource primario;
+	private final Map<String, DataSource> replicas;
+	private final SessaoLeitura sessao;
+	private final Duration atrasoMaximo;
+	private final Duration intervaloVerificacao;
+	private final String consultaAtraso;
+	
+	private final DataSource conexoesTardias;
+	private final AtomicInteger rodizio = new AtomicInteger();
+	private volatile List<String> aptas = Collections.emptyList();
+	private ScheduledExecutorService verificador;
+	
+	
+	public RoteamentoDataSource(DataSource primario, Map<String, DataSource> replicas, SessaoLeitura sessao,
+			LeituraProperties propriedades) {
+		
+		this.primario = primario;
+		this.replicas = replicas;
+		this.sessao = sessao;
+		this.atrasoMaximo = propriedades.getAtrasoMaximo();
+		this.intervaloVerificacao = propriedades.getIntervaloVerificacao();
+		this.consultaAtraso = propriedades.getConsultaAtraso();
+		this.conexoesTardias = new LazyConnectionDataSourceProxy(new Destino());
+	}
+	
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		return conexoesTardias.getConnection();
+	}
+	
+	
+	@Override
+	public Connection getConnection(String usuario, String senha) throws SQLException {
+		return conexoesTardias.getConnection(usuario, senha);
+	}
+	
+	
+	private class Destino extends AbstractDataSource {
+		
+		@Override
+		public Connection getConnection() throws SQLException {
+			return obter(DataSource::getConnection);
+		}
+		
+		@Override
+		public Connection getConnection(String usuario, String senha) throws SQLException {
+			return obter( dataSource -> dataSource.getConnection(usuario, senha) );
+		}
+	}
+	
+	
+	private Connection obter(Abertura abertura) throws SQLException {
+		
+		String replica = replicaParaLeitura();
+		if (replica != null) {
+			try {
+				return abertura.abrir(replicas.get(replica));
+			} catch (SQLException e) {
+				log.warn("Réplica {} indisponível, lendo do primário: {}", replica, e.getMessage());
+				descartar(replica);
+			}
+		}
+		
+		sessao.acompanharEscrita();
+		return abertura.abrir(primario);
+	}
+	
+	
+	String replicaParaLeitura() {
+		
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || sessao.exigePrimario()) {
+			return null;
+		}
+		
+		List<String> atuais = aptas;
+		if (atuais.isEmpty()) {
+			return null;
+		}
+		return atuais.get(Math.floorMod(rodizio.getAndIncrement(), atuais.size()));
+	}
+	
+	
+	public void verificarReplicas() {
+		
+		List<String> novas = new ArrayList<>();
+		replicas.forEach( (nome, dataSource) -> {
+			if (atrasoAceitavel(nome, dataSource)) {
+				novas.add(nome);
+			}
+		});
+		aptas = Collections.unmodifiableList(novas);
+	}
+	
+	
+	private boolean atrasoAceitavel(String nome, DataSource dataSource) {
+		
+		try (Connection conexao = dataSource.getConnection()) {
+			
+			if (consultaAtraso == null) {
+				return conexao.isValid((int) Math.max(1, intervaloVerificacao.getSeconds()));
+			}
+			
+			try (Statement comando = conexao.createStatement();
+					ResultSet resultado = comando.executeQuery(consultaAtraso)) {
+				
+				// null (nada replicado ainda) conta como sem atraso
+				double segundos = resultado.next() ? resultado.getDouble(1) : 0;
+				if (segundos * 1000 > atrasoMaximo.toMillis()) {
+					log.warn("Réplica {} com {}s de atraso, acima do tolerado; leituras vão para o primário",
+							nome, segundos);
+					return false;
+				}
+				return true;
+			}
+		} catch (SQLException e) {
+			log.warn("Réplica {} indisponível: {}", nome, e.getMessage());
+			return false;
+		}
+	}
+	
+	
+	private synchronized void descartar(String replica) {
+		
+		List<String> restantes = new ArrayList<>(aptas);
+		restantes.remove(replica);
+		aptas = Collections.unmodifiableList(restantes);
+	}
+	
+	
+	@Override
+	public void afterPropertiesSet() {
+		
+		verificarReplicas();
+		
+		verificador = Executors.newSingleThreadScheduledExecutor( tarefa -> {
+			Thread thread = new Thread(tarefa, "verificador-replicas");
+			thread.setDaemon(true);
+			return thread;
+		});
+		verificador.scheduleWithFixedDelay(this::verificarReplicas, intervaloVerificacao.toMillis(),
+				intervaloVerificacao.toMillis(), TimeUnit.MILLISECONDS);
+	}
+	
+	
+	@Override
+	public void destroy() throws IOException {
+		
+		if (verificador != null) {
+			verificador.shutdownNow();
+		}
+		for (DataSource replica : replicas.values()) {
+			if (replica instanceof Closeable) {
+				((Closeable) replica).close();
+			}
+		}
+		if (primario instanceof Closeable) {
+			((Closeable) primario).close();
+		}
+	}
+	
+	
+	// pool, métricas e Flyway enxergam o primário
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> tipo) throws SQLException {
+		return tipo.isInstance(this) ? (T) this : primario.unwrap(tipo);
+	}
+	
+	
+	@Override
+	public boolean isWrapperFor(Class<?> tipo) throws SQLException {
+		return tipo.isInstance(this) || primario.isWrapperFor(tipo);
+	}
+}
@@ -0,0 +1,115 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.time.Duration;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Garante que o cliente leia o que acabou de escrever. Depois do commit de uma transação de
+ * escrita, as leituras da mesma thread vão para o primário durante o atraso máximo tolerado, e a
+ * resposta leva um cookie com o instante da escrita para que as próximas requisições do mesmo
+ * cliente façam o mesmo.
+ */
+public class SessaoLeitura {
+
+	public static final String COOKIE = "minhasfinancas-escrita";
+	
+	private final Duration janela;
+	private final ThreadLocal<Long> primarioAte = new ThreadLocal<>();
+	
+	
+	public SessaoLeitura(Duration janela) {
+		this.janela = janela;
+	}
+	
+	
+	public boolean exigePrimario() {
+		
+		Long ate = primarioAte.get();
+		if (ate == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() >= ate) {
+			primarioAte.remove();
+			return false;
+		}
+		return true;
+	}
+	
+	
+	// chamado ao abrir uma conexão no primário; só transações de escrita interessam
+	public void acompanharEscrita() {
+		
+		if (!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				|| TransactionSynchronizationManager.hasResource(this)) {
+			return;
+		}
+		
+		TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			
+			@Override
+			public void afterCommit() {
+				registrarEscrita();
+			}
+			
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(SessaoLeitura.this);
+			}
+		});
+	}
+	
+	
+	public void registrarEscrita() {
+		
+		long agora = System.currentTimeMillis();
+		primarioAte.set(agora + janela.toMillis());
+		
+		RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+		if (atributos instanceof ServletRequestAttributes) {
+			
+			HttpServletResponse resposta = ((ServletRequestAttributes) atributos).getResponse();
+			if (resposta != null && !resposta.isCommitted()) {
+				
+				Cookie cookie = new Cookie(COOKIE, String.valueOf(agora));
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge((int) Math.max(1, janela.getSeconds()));
+				resposta.addCookie(cookie);
+			}
+		}
+	}
+	
+	
+	public void iniciar(HttpServletRequest requisicao) {
+		
+		Cookie cookie = WebUtils.getCookie(requisicao, COOKIE);
+		if (cookie == null) {
+			return;
+		}
+		try {
+			long ate = Long.parseLong(cookie.getValue()) + janela.toMillis();
+			if (ate > System.currentTimeMillis()) {
+				primarioAte.set(ate);
+			}
+		} catch (NumberFormatException e) {
+			// cookie adulterado: segue o roteamento normal
+		}
+	}
+	
+	
+	public void encerrar() {
+		primarioAte.remove();
+	}
+}
@@ -0,0 +1,33 @@
+package com.imatiello.minhasfinancas.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+public class SessaoLeituraFilter extends OncePerRequestFilter {
+
+	private final SessaoLeitura sessao;
+	
+	
+	public SessaoLeituraFilter(SessaoLeitura sessao) {
+		this.sessao = sessao;
+	}
+	
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest requisicao, HttpServletResponse resposta, FilterChain cadeia)
+			throws ServletException, IOException {
+		
+		sessao.iniciar(requisicao);
+		try {
+			cadeia.doFilter(requisicao, resposta);
+		} finally {
+			sessao.encerrar();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.imatiello.minhasfinancas.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Monitoramento de SQL no nível do JDBC, no lugar do spring.jpa.show-sql: o DataSource
+ * passa por um proxy que conta os comandos de cada requisição e registra os lentos.
+ */
+@Configuration
+public class SqlConfiguration {
+
+	// static: o post processor precisa existir antes do DataSource. Só o DataSource usado pela
+	// aplicação é envolvido; os que ficam atrás dele (primário e réplicas) contariam em dobro
+	@Bean
+	public static BeanPostProcessor monitorDataSource(
+			@Value("${minhasfinancas.sql.lenta-ms:200}") long limiteLentaMs) {
+		
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String nome) {
+				
+				if (!"dataSource".equals(nome) || !(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+					return bean;
+				}
+				return ProxyDataSourceBuilder.create((DataSource) bean)
+						.name(nome)
+						.listener(new MonitorSql(limiteLentaMs))
+						.build();
+			}
+		};
+	}
+	
+	
+	@Bean
+	public FilterRegistrationBean<OrcamentoSqlFilter> orcamentoSqlFilter(MeterRegistry registry,
+			@Value("${minhasfinancas.sql.orcamento-por-requisicao:20}") int orcamento) {
+		
+		FilterRegistrationBean<OrcamentoSqlFilter> registro =
+				new FilterRegistrationBean<>(new OrcamentoSqlFilter(registry, orcamento));
+		registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registro;
+	}
+}
@@ -1,17 +1,62 @@
 package com.imatiello.minhasfinancas.config;
 
 
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.imatiello.minhasfinancas.api.exportacao.Codificacao;
 
 @EnableWebMvc
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
 
+	// exportações longas respondem de forma assíncrona (StreamingResponseBody)
+	@Value("${minhasfinancas.async.timeout-ms:600000}")
+	private long timeoutAssincrono;
+
 	@Override
 	public void addCorsMappings( CorsRegistry registry ) {
 		registry.addMapping("/**").allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS");
 	}
+	
+	// a mesma URL responde JSON ou Smile/CBOR conforme o Accept; caches e ETags precisam separar as duas
+	@Override
+	public void addInterceptors( InterceptorRegistry registry ) {
+		registry.addInterceptor(new HandlerInterceptorAdapter() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+				return true;
+			}
+		}).addPathPatterns("/api/**");
+	}
+	
+	@Override
+	public void configureAsyncSupport( AsyncSupportConfigurer configurer ) {
+		configurer.setDefaultTimeout(timeoutAssincrono);
+	}
+	
+	// o Smile padrão não compartilha valores repetidos; nas listas de lançamentos, tipo e status repetem em toda linha
+	@Override
+	public void extendMessageConverters( List<HttpMessageConverter<?>> converters ) {
+		converters.replaceAll( converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+				? new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile()
+						.factory(Codificacao.SMILE.novaFabrica()).build())
+				: converter );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.imatiello.minhasfinancas.exception;
+
+public class FilaCheiaException extends RuntimeException {
+
+	public FilaCheiaException(String msg) {
+		super (msg);
+	}
+}
@@ -0,0 +1,8 @@
+package com.imatiello.minhasfinancas.exception;
+
+public class VersaoDesatualizadaException extends RuntimeException {
+
+	public VersaoDesatualizadaException(String msg) {
+		super (msg);
+	}
+}
@@ -0,0 +1,43 @@
+package com.imatiello.minhasfinancas.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Valores monetários como centavos num long primitivo, para somas e saldos calculados
+ * em memória sem criar um BigDecimal por operação. A conversão é exata nos dois sentidos:
+ * a entrada com mais de duas casas decimais e as contas que estourariam o long lançam
+ * {@link ArithmeticException} em vez de arredondar ou dar a volta.
+ *
+ * O BigDecimal continua sendo o tipo das entidades e da API; converte-se só nas bordas.
+ */
+public final class Centavos {
+
+	private Centavos() {
+	}
+
+
+	// movePointRight mantém o valor compacto e longValueExact o devolve sem passar por BigInteger
+	public static long de(BigDecimal reais) {
+		return reais.movePointRight(2).longValueExact();
+	}
+
+
+	public static BigDecimal paraReais(long centavos) {
+		return BigDecimal.valueOf(centavos, 2);
+	}
+
+
+	public static long somar(long centavos, long parcela) {
+		return Math.addExact(centavos, parcela);
+	}
+
+
+	public static long subtrair(long centavos, long parcela) {
+		return Math.subtractExact(centavos, parcela);
+	}
+
+
+	public static long negar(long centavos) {
+		return Math.negateExact(centavos);
+	}
+}
@@ -0,0 +1,24 @@
+package com.imatiello.minhasfinancas.model.entity;
+
+import java.io.Serializable;
+
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChaveResumoMensal implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long idUsuario;
+	private Integer ano;
+	private Integer mes;
+	private TipoLancamento tipo;
+	private StatusLancamento status;
+}
@@ -8,11 +8,13 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import org.hibernate.annotations.ManyToAny;
@@ -35,7 +37,8 @@ import lombok.NoArgsConstructor;
 public class Lancamento {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+	@SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", schema = "financas", allocationSize = 50)
 	@Column(name="id")
 	private Long id;
 	
@@ -49,7 +52,8 @@ public class Lancamento {
 	@Column(name= "ano")
 	private Integer ano;
 	
-	@ManyToOne
+	// as leituras usam projeções; a escrita só precisa da chave do usuário
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name= "id_usuario")
 	private Usuario usuario;
 	
@@ -150,7 +154,7 @@ public class Lancamento {
 		result = prime * result + ((mes == null) ? 0 : mes.hashCode());
 		result = prime * result + ((status == null) ? 0 : status.hashCode());
 		result = prime * result + ((tipo == null) ? 0 : tipo.hashCode());
-		result = prime * result + ((usuario == null) ? 0 : usuario.hashCode());
+		result = prime * result + ((idUsuario() == null) ? 0 : idUsuario().hashCode());
 		return result;
 	}
 
@@ -187,10 +191,10 @@ public class Lancamento {
 			return false;
 		if (tipo != other.tipo)
 			return false;
-		if (usuario == null) {
-			if (other.usuario != null)
+		if (idUsuario() == null) {
+			if (other.idUsuario() != null)
 				return false;
-		} else if (!usuario.equals(other.usuario))
+		} else if (!idUsuario().equals(other.idUsuario()))
 			return false;
 		return true;
 	}
@@ -198,7 +202,12 @@ public class Lancamento {
 	@Override
 	public String toString() {
 		return "Lancamento [id=" + id + ", descricao=" + descricao + ", mes=" + mes + ", ano=" + ano + ", usuario="
-				+ usuario + ", tipo=" + tipo + ", status=" + status + "]";
+				+ idUsuario() + ", tipo=" + tipo + ", status=" + status + "]";
+	}
+	
+	// só a chave: no proxy lazy, getId() não dispara o carregamento do usuário
+	private Long idUsuario() {
+		return usuario == null ? null : usuario.getId();
 	}
 	
 	
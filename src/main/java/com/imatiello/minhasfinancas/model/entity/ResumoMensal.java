@@ -0,0 +1,57 @@
+package com.imatiello.minhasfinancas.model.entity;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "resumo_mensal", schema = "financas")
+@IdClass(ChaveResumoMensal.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoMensal {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+	
+	@Id
+	@Column(name = "ano")
+	private Integer ano;
+	
+	@Id
+	@Column(name = "mes")
+	private Integer mes;
+	
+	@Id
+	@Column(name = "tipo")
+	@Enumerated(value = EnumType.STRING)
+	private TipoLancamento tipo;
+	
+	@Id
+	@Column(name = "status")
+	@Enumerated(value = EnumType.STRING)
+	private StatusLancamento status;
+	
+	@Column(name = "total")
+	private BigDecimal total;
+	
+	@Column(name = "quantidade")
+	private Long quantidade;
+}
@@ -0,0 +1,10 @@
+package com.imatiello.minhasfinancas.model.enums;
+
+public enum AgrupamentoAnalise {
+
+	MES,
+	ANO,
+	TIPO,
+	STATUS,
+	DESCRICAO
+}
@@ -0,0 +1,19 @@
+package com.imatiello.minhasfinancas.model.enums;
+
+public enum CampoLancamento {
+
+	ID,
+	DESCRICAO,
+	MES,
+	ANO,
+	VALOR,
+	USUARIO,
+	TIPO,
+	STATUS;
+	
+	
+	/** Nome do campo no JSON, o mesmo de {@code LancamentoDTO}. */
+	public String getNome() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,8 @@
+package com.imatiello.minhasfinancas.model.enums;
+
+public enum SituacaoIngestao {
+
+	NA_FILA,
+	GRAVADO,
+	REJEITADO
+}
@@ -0,0 +1,117 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.imatiello.minhasfinancas.config.EscritasRecentes;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Guarda as {@link ColunasLancamentos} dos usuários consultados recentemente, limitadas
+ * pelo total de bytes: quem não é consultado há mais tempo sai primeiro quando o limite
+ * estoura. As colunas de um usuário são montadas na primeira análise e descartadas quando
+ * os lançamentos dele são alterados. Colunas montadas logo depois de uma escrita, que podem
+ * ter vindo de uma réplica atrasada, não são guardadas (ver {@link EscritasRecentes}).
+ */
+@Repository
+public class ArmazemColunarLancamentos {
+
+	private static final int TAMANHO_LOTE = 1000;
+
+	// a versão só precisa sobreviver às construções em andamento
+	private static final Duration VALIDADE_VERSAO = Duration.ofMinutes(10);
+
+	private LancamentoRepository repository;
+	private Cache<Long, ColunasLancamentos> colunas;
+	private Cache<Long, Long> versoes = Caffeine.newBuilder().expireAfterWrite(VALIDADE_VERSAO).build();
+	private AtomicLong sequencia = new AtomicLong();
+	private ObjectProvider<EscritasRecentes> escritasRecentes;
+
+
+	public ArmazemColunarLancamentos(LancamentoRepository repository, MeterRegistry registry,
+			ObjectProvider<EscritasRecentes> escritasRecentes,
+			@Value("${minhasfinancas.analise.memoria-maxima:64MB}") DataSize memoriaMaxima) {
+
+		this.repository = repository;
+		this.escritasRecentes = escritasRecentes;
+		this.colunas = Caffeine.newBuilder()
+				.maximumWeight(memoriaMaxima.toBytes())
+				.weigher( (Long idUsuario, ColunasLancamentos valor) -> (int) Math.min(valor.getBytes(), Integer.MAX_VALUE) )
+				.recordStats()
+				.build();
+
+		// as métricas cache.* são compartilhadas com os outros caches, então as chaves de tag coincidem
+		CaffeineCacheMetrics.monitor(registry, colunas, "lancamentosColunares",
+				Tags.of("cacheManager", "armazemColunar", "name", "lancamentosColunares"));
+		Gauge.builder("minhasfinancas.analise.bytes", colunas,
+				cache -> cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+			.description("Memória estimada das colunas de lançamentos em cache")
+			.baseUnit("bytes")
+			.register(registry);
+	}
+
+
+	@TransactionalEventListener
+	public void invalidar(LancamentosAlteradosEvent evento) {
+
+		versoes.put(evento.getIdUsuario(), sequencia.incrementAndGet());
+		colunas.invalidate(evento.getIdUsuario());
+	}
+
+
+	public ColunasLancamentos obter(Long idUsuario) {
+
+		long versao = versao(idUsuario);
+		ColunasLancamentos atuais = colunas.getIfPresent(idUsuario);
+		if (atuais != null && atuais.getVersao() == versao) {
+			return atuais;
+		}
+
+		// se uma alteração for confirmada durante a construção, a versão gravada
+		// fica para trás e as colunas saem antes que a versão nova expire
+		ColunasLancamentos construidas = construir(idUsuario, versao);
+		EscritasRecentes escritas = escritasRecentes.getIfAvailable();
+		if (escritas == null || escritas.podeGuardar(idUsuario)) {
+			colunas.put(idUsuario, construidas);
+			if (versao(idUsuario) != versao) {
+				colunas.asMap().remove(idUsuario, construidas);
+			}
+		}
+		return construidas;
+	}
+
+
+
+	private long versao(Long idUsuario) {
+
+		Long versao = versoes.getIfPresent(idUsuario);
+		return versao == null ? 0L : versao;
+	}
+
+
+
+	private ColunasLancamentos construir(Long idUsuario, long versao) {
+
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(idUsuario).build());
+
+		ColunasLancamentos.Construtor construtor = new ColunasLancamentos.Construtor();
+		repository.percorrer(filtro, TAMANHO_LOTE, construtor::adicionar);
+		return construtor.construir(versao);
+	}
+}
@@ -0,0 +1,13 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ChaveLancamento {
+
+	private Integer ano;
+	private Integer mes;
+	private Long id;
+}
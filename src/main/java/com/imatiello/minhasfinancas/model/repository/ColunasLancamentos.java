@@ -0,0 +1,249 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.Centavos;
+import com.imatiello.minhasfinancas.model.enums.AgrupamentoAnalise;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+/**
+ * Os lançamentos de um usuário em colunas primitivas, num único buffer fora do heap:
+ * valor em centavos (long), mês como meses desde o ano zero (int), tipo e status pelo
+ * ordinal (byte) e a descrição como código de um dicionário (int). Uma agregação é uma
+ * varredura sequencial que soma em arrays do chamador, sem criar objetos por linha.
+ *
+ * Imutável depois de construído; alterações nos lançamentos geram um novo snapshot.
+ */
+public final class ColunasLancamentos {
+
+	private static final int BYTES_POR_LINHA = 8 + 4 + 1 + 1 + 4;
+	private static final TipoLancamento[] TIPOS = TipoLancamento.values();
+	private static final StatusLancamento[] STATUS = StatusLancamento.values();
+	private static final byte RECEITA = (byte) TipoLancamento.RECEITA.ordinal();
+
+	private final long versao;
+	private final int linhas;
+	private final ByteBuffer dados;
+	private final int inicioMeses;
+	private final int inicioTipos;
+	private final int inicioStatus;
+	private final int inicioDescricoes;
+	private final String[] dicionario;
+	private final int menorMes;
+	private final int maiorMes;
+
+
+	private ColunasLancamentos(long versao, Construtor construtor) {
+
+		this.versao = versao;
+		this.linhas = construtor.linhas;
+		this.inicioMeses = linhas * 8;
+		this.inicioTipos = inicioMeses + linhas * 4;
+		this.inicioStatus = inicioTipos + linhas;
+		this.inicioDescricoes = inicioStatus + linhas;
+		this.dicionario = construtor.dicionario.toArray(new String[0]);
+		this.menorMes = construtor.menorMes;
+		this.maiorMes = construtor.maiorMes;
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(linhas * BYTES_POR_LINHA, 1))
+				.order(ByteOrder.nativeOrder());
+		for (int i = 0; i < linhas; i++) {
+			buffer.putLong(i * 8, construtor.centavos[i]);
+			buffer.putInt(inicioMeses + i * 4, construtor.meses[i]);
+			buffer.put(inicioTipos + i, construtor.tipos[i]);
+			buffer.put(inicioStatus + i, construtor.status[i]);
+			buffer.putInt(inicioDescricoes + i * 4, construtor.descricoes[i]);
+		}
+		this.dados = buffer;
+	}
+
+
+	public static int indiceMes(int ano, int mes) {
+		return ano * 12 + mes - 1;
+	}
+
+
+	public long getVersao() {
+		return versao;
+	}
+
+
+	public int getLinhas() {
+		return linhas;
+	}
+
+
+	/** Estimativa da memória ocupada: o buffer fora do heap mais o dicionário. */
+	public long getBytes() {
+
+		long bytes = dados.capacity();
+		for (String descricao : dicionario) {
+			bytes += 56 + 2L * descricao.length();
+		}
+		return bytes;
+	}
+
+
+	/** Quantidade de grupos possíveis no agrupamento, isto é, o tamanho dos arrays de {@link #agregar}. */
+	public int grupos(AgrupamentoAnalise agrupamento) {
+
+		if (linhas == 0) {
+			return 0;
+		}
+		switch (agrupamento) {
+			case MES: return maiorMes - menorMes + 1;
+			case ANO: return maiorMes / 12 - menorMes / 12 + 1;
+			case TIPO: return TIPOS.length;
+			case STATUS: return STATUS.length;
+			default: return dicionario.length;
+		}
+	}
+
+
+	public String rotulo(AgrupamentoAnalise agrupamento, int grupo) {
+
+		switch (agrupamento) {
+			case MES: return YearMonth.of((menorMes + grupo) / 12, (menorMes + grupo) % 12 + 1).toString();
+			case ANO: return String.valueOf(menorMes / 12 + grupo);
+			case TIPO: return TIPOS[grupo].name();
+			case STATUS: return STATUS[grupo].name();
+			default: return dicionario[grupo];
+		}
+	}
+
+
+	/**
+	 * Soma, por grupo, os centavos das receitas e das despesas e a quantidade de
+	 * lançamentos que passam no filtro. Os arrays têm {@link #grupos} posições.
+	 */
+	public void agregar(FiltroAnalise filtro, AgrupamentoAnalise agrupamento,
+			long[] receitas, long[] despesas, long[] quantidades) {
+
+		int de = filtro.getDe() == null ? Integer.MIN_VALUE
+				: indiceMes(filtro.getDe().getYear(), filtro.getDe().getMonthValue());
+		int ate = filtro.getAte() == null ? Integer.MAX_VALUE
+				: indiceMes(filtro.getAte().getYear(), filtro.getAte().getMonthValue());
+		int tipo = filtro.getTipo() == null ? -1 : filtro.getTipo().ordinal();
+		int status = 0;
+		for (StatusLancamento aceito : filtro.getStatus() == null ? Arrays.asList(STATUS) : filtro.getStatus()) {
+			status |= 1 << aceito.ordinal();
+		}
+		boolean[] descricoes = filtrarDicionario(filtro.getDescricao());
+		int anoInicial = menorMes / 12;
+
+		for (int i = 0; i < linhas; i++) {
+
+			int mes = dados.getInt(inicioMeses + i * 4);
+			byte tipoLinha = dados.get(inicioTipos + i);
+			byte statusLinha = dados.get(inicioStatus + i);
+			int descricao = dados.getInt(inicioDescricoes + i * 4);
+			if (mes < de || mes > ate || (tipo >= 0 && tipoLinha != tipo) || (status & (1 << statusLinha)) == 0
+					|| (descricoes != null && !descricoes[descricao])) {
+				continue;
+			}
+
+			int grupo;
+			switch (agrupamento) {
+				case MES: grupo = mes - menorMes; break;
+				case ANO: grupo = mes / 12 - anoInicial; break;
+				case TIPO: grupo = tipoLinha; break;
+				case STATUS: grupo = statusLinha; break;
+				default: grupo = descricao;
+			}
+
+			long centavos = dados.getLong(i * 8);
+			if (tipoLinha == RECEITA) {
+				receitas[grupo] = Centavos.somar(receitas[grupo], centavos);
+			} else {
+				despesas[grupo] = Centavos.somar(despesas[grupo], centavos);
+			}
+			quantidades[grupo]++;
+		}
+	}
+
+
+	// o filtro de descrição é avaliado uma vez por entrada do dicionário, não por linha
+	private boolean[] filtrarDicionario(String termo) {
+
+		if (termo == null || termo.trim().isEmpty()) {
+			return null;
+		}
+		String procurado = normalizar(termo.trim());
+		boolean[] aceitas = new boolean[dicionario.length];
+		for (int i = 0; i < dicionario.length; i++) {
+			aceitas[i] = normalizar(dicionario[i]).contains(procurado);
+		}
+		return aceitas;
+	}
+
+
+	private static String normalizar(String texto) {
+		return TermosPesquisa.semAcentos(texto.toLowerCase(Locale.ROOT));
+	}
+
+
+
+	/** Acumula as linhas em arrays do heap e copia tudo para o buffer no final. */
+	public static final class Construtor {
+
+		private int linhas;
+		private long[] centavos = new long[64];
+		private int[] meses = new int[64];
+		private byte[] tipos = new byte[64];
+		private byte[] status = new byte[64];
+		private int[] descricoes = new int[64];
+		private Map<String, Integer> codigos = new HashMap<>();
+		private List<String> dicionario = new ArrayList<>();
+		private int menorMes = Integer.MAX_VALUE;
+		private int maiorMes = Integer.MIN_VALUE;
+
+
+		public Construtor adicionar(LancamentoDTO lancamento) {
+
+			// mesma regra do resumo mensal: lançamentos sem ano, mês, tipo ou status ficam de fora
+			if (lancamento.getAno() == null || lancamento.getMes() == null
+					|| lancamento.getTipo() == null || lancamento.getStatus() == null) {
+				return this;
+			}
+
+			if (linhas == centavos.length) {
+				int capacidade = linhas * 2;
+				centavos = Arrays.copyOf(centavos, capacidade);
+				meses = Arrays.copyOf(meses, capacidade);
+				tipos = Arrays.copyOf(tipos, capacidade);
+				status = Arrays.copyOf(status, capacidade);
+				descricoes = Arrays.copyOf(descricoes, capacidade);
+			}
+
+			int mes = indiceMes(lancamento.getAno(), lancamento.getMes());
+			centavos[linhas] = lancamento.getValor() == null ? 0 : Centavos.de(lancamento.getValor());
+			meses[linhas] = mes;
+			tipos[linhas] = (byte) TipoLancamento.valueOf(lancamento.getTipo()).ordinal();
+			status[linhas] = (byte) StatusLancamento.valueOf(lancamento.getStatus()).ordinal();
+			descricoes[linhas] = codigos.computeIfAbsent(
+					lancamento.getDescricao() == null ? "" : lancamento.getDescricao(), descricao -> {
+						dicionario.add(descricao);
+						return dicionario.size() - 1;
+					});
+			menorMes = Math.min(menorMes, mes);
+			maiorMes = Math.max(maiorMes, mes);
+			linhas++;
+			return this;
+		}
+
+
+		public ColunasLancamentos construir(long versao) {
+			return new ColunasLancamentos(versao, this);
+		}
+	}
+}
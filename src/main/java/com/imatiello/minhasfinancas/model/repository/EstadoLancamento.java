@@ -0,0 +1,25 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+/**
+ * Valores de um lançamento como estão gravados no banco, sem passar pelo
+ * contexto de persistência.
+ */
+public interface EstadoLancamento {
+
+	Long getIdUsuario();
+	
+	Integer getAno();
+	
+	Integer getMes();
+	
+	BigDecimal getValor();
+	
+	TipoLancamento getTipo();
+	
+	StatusLancamento getStatus();
+}
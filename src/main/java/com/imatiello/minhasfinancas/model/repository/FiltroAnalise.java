@@ -0,0 +1,26 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Restrições de uma agregação sobre as colunas; campos nulos não restringem. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroAnalise {
+
+	private YearMonth de;
+	private YearMonth ate;
+	private TipoLancamento tipo;
+	private Set<StatusLancamento> status;
+	private String descricao;
+}
@@ -0,0 +1,121 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+/**
+ * Índice invertido em memória, por usuário, usado no perfil de teste (H2 não
+ * tem busca textual). É montado na primeira pesquisa do usuário e descartado
+ * quando os lançamentos dele são alterados.
+ */
+@Repository
+@Profile("test")
+public class IndiceInvertidoLancamentos implements IndiceTextualLancamentos {
+
+	private static final int TAMANHO_LOTE = 500;
+
+	private LancamentoRepository repository;
+	private Map<Long, NavigableMap<String, Map<Long, Integer>>> indices = new ConcurrentHashMap<>();
+	private Map<Long, Long> versoes = new ConcurrentHashMap<>();
+
+
+	public IndiceInvertidoLancamentos(LancamentoRepository repository) {
+
+		this.repository = repository;
+	}
+
+
+	@TransactionalEventListener
+	public void invalidar(LancamentosAlteradosEvent evento) {
+
+		versoes.merge(evento.getIdUsuario(), 1L, Long::sum);
+		indices.remove(evento.getIdUsuario());
+	}
+
+
+	@Override
+	public List<Long> pesquisar(Long idUsuario, List<String> termos, int limite) {
+
+		NavigableMap<String, Map<Long, Integer>> indice = obterIndice(idUsuario);
+
+		Map<Long, Integer> pontuacao = null;
+		for (String termo : termos) {
+
+			String chave = TermosPesquisa.semAcentos(termo);
+			Map<Long, Integer> encontrados = new HashMap<>();
+
+			// casa por prefixo; o termo exato vale o dobro
+			for (Map.Entry<String, Map<Long, Integer>> entrada
+					: indice.subMap(chave, true, chave + Character.MAX_VALUE, false).entrySet()) {
+				int peso = entrada.getKey().equals(chave) ? 2 : 1;
+				entrada.getValue().forEach( (id, frequencia) -> encontrados.merge(id, peso * frequencia, Integer::sum) );
+			}
+
+			if (pontuacao == null) {
+				pontuacao = encontrados;
+			} else {
+				pontuacao.keySet().retainAll(encontrados.keySet());
+				pontuacao.replaceAll( (id, pontos) -> pontos + encontrados.get(id) );
+			}
+			if (pontuacao.isEmpty()) {
+				return Collections.emptyList();
+			}
+		}
+
+		Map<Long, Integer> resultado = pontuacao;
+		List<Long> ids = new ArrayList<>(resultado.keySet());
+		ids.sort( (a, b) -> {
+			int comparacao = Integer.compare(resultado.get(b), resultado.get(a));
+			return comparacao != 0 ? comparacao : Long.compare(a, b);
+		});
+		return ids.size() > limite ? ids.subList(0, limite) : ids;
+	}
+
+
+	private NavigableMap<String, Map<Long, Integer>> obterIndice(Long idUsuario) {
+
+		NavigableMap<String, Map<Long, Integer>> indice = indices.get(idUsuario);
+		if (indice != null) {
+			return indice;
+		}
+
+		Long versao = versoes.getOrDefault(idUsuario, 0L);
+		NavigableMap<String, Map<Long, Integer>> construido = construir(idUsuario);
+
+		// só guarda se nenhuma alteração foi confirmada durante a construção
+		if (versao.equals(versoes.getOrDefault(idUsuario, 0L))) {
+			indices.putIfAbsent(idUsuario, construido);
+		}
+		return construido;
+	}
+
+
+	private NavigableMap<String, Map<Long, Integer>> construir(Long idUsuario) {
+
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(idUsuario).build());
+
+		NavigableMap<String, Map<Long, Integer>> indice = new TreeMap<>();
+		repository.percorrer(filtro, TAMANHO_LOTE, lancamento -> {
+			for (String termo : TermosPesquisa.extrair(lancamento.getDescricao())) {
+				indice.computeIfAbsent(TermosPesquisa.semAcentos(termo), t -> new HashMap<>())
+					.merge(lancamento.getId(), 1, Integer::sum);
+			}
+		});
+		return indice;
+	}
+}
@@ -0,0 +1,13 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.List;
+
+/**
+ * Pesquisa textual sobre a descrição dos lançamentos de um usuário. Cada termo
+ * casa por prefixo e todos os termos precisam estar presentes; o resultado vem
+ * ordenado por relevância.
+ */
+public interface IndiceTextualLancamentos {
+
+	List<Long> pesquisar(Long idUsuario, List<String> termos, int limite);
+}
@@ -0,0 +1,57 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Pesquisa pelo índice GIN de tsvector sobre a descrição sem acentos (migração
+ * V6__indice_textual_sem_acentos). A expressão da consulta precisa ser idêntica à
+ * do índice para que ele seja usado.
+ */
+@Repository
+@Profile("!test")
+public class IndiceTextualPostgres implements IndiceTextualLancamentos {
+
+	private static final String DOCUMENTO = "to_tsvector('portuguese', financas.sem_acentos(coalesce(l.descricao, '')))";
+
+	private static final String PESQUISAR = "select l.id from financas.lancamento l, "
+			+ "to_tsquery('portuguese', financas.sem_acentos(:consulta)) q "
+			+ "where l.id_usuario = :idUsuario "
+			+ "and " + DOCUMENTO + " @@ q "
+			+ "order by ts_rank(" + DOCUMENTO + ", q) desc, l.id "
+			+ "limit :limite";
+
+	private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+
+	public IndiceTextualPostgres(NamedParameterJdbcTemplate namedJdbcTemplate) {
+
+		this.namedJdbcTemplate = namedJdbcTemplate;
+	}
+
+
+	@Override
+	public List<Long> pesquisar(Long idUsuario, List<String> termos, int limite) {
+
+		MapSqlParameterSource parametros = new MapSqlParameterSource()
+				.addValue("consulta", consulta(termos))
+				.addValue("idUsuario", idUsuario)
+				.addValue("limite", limite);
+
+		return namedJdbcTemplate.queryForList(PESQUISAR, parametros, Long.class);
+	}
+
+
+	// termos contêm só letras e dígitos, então não há sintaxe de tsquery a escapar
+	static String consulta(List<String> termos) {
+
+		return termos.stream()
+				.map( termo -> termo + ":*" )
+				.collect(Collectors.joining(" & "));
+	}
+}
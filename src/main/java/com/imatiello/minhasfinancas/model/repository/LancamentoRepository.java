@@ -1,24 +1,47 @@
 package com.imatiello.minhasfinancas.model.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
 import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
 
-public interface LancamentoRepository extends JpaRepository< Lancamento, Long>{
+public interface LancamentoRepository extends JpaRepository< Lancamento, Long>, LancamentoRepositoryCustom {
 
 	Lancamento save(Lancamento lancamento);
 
-	@Query(value = "select sum(l.valor) from Lancamento l join l.usuario u "
-			+ "where u.id = :idUsuario and l.tipo=:tipo group by u")
+	@Query(value = "select sum(l.valor) from Lancamento l "
+			+ "where l.usuario.id = :idUsuario and l.tipo = :tipo")
 	BigDecimal obterSaldoPorTipoLancamentoEUsuario
 	( @Param("idUsuario") Long idUsuaior, @Param("tipo") TipoLancamento tipo  );
 
 	void delete(Lancamento lancamento);
 	
+	// flushMode COMMIT: lê o que está gravado, ignorando alterações pendentes no contexto
+	@QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+	@Query(value = "select l.usuario.id as idUsuario, l.ano as ano, l.mes as mes, l.valor as valor, "
+			+ "l.tipo as tipo, l.status as status from Lancamento l where l.id = :id")
+	Optional<EstadoLancamento> obterEstadoPersistido(@Param("id") Long id);
+	
+	@Query(value = "select distinct l.usuario.id from Lancamento l")
+	List<Long> obterIdsDeUsuariosComLancamentos();
+	
+	// uma soma agrupada para vários usuários, lida do índice (id_usuario, tipo, valor)
+	@Query(value = "select new com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO(l.usuario.id, "
+			+ "sum(case when l.tipo = com.imatiello.minhasfinancas.model.enums.TipoLancamento.RECEITA "
+			+ "then l.valor else -l.valor end)) "
+			+ "from Lancamento l where l.usuario.id in :ids group by l.usuario.id")
+	List<SaldoUsuarioDTO> obterSaldosPorUsuarios(@Param("ids") Collection<Long> idsUsuarios);
+	
 }
@@ -0,0 +1,56 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+
+public interface LancamentoRepositoryCustom {
+
+	/**
+	 * Projeção dos lançamentos do filtro na ordem (ano, mes, id), numa única
+	 * consulta que lê só as colunas do DTO, sem carregar o usuário.
+	 */
+	List<LancamentoDTO> buscarProjecoes(Lancamento lancamentoFiltro);
+	
+	/**
+	 * Como {@link #buscarProjecoes}, mas o SELECT traz só as colunas dos campos
+	 * pedidos: cada linha é um mapa nome do campo -> valor, na ordem do enum.
+	 */
+	List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, Set<CampoLancamento> campos);
+	
+	/**
+	 * Busca por chave (keyset) na ordem (ano, mes, id): retorna até {@code limite}
+	 * lançamentos posteriores à chave informada. Sem chave, começa do início.
+	 */
+	List<LancamentoDTO> buscarAPartirDe(Lancamento lancamentoFiltro, ChaveLancamento chave, int limite);
+	
+	/** Projeção dos lançamentos do usuário com os ids informados, sem ordem definida. */
+	List<LancamentoDTO> buscarPorIds(Long idUsuario, Collection<Long> ids);
+	
+	/**
+	 * Percorre os lançamentos do filtro na ordem (ano, mes, id) com um cursor
+	 * somente-avante, entregando uma linha por vez ao consumidor.
+	 */
+	void percorrer(Lancamento lancamentoFiltro, int tamanhoLote, Consumer<LancamentoDTO> consumidor);
+	
+	/**
+	 * Um único UPDATE sobre os lançamentos do filtro (restrito aos ids, quando
+	 * informados) que ainda não estão no status desejado. Retorna as linhas alteradas.
+	 */
+	int atualizarStatus(Lancamento lancamentoFiltro, Collection<Long> ids, StatusLancamento status);
+	
+	/**
+	 * Totais por (usuário, ano, mes, tipo, status) dos lançamentos que
+	 * {@link #atualizarStatus} alteraria com os mesmos argumentos.
+	 */
+	List<ResumoMensal> resumirAlteracaoDeStatus(Lancamento lancamentoFiltro, Collection<Long> ids,
+			StatusLancamento status);
+}
@@ -0,0 +1,268 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+
+public class LancamentoRepositoryImpl implements LancamentoRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+
+	@Override
+	public List<LancamentoDTO> buscarProjecoes(Lancamento lancamentoFiltro) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDTO> query = cb.createQuery(LancamentoDTO.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		query.select(projecao(cb, root))
+			.where(filtrar(cb, root, lancamentoFiltro).toArray(new Predicate[0]))
+			.orderBy(cb.asc(root.get("ano")), cb.asc(root.get("mes")), cb.asc(root.get("id")));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
+
+	@Override
+	public List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, Set<CampoLancamento> campos) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		List<Selection<?>> colunas = new ArrayList<>(campos.size());
+		for (CampoLancamento campo : campos) {
+			colunas.add(coluna(root, campo).alias(campo.getNome()));
+		}
+
+		query.multiselect(colunas)
+			.where(filtrar(cb, root, lancamentoFiltro).toArray(new Predicate[0]))
+			.orderBy(cb.asc(root.get("ano")), cb.asc(root.get("mes")), cb.asc(root.get("id")));
+
+		List<Tuple> linhas = entityManager.createQuery(query).getResultList();
+		List<Map<String, Object>> lancamentos = new ArrayList<>(linhas.size());
+		for (Tuple linha : linhas) {
+			Map<String, Object> lancamento = new LinkedHashMap<>(campos.size() * 2);
+			int i = 0;
+			for (CampoLancamento campo : campos) {
+				lancamento.put(campo.getNome(), linha.get(i++));
+			}
+			lancamentos.add(lancamento);
+		}
+		return lancamentos;
+	}
+
+
+	@Override
+	public List<LancamentoDTO> buscarAPartirDe(Lancamento lancamentoFiltro, ChaveLancamento chave, int limite) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDTO> query = cb.createQuery(LancamentoDTO.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		List<Predicate> predicados = filtrar(cb, root, lancamentoFiltro);
+
+		if (chave != null) {
+			Path<Integer> ano = root.get("ano");
+			Path<Integer> mes = root.get("mes");
+			Path<Long> id = root.get("id");
+
+			// redundante com o OR abaixo, mas é o que deixa o índice (id_usuario, ano, mes, id) começar
+			// a varredura no cursor: com só o OR, as páginas profundas releem as linhas das anteriores
+			predicados.add(cb.greaterThanOrEqualTo(ano, chave.getAno()));
+			predicados.add(cb.or(
+					cb.greaterThan(ano, chave.getAno()),
+					cb.and(cb.equal(ano, chave.getAno()), cb.or(
+							cb.greaterThan(mes, chave.getMes()),
+							cb.and(cb.equal(mes, chave.getMes()), cb.greaterThan(id, chave.getId()))))));
+		}
+
+		query.select(projecao(cb, root))
+			.where(predicados.toArray(new Predicate[0]))
+			.orderBy(cb.asc(root.get("ano")), cb.asc(root.get("mes")), cb.asc(root.get("id")));
+
+		return entityManager.createQuery(query)
+				.setMaxResults(limite)
+				.getResultList();
+	}
+
+
+	@Override
+	public List<LancamentoDTO> buscarPorIds(Long idUsuario, Collection<Long> ids) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDTO> query = cb.createQuery(LancamentoDTO.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		query.select(projecao(cb, root))
+			.where(cb.equal(root.get("usuario").get("id"), idUsuario), root.get("id").in(ids));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
+
+	@Override
+	public void percorrer(Lancamento lancamentoFiltro, int tamanhoLote, Consumer<LancamentoDTO> consumidor) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDTO> query = cb.createQuery(LancamentoDTO.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		query.select(projecao(cb, root))
+			.where(filtrar(cb, root, lancamentoFiltro).toArray(new Predicate[0]))
+			.orderBy(cb.asc(root.get("ano")), cb.asc(root.get("mes")), cb.asc(root.get("id")));
+
+		Query<?> consulta = entityManager.createQuery(query).unwrap(Query.class)
+				.setFetchSize(tamanhoLote)
+				.setReadOnly(true);
+
+		try (ScrollableResults linhas = consulta.scroll(ScrollMode.FORWARD_ONLY)) {
+			int lidas = 0;
+			while (linhas.next()) {
+				consumidor.accept((LancamentoDTO) linhas.get(0));
+
+				// a projeção não gera entidades gerenciadas, mas limpa o contexto
+				// por lote para que nada se acumule durante a leitura
+				if (++lidas % tamanhoLote == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+
+	@Override
+	public int atualizarStatus(Lancamento lancamentoFiltro, Collection<Long> ids, StatusLancamento status) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Lancamento> update = cb.createCriteriaUpdate(Lancamento.class);
+		Root<Lancamento> root = update.from(Lancamento.class);
+
+		update.set(root.<StatusLancamento>get("status"), status)
+			.where(filtrarAlteracaoDeStatus(cb, root, lancamentoFiltro, ids, status));
+
+		int alterados = entityManager.createQuery(update).executeUpdate();
+
+		// o UPDATE não passa pelo contexto de persistência
+		entityManager.clear();
+		return alterados;
+	}
+
+
+	@Override
+	public List<ResumoMensal> resumirAlteracaoDeStatus(Lancamento lancamentoFiltro, Collection<Long> ids,
+			StatusLancamento status) {
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ResumoMensal> query = cb.createQuery(ResumoMensal.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+
+		List<Expression<?>> chave = Arrays.asList(root.get("usuario").get("id"), root.get("ano"),
+				root.get("mes"), root.get("tipo"), root.get("status"));
+
+		query.select(cb.construct(ResumoMensal.class, chave.get(0), chave.get(1), chave.get(2), chave.get(3),
+				chave.get(4), cb.sum(root.<BigDecimal>get("valor")), cb.count(root)))
+			.where(filtrarAlteracaoDeStatus(cb, root, lancamentoFiltro, ids, status))
+			.groupBy(chave);
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
+
+	private Predicate[] filtrarAlteracaoDeStatus(CriteriaBuilder cb, Root<Lancamento> root,
+			Lancamento filtro, Collection<Long> ids, StatusLancamento status) {
+
+		List<Predicate> predicados = filtrar(cb, root, filtro);
+		predicados.add(cb.notEqual(root.get("status"), status));
+		if (ids != null) {
+			predicados.add(root.get("id").in(ids));
+		}
+		return predicados.toArray(new Predicate[0]);
+	}
+
+
+	// mesma semântica do Example usado em LancamentoServiceImpl.buscar
+	private List<Predicate> filtrar(CriteriaBuilder cb, Root<Lancamento> root, Lancamento filtro) {
+
+		List<Predicate> predicados = new ArrayList<>();
+
+		if (filtro.getUsuario() != null && filtro.getUsuario().getId() != null) {
+			predicados.add(cb.equal(root.get("usuario").get("id"), filtro.getUsuario().getId()));
+		}
+		if (filtro.getDescricao() != null) {
+			predicados.add(cb.like(cb.lower(root.get("descricao")),
+					"%" + filtro.getDescricao().toLowerCase() + "%"));
+		}
+		if (filtro.getAno() != null) {
+			predicados.add(cb.equal(root.get("ano"), filtro.getAno()));
+		}
+		if (filtro.getMes() != null) {
+			predicados.add(cb.equal(root.get("mes"), filtro.getMes()));
+		}
+		if (filtro.getTipo() != null) {
+			predicados.add(cb.equal(root.get("tipo"), filtro.getTipo()));
+		}
+		if (filtro.getStatus() != null) {
+			predicados.add(cb.equal(root.get("status"), filtro.getStatus()));
+		}
+
+		return predicados;
+	}
+
+
+	// usuario.id vem da chave estrangeira do próprio lançamento, sem junção
+	private Path<?> coluna(Root<Lancamento> root, CampoLancamento campo) {
+
+		switch (campo) {
+			case USUARIO:
+				return root.get("usuario").get("id");
+			default:
+				return root.get(campo.getNome());
+		}
+	}
+
+
+	private CompoundSelection<LancamentoDTO> projecao(CriteriaBuilder cb, Root<Lancamento> root) {
+
+		return cb.construct(LancamentoDTO.class,
+				root.get("id"),
+				root.get("descricao"),
+				root.get("mes"),
+				root.get("ano"),
+				root.get("valor"),
+				root.get("usuario").get("id"),
+				root.get("tipo"),
+				root.get("status"));
+	}
+}
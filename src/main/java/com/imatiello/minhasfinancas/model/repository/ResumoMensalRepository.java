@@ -0,0 +1,51 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.imatiello.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.imatiello.minhasfinancas.model.entity.ChaveResumoMensal;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ChaveResumoMensal> {
+
+	@Query("select new com.imatiello.minhasfinancas.api.dto.ResumoMensalDTO(r.ano, r.mes, r.tipo, r.status, "
+			+ "r.total, r.quantidade) from ResumoMensal r where r.idUsuario = :idUsuario and r.ano = :ano "
+			+ "order by r.mes, r.tipo, r.status")
+	List<ResumoMensalDTO> obterMensal(@Param("idUsuario") Long idUsuario, @Param("ano") Integer ano);
+	
+	@Query("select new com.imatiello.minhasfinancas.api.dto.ResumoMensalDTO(r.ano, r.tipo, r.status, "
+			+ "sum(r.total), sum(r.quantidade)) from ResumoMensal r where r.idUsuario = :idUsuario "
+			+ "group by r.ano, r.tipo, r.status order by r.ano, r.tipo, r.status")
+	List<ResumoMensalDTO> obterAnual(@Param("idUsuario") Long idUsuario);
+	
+	// os meses são codificados como ano * 100 + mes; o filtro por ano deixa a chave primária delimitar a leitura
+	@Query("select sum(case when r.tipo = com.imatiello.minhasfinancas.model.enums.TipoLancamento.RECEITA then r.total else -r.total end) "
+			+ "from ResumoMensal r where r.idUsuario = :idUsuario and r.status in :status "
+			+ "and r.ano * 100 + r.mes < :inicio")
+	BigDecimal obterSaldoAntesDe(@Param("idUsuario") Long idUsuario,
+			@Param("status") Collection<StatusLancamento> status, @Param("inicio") int inicio);
+	
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "120"))
+	@Query("select new com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO(r.ano, r.mes, "
+			+ "sum(case when r.tipo = com.imatiello.minhasfinancas.model.enums.TipoLancamento.RECEITA then r.total else 0 end), "
+			+ "sum(case when r.tipo = com.imatiello.minhasfinancas.model.enums.TipoLancamento.DESPESA then r.total else 0 end)) "
+			+ "from ResumoMensal r where r.idUsuario = :idUsuario and r.status in :status "
+			+ "and r.ano between :anoInicial and :anoFinal and r.ano * 100 + r.mes between :inicio and :fim "
+			+ "group by r.ano, r.mes order by r.ano, r.mes")
+	Stream<SaldoMensalDTO> percorrerMovimento(@Param("idUsuario") Long idUsuario,
+			@Param("status") Collection<StatusLancamento> status,
+			@Param("anoInicial") int anoInicial, @Param("anoFinal") int anoFinal,
+			@Param("inicio") int inicio, @Param("fim") int fim);
+}
@@ -0,0 +1,37 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+import com.imatiello.minhasfinancas.model.entity.SaldoUsuario;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuario, Long> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from SaldoUsuario s where s.idUsuario = :idUsuario")
+	Optional<SaldoUsuario> obterParaAtualizacao(@Param("idUsuario") Long idUsuario);
+	
+	@Query("select s.versao from SaldoUsuario s where s.idUsuario = :idUsuario")
+	Optional<Long> obterVersao(@Param("idUsuario") Long idUsuario);
+	
+	// só os usuários existentes; o saldo vem nulo para quem ainda não tem linha materializada
+	@Query("select new com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO(u.id, s.receitas, s.despesas) "
+			+ "from Usuario u left join SaldoUsuario s on s.idUsuario = u.id where u.id in :ids order by u.id")
+	List<SaldoUsuarioDTO> obterMaterializados(@Param("ids") Collection<Long> idsUsuarios);
+	
+	@Query("select new com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO(u.id, s.receitas, s.despesas) "
+			+ "from Usuario u left join SaldoUsuario s on s.idUsuario = u.id "
+			+ "where u.id > :apos and u.id <= :ate order by u.id")
+	List<SaldoUsuarioDTO> obterMaterializadosAPartirDe(@Param("apos") Long aposIdUsuario,
+			@Param("ate") Long ateIdUsuario, Pageable pagina);
+}
@@ -0,0 +1,42 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class TermosPesquisa {
+
+	private TermosPesquisa() {
+	}
+
+	/** Quebra o texto em termos minúsculos, separando por tudo que não for letra ou dígito. */
+	public static List<String> extrair(String texto) {
+
+		List<String> termos = new ArrayList<>();
+		if (texto == null) {
+			return termos;
+		}
+
+		StringBuilder atual = new StringBuilder();
+		String minusculo = texto.toLowerCase(Locale.ROOT);
+		for (int i = 0; i < minusculo.length(); i++) {
+			char c = minusculo.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				atual.append(c);
+			} else if (atual.length() > 0) {
+				termos.add(atual.toString());
+				atual.setLength(0);
+			}
+		}
+		if (atual.length() > 0) {
+			termos.add(atual.toString());
+		}
+		return termos;
+	}
+
+	/** Remove acentos, para comparar "agua" com "água". */
+	public static String semAcentos(String termo) {
+		return Normalizer.normalize(termo, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+	}
+}
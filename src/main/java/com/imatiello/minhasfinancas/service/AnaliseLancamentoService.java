@@ -0,0 +1,12 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.util.List;
+
+import com.imatiello.minhasfinancas.api.dto.AgregadoLancamentosDTO;
+import com.imatiello.minhasfinancas.model.enums.AgrupamentoAnalise;
+import com.imatiello.minhasfinancas.model.repository.FiltroAnalise;
+
+public interface AnaliseLancamentoService {
+
+	List<AgregadoLancamentosDTO> agregar(Long idUsuario, FiltroAnalise filtro, AgrupamentoAnalise agrupamento);
+}
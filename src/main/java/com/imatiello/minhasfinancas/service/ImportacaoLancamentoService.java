@@ -0,0 +1,12 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.util.Iterator;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+
+public interface ImportacaoLancamentoService {
+
+	ResultadoImportacaoDTO importar(Usuario usuario, Iterator<LancamentoDTO> linhas);
+}
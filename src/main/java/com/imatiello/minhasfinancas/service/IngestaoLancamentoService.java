@@ -0,0 +1,13 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.util.Optional;
+
+import com.imatiello.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+
+public interface IngestaoLancamentoService {
+
+	String enfileirar(Lancamento lancamento);
+	
+	Optional<SituacaoIngestaoDTO> obterSituacao(String id);
+}
@@ -1,30 +1,57 @@
 package com.imatiello.minhasfinancas.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.PaginaDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
 import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
 
-import antlr.collections.List;
-
 public interface LancamentoService {
 
 	
 	Lancamento salvar(Lancamento lancamento);
 	
+	List<Lancamento> salvarEmLote(List<Lancamento> lancamentos);
+	
 	Lancamento atualizar(Lancamento lancamento);
 	
+	Lancamento atualizar(Lancamento lancamento, long versaoEsperada);
+	
 	void deletar(Lancamento lancamento);
 	
-	java.util.List<Lancamento> buscar(Lancamento lancamentoFiltro);
+	List<Lancamento> buscar(Lancamento lancamentoFiltro);
+	
+	List<LancamentoDTO> buscarProjecoes(Lancamento lancamentoFiltro);
+	
+	List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, Set<CampoLancamento> campos);
+	
+	PaginaDTO<LancamentoDTO> buscarPagina(Lancamento lancamentoFiltro, String cursor, Integer limite);
+	
+	List<LancamentoDTO> pesquisar(Long idUsuario, String termos, Integer limite);
+	
+	void exportar(Lancamento lancamentoFiltro, Consumer<LancamentoDTO> consumidor);
 	
 	void atulizarStatus(Lancamento lancamento, StatusLancamento status);
 	
+	int atualizarStatusEmLote(Lancamento lancamentoFiltro, List<Long> ids, StatusLancamento status);
+	
 	void validar(Lancamento lancamento);
 	
 	Optional<Lancamento> obterPorId(Long id);
 	
 	
 	BigDecimal obterSaldoPorUsuario(Long id);
+	
+	void obterSaldosPorUsuarios(Collection<Long> idsUsuarios, Consumer<SaldoUsuarioDTO> consumidor);
+	
+	void obterSaldosPorUsuarios(Long idInicial, Long idFinal, Consumer<SaldoUsuarioDTO> consumidor);
 }
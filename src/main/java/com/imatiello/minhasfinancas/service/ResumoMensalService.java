@@ -0,0 +1,27 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.imatiello.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+public interface ResumoMensalService {
+
+	void aplicar(Long idUsuario, Integer ano, Integer mes, TipoLancamento tipo, StatusLancamento status,
+			BigDecimal valor, long quantidade);
+	
+	List<ResumoMensalDTO> obterMensal(Long idUsuario, Integer ano);
+	
+	List<ResumoMensalDTO> obterAnual(Long idUsuario);
+	
+	void validarPeriodo(YearMonth inicio, YearMonth fim, Set<StatusLancamento> status);
+	
+	void percorrerSaldos(Long idUsuario, YearMonth inicio, YearMonth fim, Set<StatusLancamento> status,
+			Consumer<SaldoMensalDTO> consumidor);
+}
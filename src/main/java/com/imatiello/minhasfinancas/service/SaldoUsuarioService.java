@@ -0,0 +1,32 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+public interface SaldoUsuarioService {
+
+	void bloquear(Long idUsuario);
+	
+	void bloquearTodos(Collection<Long> idsUsuarios);
+	
+	void aplicarDelta(Long idUsuario, TipoLancamento tipo, BigDecimal valor);
+	
+	void registrarAlteracao(Long idUsuario);
+	
+	void verificarVersao(Long idUsuario, long versaoEsperada);
+	
+	BigDecimal obterSaldo(Long idUsuario);
+	
+	List<SaldoUsuarioDTO> obterSaldos(Collection<Long> idsUsuarios);
+	
+	List<SaldoUsuarioDTO> obterSaldosAPartirDe(Long aposIdUsuario, Long ateIdUsuario, int limite);
+	
+	long obterVersao(Long idUsuario);
+	
+	List<Long> reconciliar();
+}
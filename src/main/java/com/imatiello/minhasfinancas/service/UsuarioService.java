@@ -14,5 +14,7 @@ public interface UsuarioService {
 	
 	Optional<Usuario> obterPorId(Long id);
 	
+	Usuario obterReferencia(Long id);
+	
 	
 }
@@ -0,0 +1,16 @@
+package com.imatiello.minhasfinancas.service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Publicado pelas operações de escrita sobre os lançamentos de um usuário.
+ * Quem mantém dados derivados escuta com @TransactionalEventListener, para
+ * reagir somente depois do commit.
+ */
+@Data
+@AllArgsConstructor
+public class LancamentosAlteradosEvent {
+
+	private Long idUsuario;
+}
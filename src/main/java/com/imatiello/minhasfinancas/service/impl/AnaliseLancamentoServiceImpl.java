@@ -0,0 +1,60 @@
+package com.imatiello.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.imatiello.minhasfinancas.api.dto.AgregadoLancamentosDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.Centavos;
+import com.imatiello.minhasfinancas.model.enums.AgrupamentoAnalise;
+import com.imatiello.minhasfinancas.model.repository.ArmazemColunarLancamentos;
+import com.imatiello.minhasfinancas.model.repository.ColunasLancamentos;
+import com.imatiello.minhasfinancas.model.repository.FiltroAnalise;
+import com.imatiello.minhasfinancas.service.AnaliseLancamentoService;
+
+@Service
+public class AnaliseLancamentoServiceImpl implements AnaliseLancamentoService {
+
+	private ArmazemColunarLancamentos armazem;
+	
+	public AnaliseLancamentoServiceImpl(ArmazemColunarLancamentos armazem) {
+		this.armazem = armazem;
+	}
+	
+	
+	
+	// a transação só é usada quando as colunas do usuário precisam ser montadas
+	@Override
+	@Transactional(readOnly = true)
+	public List<AgregadoLancamentosDTO> agregar(Long idUsuario, FiltroAnalise filtro, AgrupamentoAnalise agrupamento) {
+		
+		if (filtro.getDe() != null && filtro.getAte() != null && filtro.getDe().isAfter(filtro.getAte())) {
+			throw new RegraNegocioException("O mês inicial deve ser anterior ao final.");
+		}
+		
+		ColunasLancamentos colunas = armazem.obter(idUsuario);
+		int grupos = colunas.grupos(agrupamento);
+		long[] receitas = new long[grupos];
+		long[] despesas = new long[grupos];
+		long[] quantidades = new long[grupos];
+		colunas.agregar(filtro, agrupamento, receitas, despesas, quantidades);
+		
+		List<AgregadoLancamentosDTO> agregados = new ArrayList<>();
+		for (int grupo = 0; grupo < grupos; grupo++) {
+			if (quantidades[grupo] > 0) {
+				agregados.add(new AgregadoLancamentosDTO(colunas.rotulo(agrupamento, grupo),
+						Centavos.paraReais(receitas[grupo]), Centavos.paraReais(despesas[grupo]),
+						quantidades[grupo]));
+			}
+		}
+		
+		// o dicionário segue a ordem de chegada; por descrição, a resposta sai em ordem alfabética
+		if (agrupamento == AgrupamentoAnalise.DESCRICAO) {
+			agregados.sort( (a, b) -> a.getGrupo().compareTo(b.getGrupo()) );
+		}
+		return agregados;
+	}
+}
@@ -0,0 +1,178 @@
+package com.imatiello.minhasfinancas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.imatiello.minhasfinancas.api.dto.ErroImportacaoDTO;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.service.ImportacaoLancamentoService;
+import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.UsuarioService;
+
+/**
+ * Importa lançamentos em lotes: cada lote é persistido em uma transação própria,
+ * com inserts agrupados em batch JDBC do tamanho do lote. Linhas inválidas são
+ * rejeitadas individualmente e a importação continua; um lote que o banco recusa
+ * é regravado linha a linha, e só as linhas recusadas são relatadas.
+ */
+@Service
+public class ImportacaoLancamentoServiceImpl implements ImportacaoLancamentoService {
+
+	static final int MAXIMO_ERROS_DETALHADOS = 1000;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private LancamentoService lancamentoService;
+	private UsuarioService usuarioService;
+	private TransactionTemplate transacao;
+	private int tamanhoLote;
+
+
+	public ImportacaoLancamentoServiceImpl(LancamentoService lancamentoService,
+			UsuarioService usuarioService,
+			PlatformTransactionManager transactionManager,
+			@Value("${minhasfinancas.importacao.tamanho-lote:500}") int tamanhoLote) {
+
+		this.lancamentoService = lancamentoService;
+		this.usuarioService = usuarioService;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.tamanhoLote = tamanhoLote;
+	}
+
+
+
+	@Override
+	public ResultadoImportacaoDTO importar(Usuario usuario, Iterator<LancamentoDTO> linhas) {
+
+		long inicio = System.nanoTime();
+		ResultadoImportacaoDTO resultado = new ResultadoImportacaoDTO();
+		List<Lancamento> lote = new ArrayList<>(tamanhoLote);
+		List<Integer> linhasDoLote = new ArrayList<>(tamanhoLote);
+		int numeroLinha = 0;
+
+		while (linhas.hasNext()) {
+
+			numeroLinha++;
+			try {
+				Lancamento lancamento = converter(linhas.next(), usuario);
+				lancamentoService.validar(lancamento);
+				lote.add(lancamento);
+				linhasDoLote.add(numeroLinha);
+			} catch (RegraNegocioException e) {
+				registrarErro(resultado, numeroLinha, e.getMessage());
+			}
+
+			if (lote.size() == tamanhoLote) {
+				gravar(usuario, lote, linhasDoLote, resultado);
+				lote.clear();
+				linhasDoLote.clear();
+			}
+		}
+
+		if (!lote.isEmpty()) {
+			gravar(usuario, lote, linhasDoLote, resultado);
+		}
+
+		long duracaoNanos = Math.max(System.nanoTime() - inicio, 1);
+		resultado.setTotalLinhas(numeroLinha);
+		resultado.setDuracaoMs(duracaoNanos / 1_000_000);
+		resultado.setLinhasPorSegundo(resultado.getImportadas() * 1e9 / duracaoNanos);
+		return resultado;
+	}
+
+
+
+	private void gravar(Usuario usuario, List<Lancamento> lote, List<Integer> linhas, ResultadoImportacaoDTO resultado) {
+
+		try {
+			transacao.execute( status -> {
+
+				entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+				Usuario referencia = usuarioService.obterReferencia(usuario.getId());
+
+				for (Lancamento lancamento : lote) {
+					lancamento.setUsuario(referencia);
+				}
+				lancamentoService.salvarEmLote(lote);
+
+				entityManager.flush();
+				entityManager.clear();
+				return null;
+			});
+			resultado.setImportadas(resultado.getImportadas() + lote.size());
+		} catch (RuntimeException e) {
+
+			// um lançamento que o banco recusa derruba o lote inteiro; um a um, só ele fica de fora
+			for (int i = 0; i < lote.size(); i++) {
+				Lancamento lancamento = lote.get(i);
+				lancamento.setId(null);
+				try {
+					transacao.execute( status -> {
+						lancamento.setUsuario(usuarioService.obterReferencia(usuario.getId()));
+						return lancamentoService.salvar(lancamento);
+					});
+					resultado.setImportadas(resultado.getImportadas() + 1);
+				} catch (RuntimeException erro) {
+					registrarErro(resultado, linhas.get(i), erro.getMessage());
+				}
+			}
+		}
+	}
+
+
+
+	private void registrarErro(ResultadoImportacaoDTO resultado, int linha, String mensagem) {
+
+		resultado.setRejeitadas(resultado.getRejeitadas() + 1);
+		adicionarErro(resultado, linha, mensagem);
+	}
+
+
+
+	private void adicionarErro(ResultadoImportacaoDTO resultado, int linha, String mensagem) {
+
+		if (resultado.getErros().size() < MAXIMO_ERROS_DETALHADOS) {
+			resultado.getErros().add(new ErroImportacaoDTO(linha, mensagem));
+		}
+	}
+
+
+
+	private Lancamento converter(LancamentoDTO dto, Usuario usuario) {
+
+		Lancamento lancamento = new Lancamento();
+
+		lancamento.setDescricao(dto.getDescricao());
+		lancamento.setAno(dto.getAno());
+		lancamento.setMes(dto.getMes());
+		lancamento.setValor(dto.getValor());
+		lancamento.setUsuario(usuario);
+
+		if (dto.getTipo() != null) {
+			try {
+				lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+			} catch (IllegalArgumentException e) {
+				throw new RegraNegocioException("Tipo de Lançamento inválido: " + dto.getTipo() + ".");
+			}
+		}
+
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,307 @@
+package com.imatiello.minhasfinancas.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.imatiello.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.imatiello.minhasfinancas.exception.FilaCheiaException;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.enums.SituacaoIngestao;
+import com.imatiello.minhasfinancas.service.IngestaoLancamentoService;
+import com.imatiello.minhasfinancas.service.LancamentoService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ingestão assíncrona: os lançamentos validados entram numa fila limitada e uma única
+ * thread os grava em lotes, com {@link LancamentoService#salvarEmLote}, uma transação
+ * por lote. O lote é o que estiver na fila quando a thread acorda (até o tamanho máximo),
+ * então sob rajada os commits se agrupam sozinhos e sem carga nada fica esperando.
+ *
+ * Com a fila cheia, quem enfileira espera um pouco e então recebe {@link FilaCheiaException}.
+ * No encerramento do contexto a fila para de aceitar e é esvaziada antes de o banco fechar,
+ * sem prazo: tudo o que foi aceito é gravado, e a cada aviso-encerramento o log mostra
+ * quanto ainda falta.
+ *
+ * Uma falha transitória do banco (conexão, timeout, deadlock) não rejeita ninguém: o mesmo
+ * lote é tentado de novo, com espera crescente até espera-retentativa, e enquanto isso a
+ * fila enche e segura quem enfileira. Só é REJEITADO o lançamento que o banco recusa.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "minhasfinancas.ingestao", name = "habilitada", havingValue = "true")
+public class IngestaoLancamentoServiceImpl implements IngestaoLancamentoService, SmartLifecycle {
+
+	private static final class Pendente {
+		
+		private final String id;
+		private final Lancamento lancamento;
+		
+		private Pendente(String id, Lancamento lancamento) {
+			this.id = id;
+			this.lancamento = lancamento;
+		}
+	}
+
+	private static final long ESPERA_INICIAL_MS = 100;
+
+	private LancamentoService lancamentoService;
+	private BlockingQueue<Pendente> fila;
+	private Cache<String, SituacaoIngestaoDTO> situacoes;
+	private int tamanhoLote;
+	private Duration esperaMaxima;
+	private Duration avisoEncerramento;
+	private Duration esperaRetentativa;
+
+	// quem passou pela verificação de aceitando e ainda não terminou de oferecer à fila
+	private AtomicInteger enfileirando = new AtomicInteger();
+	private volatile boolean aceitando;
+	private volatile boolean executando;
+	private Thread gravador;
+
+
+	public IngestaoLancamentoServiceImpl(LancamentoService lancamentoService,
+			MeterRegistry registry,
+			@Value("${minhasfinancas.ingestao.capacidade:10000}") int capacidade,
+			@Value("${minhasfinancas.ingestao.tamanho-lote:500}") int tamanhoLote,
+			@Value("${minhasfinancas.ingestao.espera-maxima:100ms}") Duration esperaMaxima,
+			@Value("${minhasfinancas.ingestao.aviso-encerramento:10s}") Duration avisoEncerramento,
+			@Value("${minhasfinancas.ingestao.espera-retentativa:5s}") Duration esperaRetentativa) {
+
+		this.lancamentoService = lancamentoService;
+		this.fila = new ArrayBlockingQueue<>(capacidade);
+		this.situacoes = Caffeine.newBuilder()
+				.maximumSize(capacidade * 10L)
+				.expireAfterWrite(Duration.ofMinutes(10))
+				.build();
+		this.tamanhoLote = tamanhoLote;
+		this.esperaMaxima = esperaMaxima;
+		this.avisoEncerramento = avisoEncerramento;
+		this.esperaRetentativa = esperaRetentativa;
+
+		Gauge.builder("minhasfinancas.ingestao.fila", fila, BlockingQueue::size)
+			.description("Lançamentos aceitos e ainda não gravados")
+			.register(registry);
+	}
+
+
+
+	@Override
+	public String enfileirar(Lancamento lancamento) {
+
+		enfileirando.incrementAndGet();
+		try {
+			if (!aceitando) {
+				throw new FilaCheiaException("A ingestão está sendo encerrada. Tente novamente.");
+			}
+			return oferecer(lancamento);
+		} finally {
+			enfileirando.decrementAndGet();
+		}
+	}
+
+
+
+	private String oferecer(Lancamento lancamento) {
+
+		lancamento.setId(null);
+		lancamentoService.validar(lancamento);
+
+		// registrada antes de entrar na fila, para que a gravação nunca seja sobrescrita
+		String id = UUID.randomUUID().toString();
+		situacoes.put(id, situacao(id, SituacaoIngestao.NA_FILA, null, null));
+
+		boolean aceito;
+		try {
+			aceito = fila.offer(new Pendente(id, lancamento), esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			aceito = false;
+		}
+
+		if (!aceito) {
+			situacoes.invalidate(id);
+			throw new FilaCheiaException("A fila de ingestão está cheia. Tente novamente.");
+		}
+		return id;
+	}
+
+
+
+	@Override
+	public Optional<SituacaoIngestaoDTO> obterSituacao(String id) {
+
+		return Optional.ofNullable(situacoes.getIfPresent(id));
+	}
+
+
+
+	private void executar() {
+
+		List<Pendente> lote = new ArrayList<>(tamanhoLote);
+		// no encerramento, só para depois que ninguém mais pode entrar na fila e ela esvaziou
+		while (executando || enfileirando.get() > 0 || !fila.isEmpty()) {
+			try {
+				Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+				if (primeiro == null) {
+					continue;
+				}
+				lote.add(primeiro);
+				fila.drainTo(lote, tamanhoLote - 1);
+				gravar(lote);
+			} catch (InterruptedException e) {
+				log.warn("Gravação da ingestão interrompida com {} lançamentos na fila", fila.size());
+				return;
+			} catch (RuntimeException e) {
+				log.error("Falha inesperada na gravação da ingestão", e);
+			} finally {
+				lote.clear();
+			}
+		}
+	}
+
+
+
+	private void gravar(List<Pendente> lote) throws InterruptedException {
+
+		List<Lancamento> lancamentos = new ArrayList<>(lote.size());
+		for (Pendente pendente : lote) {
+			lancamentos.add(pendente.lancamento);
+		}
+
+		try {
+			comRetentativas( () -> {
+				lancamentos.forEach( lancamento -> lancamento.setId(null) );
+				return lancamentoService.salvarEmLote(lancamentos);
+			});
+			for (Pendente pendente : lote) {
+				situacoes.put(pendente.id, situacao(pendente.id, SituacaoIngestao.GRAVADO,
+						pendente.lancamento.getId(), null));
+			}
+		} catch (RuntimeException e) {
+
+			// um lançamento que o banco recusa derruba o lote inteiro; um a um, só ele fica de fora
+			log.warn("Lote de {} lançamentos recusado, gravando um a um: {}", lote.size(), e.getMessage());
+			for (Pendente pendente : lote) {
+				try {
+					Lancamento salvo = comRetentativas( () -> {
+						pendente.lancamento.setId(null);
+						return lancamentoService.salvar(pendente.lancamento);
+					});
+					situacoes.put(pendente.id, situacao(pendente.id, SituacaoIngestao.GRAVADO, salvo.getId(), null));
+				} catch (RuntimeException erro) {
+					situacoes.put(pendente.id, situacao(pendente.id, SituacaoIngestao.REJEITADO, null,
+							erro.getMessage()));
+				}
+			}
+		}
+	}
+
+
+
+	// a espera dobra a cada falha transitória; as demais falhas voltam para quem chamou
+	private <T> T comRetentativas(Supplier<T> gravacao) throws InterruptedException {
+
+		long espera = Math.min(ESPERA_INICIAL_MS, esperaRetentativa.toMillis());
+		for (int tentativa = 1; ; tentativa++) {
+			try {
+				return gravacao.get();
+			} catch (RuntimeException e) {
+				if (!transitoria(e)) {
+					throw e;
+				}
+				log.warn("Falha transitória na gravação da ingestão (tentativa {}), repetindo em {} ms: {}",
+						tentativa, espera, e.getMessage());
+				Thread.sleep(espera);
+				espera = Math.min(espera * 2, esperaRetentativa.toMillis());
+			}
+		}
+	}
+
+
+
+	private static boolean transitoria(Throwable erro) {
+
+		for (Throwable causa = erro; causa != null; causa = causa.getCause() == causa ? null : causa.getCause()) {
+			if (causa instanceof TransientDataAccessException
+					|| causa instanceof DataAccessResourceFailureException
+					|| causa instanceof CannotCreateTransactionException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+
+	private SituacaoIngestaoDTO situacao(String id, SituacaoIngestao situacao, Long lancamento, String mensagem) {
+
+		return new SituacaoIngestaoDTO(id, situacao.name(), lancamento, mensagem);
+	}
+
+
+
+	@Override
+	public void start() {
+
+		aceitando = true;
+		executando = true;
+		gravador = new Thread(this::executar, "ingestao-lancamentos");
+		// a JVM não sai enquanto houver lançamentos aceitos e não gravados
+		gravador.setDaemon(false);
+		gravador.start();
+	}
+
+
+
+	@Override
+	public void stop() {
+
+		aceitando = false;
+		executando = false;
+
+		boolean interrompido = false;
+		while (gravador.isAlive()) {
+			try {
+				gravador.join(avisoEncerramento.toMillis());
+			} catch (InterruptedException e) {
+				interrompido = true;
+			}
+			if (gravador.isAlive()) {
+				log.warn("Encerramento aguardando a gravação de {} lançamentos da ingestão", fila.size());
+			}
+		}
+		if (interrompido) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+
+	@Override
+	public boolean isRunning() {
+
+		return executando;
+	}
+
+}
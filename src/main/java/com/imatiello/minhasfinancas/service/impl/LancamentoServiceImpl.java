@@ -1,34 +1,80 @@
 package com.imatiello.minhasfinancas.service.impl;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.ExampleMatcher.StringMatcher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.PaginaDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
+import com.imatiello.minhasfinancas.model.Centavos;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
 import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
 import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.ChaveLancamento;
+import com.imatiello.minhasfinancas.model.repository.EstadoLancamento;
+import com.imatiello.minhasfinancas.model.repository.IndiceTextualLancamentos;
 import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
+import com.imatiello.minhasfinancas.model.repository.TermosPesquisa;
 import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.ResumoMensalService;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
 
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService{
 
+	static final int LIMITE_PADRAO = 50;
+	static final int LIMITE_MAXIMO = 500;
+	static final int TAMANHO_LOTE_EXPORTACAO = 500;
+	static final int TAMANHO_LOTE_STATUS = 500;
+	static final int TAMANHO_LOTE_SALDOS = 500;
+
 	private LancamentoRepository repository;
+	private SaldoUsuarioService saldoUsuarioService;
+	private ResumoMensalService resumoMensalService;
+	private IndiceTextualLancamentos indiceTextual;
+	private ApplicationEventPublisher eventos;
 	
 	
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	public LancamentoServiceImpl(LancamentoRepository repository, SaldoUsuarioService saldoUsuarioService,
+			ResumoMensalService resumoMensalService, IndiceTextualLancamentos indiceTextual,
+			ApplicationEventPublisher eventos) {
 		
 		this.repository= repository;
+		this.saldoUsuarioService= saldoUsuarioService;
+		this.resumoMensalService= resumoMensalService;
+		this.indiceTextual= indiceTextual;
+		this.eventos= eventos;
 		
 	}
 	
@@ -40,6 +86,9 @@ public class LancamentoServiceImpl implements LancamentoService{
 		
 		validar(lancamento);
 		lancamento.setStatus(StatusLancamento.PENDENTE);
+		saldoUsuarioService.aplicarDelta(idUsuario(lancamento), lancamento.getTipo(), lancamento.getValor());
+		somarResumo(lancamento);
+		eventos.publishEvent(new LancamentosAlteradosEvent(idUsuario(lancamento)));
 		return repository.save(lancamento);
 	}
 	
@@ -47,27 +96,108 @@ public class LancamentoServiceImpl implements LancamentoService{
 	
 	
 
+	/**
+	 * Grava lançamentos já validados numa única transação: o saldo e o resumo mensal
+	 * recebem um delta por usuário e tipo (e por mês, no resumo), e não um por lançamento.
+	 * Os usuários do lote são todos travados de uma vez, antes do primeiro delta, para que
+	 * dois lotes concorrentes com usuários em comum não se bloqueiem mutuamente.
+	 */
+	@Override
+	@Transactional
+	public List<Lancamento> salvarEmLote(List<Lancamento> lancamentos) {
+		
+		Map<Long, List<Lancamento>> porUsuario = new TreeMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			lancamento.setStatus(StatusLancamento.PENDENTE);
+			porUsuario.computeIfAbsent(idUsuario(lancamento), id -> new ArrayList<>()).add(lancamento);
+		}
+		
+		saldoUsuarioService.bloquearTodos(porUsuario.keySet());
+		porUsuario.forEach( (idUsuario, doUsuario) -> {
+			
+			Map<TipoLancamento, long[]> porTipo = new EnumMap<>(TipoLancamento.class);
+			Map<List<Object>, List<Lancamento>> porMes = new LinkedHashMap<>();
+			for (Lancamento lancamento : doUsuario) {
+				long[] total = porTipo.computeIfAbsent(lancamento.getTipo(), tipo -> new long[1]);
+				total[0] = Centavos.somar(total[0], Centavos.de(lancamento.getValor()));
+				porMes.computeIfAbsent(Arrays.asList(lancamento.getAno(), lancamento.getMes(), lancamento.getTipo()),
+						chave -> new ArrayList<>()).add(lancamento);
+			}
+			
+			porTipo.forEach( (tipo, total) -> saldoUsuarioService.aplicarDelta(idUsuario, tipo, Centavos.paraReais(total[0])) );
+			porMes.values().forEach( doMes -> {
+				Lancamento primeiro = doMes.get(0);
+				long total = 0;
+				for (Lancamento lancamento : doMes) {
+					total = Centavos.somar(total, Centavos.de(lancamento.getValor()));
+				}
+				resumoMensalService.aplicar(idUsuario, primeiro.getAno(), primeiro.getMes(), primeiro.getTipo(),
+						StatusLancamento.PENDENTE, Centavos.paraReais(total), doMes.size());
+			});
+			eventos.publishEvent(new LancamentosAlteradosEvent(idUsuario));
+		});
+		
+		return repository.saveAll(lancamentos);
+	}
+	
+	
+	
 	@Override
 	@Transactional
 	public Lancamento atualizar(Lancamento lancamento) {
 	
+		return gravar(lancamento, StatusLancamento.PENDENTE);
+	}
+	
+	
+	
+	// estorna do saldo e do resumo o estado persistido do lançamento e aplica o novo, já no status informado
+	private Lancamento gravar(Lancamento lancamento, StatusLancamento status) {
+		
 		Objects.requireNonNull(lancamento.getId());
 		
-		lancamento.setStatus(StatusLancamento.PENDENTE);
+		lancamento.setStatus(status);
 		validar(lancamento);
+		
+		bloquearDonos(lancamento).ifPresent(this::estornarSaldo);
+		saldoUsuarioService.aplicarDelta(idUsuario(lancamento), lancamento.getTipo(), lancamento.getValor());
+		somarResumo(lancamento);
+		eventos.publishEvent(new LancamentosAlteradosEvent(idUsuario(lancamento)));
+		
 		return repository.save(lancamento);
 	}
 
 	
 	
 	
+	@Override
+	@Transactional
+	public Lancamento atualizar(Lancamento lancamento, long versaoEsperada) {
+		
+		Objects.requireNonNull(lancamento.getId());
+		
+		// a versão conferida é a do dono atual do lançamento, não a do que veio na requisição
+		Long idUsuario = bloquearDonos(lancamento)
+				.map(EstadoLancamento::getIdUsuario)
+				.orElseThrow( () -> new RegraNegocioException("Lançamento não encontrado na Base de Dados.") );
+		saldoUsuarioService.verificarVersao(idUsuario, versaoEsperada);
+		
+		return atualizar(lancamento);
+	}
+
+	
+	
+	
 	@Override
 	@Transactional
 	public void deletar(Lancamento lancamento) {
 		
 		Objects.requireNonNull(lancamento.getId());
 		
+		bloquearDonos(lancamento).ifPresent(this::estornarSaldo);
+		
 		repository.delete(lancamento);
+		eventos.publishEvent(new LancamentosAlteradosEvent(idUsuario(lancamento)));
 		
 	}
 
@@ -89,16 +219,150 @@ public class LancamentoServiceImpl implements LancamentoService{
 
 	
 	
+	@Override
+	@Transactional(readOnly = true)
+	public List<LancamentoDTO> buscarProjecoes(Lancamento lancamentoFiltro) {
+		
+		return repository.buscarProjecoes(lancamentoFiltro);
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> buscarCampos(Lancamento lancamentoFiltro, Set<CampoLancamento> campos) {
+		
+		if (campos.isEmpty()) {
+			throw new RegraNegocioException("Informe ao menos um campo.");
+		}
+		return repository.buscarCampos(lancamentoFiltro, campos);
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public PaginaDTO<LancamentoDTO> buscarPagina(Lancamento lancamentoFiltro, String cursor, Integer limite) {
+		
+		int tamanho = limite == null ? LIMITE_PADRAO : limite;
+		if (tamanho < 1 || tamanho > LIMITE_MAXIMO) {
+			throw new RegraNegocioException("Informe um limite entre 1 e " + LIMITE_MAXIMO + ".");
+		}
+		
+		// busca um a mais para saber se existe próxima página
+		List<LancamentoDTO> itens = repository.buscarAPartirDe(lancamentoFiltro, decodificarCursor(cursor), tamanho + 1);
+		
+		String proximoCursor = null;
+		if (itens.size() > tamanho) {
+			itens = itens.subList(0, tamanho);
+			proximoCursor = codificarCursor(itens.get(tamanho - 1));
+		}
+		
+		return new PaginaDTO<>(itens, tamanho, proximoCursor);
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<LancamentoDTO> pesquisar(Long idUsuario, String termos, Integer limite) {
+		
+		if (idUsuario == null) {
+			throw new RegraNegocioException("Informe um Usuário.");
+		}
+		
+		List<String> termosPesquisa = TermosPesquisa.extrair(termos);
+		if (termosPesquisa.isEmpty()) {
+			throw new RegraNegocioException("Informe os termos da pesquisa.");
+		}
+		
+		int tamanho = limite == null ? LIMITE_PADRAO : limite;
+		if (tamanho < 1 || tamanho > LIMITE_MAXIMO) {
+			throw new RegraNegocioException("Informe um limite entre 1 e " + LIMITE_MAXIMO + ".");
+		}
+		
+		List<Long> ids = indiceTextual.pesquisar(idUsuario, termosPesquisa, tamanho);
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		
+		// o índice devolve os ids por relevância; a projeção volta sem ordem
+		Map<Long, Integer> posicoes = new HashMap<>();
+		for (int i = 0; i < ids.size(); i++) {
+			posicoes.put(ids.get(i), i);
+		}
+		List<LancamentoDTO> itens = repository.buscarPorIds(idUsuario, ids);
+		itens.sort(Comparator.comparing( item -> posicoes.get(item.getId()) ));
+		return itens;
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public void exportar(Lancamento lancamentoFiltro, Consumer<LancamentoDTO> consumidor) {
+		
+		repository.percorrer(lancamentoFiltro, TAMANHO_LOTE_EXPORTACAO, consumidor);
+	}
+
+	
+	
 	
 	
 
 	@Override
+	@Transactional
 	public void atulizarStatus(Lancamento lancamento, StatusLancamento status) {
 		
+		gravar(lancamento, status);
+	}
+
+
+
+	@Override
+	@Transactional
+	public int atualizarStatusEmLote(Lancamento lancamentoFiltro, List<Long> ids, StatusLancamento status) {
 		
-		lancamento.setStatus(status);
+		Objects.requireNonNull(status);
 		
-		atualizar(lancamento);
+		// a restrição por usuário garante que só os lançamentos dele sejam alterados
+		if (lancamentoFiltro.getUsuario() == null || lancamentoFiltro.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um Usuário.");
+		}
+		
+		Long idUsuario = lancamentoFiltro.getUsuario().getId();
+		saldoUsuarioService.bloquear(idUsuario);
+		
+		// os totais que mudam de status são lidos antes de cada UPDATE e aplicados ao
+		// resumo só no fim, porque atualizarStatus limpa o contexto de persistência
+		List<ResumoMensal> movidos = new ArrayList<>();
+		int alterados = 0;
+		if (ids == null) {
+			movidos.addAll(repository.resumirAlteracaoDeStatus(lancamentoFiltro, null, status));
+			alterados = repository.atualizarStatus(lancamentoFiltro, null, status);
+		} else {
+			// um id repetido em dois lotes seria contado duas vezes no resumo
+			List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+			for (int inicio = 0; inicio < distintos.size(); inicio += TAMANHO_LOTE_STATUS) {
+				List<Long> lote = distintos.subList(inicio, Math.min(inicio + TAMANHO_LOTE_STATUS, distintos.size()));
+				movidos.addAll(repository.resumirAlteracaoDeStatus(lancamentoFiltro, lote, status));
+				alterados += repository.atualizarStatus(lancamentoFiltro, lote, status);
+			}
+		}
+		
+		for (ResumoMensal movido : movidos) {
+			resumoMensalService.aplicar(movido.getIdUsuario(), movido.getAno(), movido.getMes(), movido.getTipo(),
+					movido.getStatus(), movido.getTotal().negate(), -movido.getQuantidade());
+			resumoMensalService.aplicar(movido.getIdUsuario(), movido.getAno(), movido.getMes(), movido.getTipo(),
+					status, movido.getTotal(), movido.getQuantidade());
+		}
+		
+		// o status não entra no saldo, mas muda a versão dos dados do usuário
+		if (alterados > 0) {
+			saldoUsuarioService.registrarAlteracao(idUsuario);
+			eventos.publishEvent(new LancamentosAlteradosEvent(idUsuario));
+		}
+		return alterados;
 	}
 
 
@@ -125,6 +389,11 @@ public class LancamentoServiceImpl implements LancamentoService{
 		if (lancamento.getValor()==null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1) {
 			throw new RegraNegocioException("Informe um Valor Válido.");
 		}
+		try {
+			Centavos.de(lancamento.getValor());
+		}catch (ArithmeticException e) {
+			throw new RegraNegocioException("Informe um Valor com no máximo duas casas decimais.");
+		}
 		if (lancamento.getTipo() == null) {
 			throw new RegraNegocioException("Informe um Tipo de Lançamento.");
 		}
@@ -145,21 +414,109 @@ public class LancamentoServiceImpl implements LancamentoService{
 	@Transactional(readOnly = true)
 	public BigDecimal obterSaldoPorUsuario(Long id) {
 	
-		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuario
-				(id, TipoLancamento.RECEITA);
+		return saldoUsuarioService.obterSaldo(id);
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public void obterSaldosPorUsuarios(Collection<Long> idsUsuarios, Consumer<SaldoUsuarioDTO> consumidor) {
+		
+		List<Long> distintos = new ArrayList<>(new TreeSet<>(idsUsuarios));
+		for (int inicio = 0; inicio < distintos.size(); inicio += TAMANHO_LOTE_SALDOS) {
+			List<Long> lote = distintos.subList(inicio, Math.min(inicio + TAMANHO_LOTE_SALDOS, distintos.size()));
+			saldoUsuarioService.obterSaldos(lote).forEach(consumidor);
+		}
+	}
+	
+	
+	
+	@Override
+	@Transactional(readOnly = true)
+	public void obterSaldosPorUsuarios(Long idInicial, Long idFinal, Consumer<SaldoUsuarioDTO> consumidor) {
 		
-		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuario
-				(id, TipoLancamento.DESPESA);
+		// por chave: cada lote começa depois do último usuário do anterior
+		Long apos = idInicial - 1;
+		List<SaldoUsuarioDTO> lote;
+		do {
+			lote = saldoUsuarioService.obterSaldosAPartirDe(apos, idFinal, TAMANHO_LOTE_SALDOS);
+			lote.forEach(consumidor);
+			if (!lote.isEmpty()) {
+				apos = lote.get(lote.size() - 1).getUsuario();
+			}
+		} while (lote.size() == TAMANHO_LOTE_SALDOS);
+	}
+	
+	
+	
+	/**
+	 * Trava de uma vez o dono persistido do lançamento e o informado, que diferem quando ele
+	 * troca de usuário: travados um de cada vez, duas trocas em sentidos opostos esperariam
+	 * uma pela outra. O dono só é conhecido depois da leitura, por isso o estado é relido com
+	 * as travas; se outra transação o mudou nesse intervalo, a escrita é recusada.
+	 */
+	private Optional<EstadoLancamento> bloquearDonos(Lancamento lancamento) {
 		
-		if (receitas==null) {
-			receitas=BigDecimal.ZERO;
+		Long anterior = repository.obterEstadoPersistido(lancamento.getId())
+				.map(EstadoLancamento::getIdUsuario)
+				.orElse(null);
+		saldoUsuarioService.bloquearTodos(Arrays.asList(idUsuario(lancamento), anterior));
+		
+		Optional<EstadoLancamento> persistido = repository.obterEstadoPersistido(lancamento.getId());
+		if (!Objects.equals(anterior, persistido.map(EstadoLancamento::getIdUsuario).orElse(null))) {
+			throw new VersaoDesatualizadaException("O lançamento foi alterado por outra requisição.");
 		}
-		if (despesas==null) {
-			
-			despesas=BigDecimal.ZERO;
+		return persistido;
+	}
+	
+	
+	
+	private void estornarSaldo(EstadoLancamento anterior) {
+		
+		// se o lançamento trocou de usuário, o anterior também foi alterado
+		eventos.publishEvent(new LancamentosAlteradosEvent(anterior.getIdUsuario()));
+		saldoUsuarioService.aplicarDelta(anterior.getIdUsuario(), anterior.getTipo(), anterior.getValor().negate());
+		resumoMensalService.aplicar(anterior.getIdUsuario(), anterior.getAno(), anterior.getMes(), anterior.getTipo(),
+				anterior.getStatus(), anterior.getValor().negate(), -1);
+	}
+	
+	
+	
+	private void somarResumo(Lancamento lancamento) {
+		
+		resumoMensalService.aplicar(idUsuario(lancamento), lancamento.getAno(), lancamento.getMes(),
+				lancamento.getTipo(), lancamento.getStatus(), lancamento.getValor(), 1);
+	}
+	
+	
+	
+	private String codificarCursor(LancamentoDTO ultimo) {
+		
+		String chave = ultimo.getAno() + ":" + ultimo.getMes() + ":" + ultimo.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	
+	private ChaveLancamento decodificarCursor(String cursor) {
+		
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			return new ChaveLancamento(Integer.valueOf(partes[0]), Integer.valueOf(partes[1]), Long.valueOf(partes[2]));
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new RegraNegocioException("Cursor de paginação inválido.");
 		}
+	}
+	
+	
+	
+	private Long idUsuario(Lancamento lancamento) {
 		
-		return receitas.subtract(despesas);
+		return lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
 	}
 	
 
@@ -0,0 +1,176 @@
+package com.imatiello.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.imatiello.minhasfinancas.api.dto.ResumoMensalDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.Centavos;
+import com.imatiello.minhasfinancas.model.entity.ChaveResumoMensal;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.ResumoMensalRepository;
+import com.imatiello.minhasfinancas.service.ResumoMensalService;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
+
+/**
+ * Mantém os totais mensais de cada usuário por tipo e status em {@link ResumoMensal}.
+ *
+ * Os deltas chegam das mesmas transações que escrevem os lançamentos e passam pela
+ * trava do usuário em {@link SaldoUsuarioService}, como o saldo. Linhas que chegam a
+ * zero lançamentos são removidas, para que o resumo de um ano nunca passe de
+ * 12 meses x tipos x status.
+ */
+@Service
+public class ResumoMensalServiceImpl implements ResumoMensalService {
+
+	private ResumoMensalRepository repository;
+	private SaldoUsuarioService saldoUsuarioService;
+
+
+	public ResumoMensalServiceImpl(ResumoMensalRepository repository, SaldoUsuarioService saldoUsuarioService) {
+
+		this.repository = repository;
+		this.saldoUsuarioService = saldoUsuarioService;
+	}
+
+
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void aplicar(Long idUsuario, Integer ano, Integer mes, TipoLancamento tipo, StatusLancamento status,
+			BigDecimal valor, long quantidade) {
+
+		// mesma regra da carga inicial (V5): lançamentos sem chave completa não entram no resumo
+		if (idUsuario == null || ano == null || mes == null || tipo == null || status == null) {
+			return;
+		}
+
+		saldoUsuarioService.bloquear(idUsuario);
+
+		ResumoMensal resumo = repository.findById(new ChaveResumoMensal(idUsuario, ano, mes, tipo, status))
+				.orElse(null);
+
+		if (resumo == null) {
+			repository.save(ResumoMensal.builder()
+					.idUsuario(idUsuario).ano(ano).mes(mes).tipo(tipo).status(status)
+					.total(valor)
+					.quantidade(quantidade)
+					.build());
+			return;
+		}
+
+		resumo.setTotal(resumo.getTotal().add(valor));
+		resumo.setQuantidade(resumo.getQuantidade() + quantidade);
+
+		if (resumo.getQuantidade() == 0) {
+			repository.delete(resumo);
+		} else {
+			repository.save(resumo);
+		}
+	}
+
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ResumoMensalDTO> obterMensal(Long idUsuario, Integer ano) {
+
+		return repository.obterMensal(idUsuario, ano);
+	}
+
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<ResumoMensalDTO> obterAnual(Long idUsuario) {
+
+		return repository.obterAnual(idUsuario);
+	}
+
+
+
+	@Override
+	public void validarPeriodo(YearMonth inicio, YearMonth fim, Set<StatusLancamento> status) {
+
+		if (inicio == null || fim == null) {
+			throw new RegraNegocioException("Informe o período.");
+		}
+		if (inicio.isAfter(fim)) {
+			throw new RegraNegocioException("O mês inicial deve ser anterior ou igual ao mês final.");
+		}
+		if (status == null || status.isEmpty() || status.contains(StatusLancamento.CANCELADO)) {
+			throw new RegraNegocioException("Informe os status considerados no saldo: EFETIVADO e/ou PENDENTE.");
+		}
+	}
+
+
+
+	/**
+	 * Uma consulta para o saldo anterior ao período e uma, ordenada, com o movimento
+	 * de cada mês que teve lançamentos; o saldo é acumulado enquanto ela é lida, e os
+	 * meses sem movimento são preenchidos com o saldo corrente.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void percorrerSaldos(Long idUsuario, YearMonth inicio, YearMonth fim, Set<StatusLancamento> status,
+			Consumer<SaldoMensalDTO> consumidor) {
+
+		validarPeriodo(inicio, fim, status);
+
+		BigDecimal anterior = repository.obterSaldoAntesDe(idUsuario, status, codificar(inicio));
+		long saldo = anterior == null ? 0 : Centavos.de(anterior);
+
+		YearMonth proximo = inicio;
+		try (Stream<SaldoMensalDTO> movimentos = repository.percorrerMovimento(idUsuario, status,
+				inicio.getYear(), fim.getYear(), codificar(inicio), codificar(fim))) {
+
+			Iterator<SaldoMensalDTO> meses = movimentos.iterator();
+			while (meses.hasNext()) {
+
+				SaldoMensalDTO movimento = meses.next();
+				YearMonth mes = YearMonth.of(movimento.getAno(), movimento.getMes());
+				for (; proximo.isBefore(mes); proximo = proximo.plusMonths(1)) {
+					consumidor.accept(semMovimento(proximo, saldo));
+				}
+
+				saldo = Centavos.subtrair(Centavos.somar(saldo, Centavos.de(movimento.getReceitas())),
+						Centavos.de(movimento.getDespesas()));
+				movimento.setSaldo(Centavos.paraReais(saldo));
+				consumidor.accept(movimento);
+				proximo = mes.plusMonths(1);
+			}
+		}
+
+		for (; !proximo.isAfter(fim); proximo = proximo.plusMonths(1)) {
+			consumidor.accept(semMovimento(proximo, saldo));
+		}
+	}
+
+
+
+	private SaldoMensalDTO semMovimento(YearMonth mes, long saldo) {
+
+		return new SaldoMensalDTO(mes.getYear(), mes.getMonthValue(), BigDecimal.ZERO, BigDecimal.ZERO,
+				Centavos.paraReais(saldo));
+	}
+
+
+
+	private int codificar(YearMonth mes) {
+
+		return mes.getYear() * 100 + mes.getMonthValue();
+	}
+
+}
@@ -0,0 +1,348 @@
+package com.imatiello.minhasfinancas.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+import com.imatiello.minhasfinancas.config.EscritasRecentes;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
+import com.imatiello.minhasfinancas.model.entity.SaldoUsuario;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
+import com.imatiello.minhasfinancas.model.repository.SaldoUsuarioRepository;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
+
+/**
+ * Mantém o saldo de cada usuário materializado em {@link SaldoUsuario}.
+ *
+ * As escritas de um mesmo usuário são serializadas por uma listra de trava
+ * (mantida até o fim da transação) e pelo lock de linha no banco, de modo que
+ * deltas concorrentes não se percam.
+ *
+ * A versão de cada usuário, base das ETags, também fica em memória: o commit de cada escrita
+ * publica a versão que gravou, e a listagem repetida não precisa voltar ao banco para validá-la.
+ */
+@Service
+public class SaldoUsuarioServiceImpl implements SaldoUsuarioService {
+
+	private static final int LISTRAS = 64;
+
+	private SaldoUsuarioRepository repository;
+	private LancamentoRepository lancamentoRepository;
+	private TransactionTemplate transacao;
+	private TransactionTemplate leitura;
+	private ReentrantLock[] listras;
+	private Cache<Long, Long> versoesConfirmadas;
+	private ObjectProvider<EscritasRecentes> escritasRecentes;
+
+
+	public SaldoUsuarioServiceImpl(SaldoUsuarioRepository repository,
+			LancamentoRepository lancamentoRepository,
+			PlatformTransactionManager transactionManager,
+			ObjectProvider<EscritasRecentes> escritasRecentes,
+			@Value("${minhasfinancas.cache.versoes:maximumSize=100000,expireAfterWrite=10m}") String especificacao) {
+
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.transacao = new TransactionTemplate(transactionManager);
+		this.leitura = new TransactionTemplate(transactionManager);
+		this.leitura.setReadOnly(true);
+		this.escritasRecentes = escritasRecentes;
+		this.versoesConfirmadas = Caffeine.from(especificacao).build();
+		this.listras = new ReentrantLock[LISTRAS];
+		for (int i = 0; i < LISTRAS; i++) {
+			listras[i] = new ReentrantLock();
+		}
+	}
+
+
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void bloquear(Long idUsuario) {
+
+		bloquearTodos(Collections.singleton(idUsuario));
+	}
+
+
+
+	/**
+	 * Toma as listras dos usuários em ordem crescente de índice: a ordem dos ids não é a
+	 * das listras (2 e 66 caem na mesma), e duas transações que tomassem as mesmas listras
+	 * em ordens diferentes esperariam uma pela outra para sempre. Uma transação que escreve
+	 * para vários usuários precisa travar todos numa única chamada, antes do primeiro delta.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void bloquearTodos(Collection<Long> idsUsuarios) {
+
+		SortedSet<Integer> indices = new TreeSet<>();
+		for (Long idUsuario : idsUsuarios) {
+			if (idUsuario != null) {
+				indices.add(idUsuario.hashCode() & (LISTRAS - 1));
+			}
+		}
+
+		for (int indice : indices) {
+
+			ReentrantLock trava = listras[indice];
+			trava.lock();
+
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					trava.unlock();
+				}
+			});
+		}
+	}
+
+
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void aplicarDelta(Long idUsuario, TipoLancamento tipo, BigDecimal valor) {
+
+		SaldoUsuario saldo = obterParaAtualizacao(idUsuario);
+
+		if (tipo == TipoLancamento.RECEITA) {
+			saldo.setReceitas(saldo.getReceitas().add(valor));
+		} else {
+			saldo.setDespesas(saldo.getDespesas().add(valor));
+		}
+		saldo.setVersao(saldo.getVersao() + 1);
+
+		repository.save(saldo);
+		publicarVersao(idUsuario, saldo.getVersao());
+	}
+
+
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void registrarAlteracao(Long idUsuario) {
+
+		SaldoUsuario saldo = obterParaAtualizacao(idUsuario);
+		saldo.setVersao(saldo.getVersao() + 1);
+		repository.save(saldo);
+		publicarVersao(idUsuario, saldo.getVersao());
+	}
+
+
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void verificarVersao(Long idUsuario, long versaoEsperada) {
+
+		// com a trava, nenhuma outra escrita do usuário entra até o fim da transação
+		bloquear(idUsuario);
+
+		long versaoAtual = repository.obterParaAtualizacao(idUsuario)
+				.map(SaldoUsuario::getVersao)
+				.orElse(0L);
+
+		if (versaoAtual != versaoEsperada) {
+			throw new VersaoDesatualizadaException("Os lançamentos do usuário foram alterados por outra requisição.");
+		}
+	}
+
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public BigDecimal obterSaldo(Long idUsuario) {
+
+		return repository.findById(idUsuario)
+				.orElseGet( () -> calcular(idUsuario) )
+				.getSaldo();
+	}
+
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<SaldoUsuarioDTO> obterSaldos(Collection<Long> idsUsuarios) {
+
+		return completar(repository.obterMaterializados(idsUsuarios));
+	}
+
+
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<SaldoUsuarioDTO> obterSaldosAPartirDe(Long aposIdUsuario, Long ateIdUsuario, int limite) {
+
+		return completar(repository.obterMaterializadosAPartirDe(aposIdUsuario, ateIdUsuario,
+				PageRequest.of(0, limite)));
+	}
+
+
+
+	// os usuários sem saldo materializado são calculados juntos, numa única soma agrupada
+	private List<SaldoUsuarioDTO> completar(List<SaldoUsuarioDTO> saldos) {
+
+		Map<Long, SaldoUsuarioDTO> pendentes = new HashMap<>();
+		for (SaldoUsuarioDTO saldo : saldos) {
+			if (saldo.getSaldo() == null) {
+				saldo.setSaldo(BigDecimal.ZERO);
+				pendentes.put(saldo.getUsuario(), saldo);
+			}
+		}
+
+		if (!pendentes.isEmpty()) {
+			for (SaldoUsuarioDTO calculado : lancamentoRepository.obterSaldosPorUsuarios(pendentes.keySet())) {
+				pendentes.get(calculado.getUsuario()).setSaldo(calculado.getSaldo());
+			}
+		}
+
+		return saldos;
+	}
+
+
+
+	/**
+	 * Dentro de uma transação vale a versão que ela enxerga. Fora dela, a versão em memória:
+	 * a memória só aceita versões maiores, então uma leitura que termina depois do commit de
+	 * uma escrita não faz a versão voltar. Logo depois de uma escrita a leitura pode ter vindo
+	 * de uma réplica atrasada, e só é guardada se a sessão estiver presa ao primário.
+	 */
+	@Override
+	public long obterVersao(Long idUsuario) {
+
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return lerVersao(idUsuario);
+		}
+
+		Long conhecida = versoesConfirmadas.getIfPresent(idUsuario);
+		if (conhecida != null) {
+			return conhecida;
+		}
+
+		long versao = leitura.execute( status -> lerVersao(idUsuario) );
+
+		EscritasRecentes escritas = escritasRecentes.getIfAvailable();
+		if (escritas == null || escritas.podeGuardar(idUsuario)) {
+			return versoesConfirmadas.asMap().merge(idUsuario, versao, Math::max);
+		}
+		return versao;
+	}
+
+
+
+	// sem linha materializada o usuário nunca teve escrita registrada: versão 0
+	private long lerVersao(Long idUsuario) {
+
+		return repository.obterVersao(idUsuario).orElse(0L);
+	}
+
+
+
+	// a versão nova só vale para os leitores depois do commit; um rollback a descarta
+	private void publicarVersao(Long idUsuario, long versao) {
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				versoesConfirmadas.asMap().merge(idUsuario, versao, Math::max);
+			}
+		});
+	}
+
+
+
+	@Override
+	public List<Long> reconciliar() {
+
+		Set<Long> idsUsuarios = new TreeSet<>(lancamentoRepository.obterIdsDeUsuariosComLancamentos());
+		repository.findAll().forEach( saldo -> idsUsuarios.add(saldo.getIdUsuario()) );
+
+		List<Long> divergentes = new ArrayList<>();
+		for (Long idUsuario : idsUsuarios) {
+
+			Boolean corrigido = transacao.execute( status -> reconciliar(idUsuario) );
+			if (Boolean.TRUE.equals(corrigido)) {
+				divergentes.add(idUsuario);
+			}
+		}
+
+		return divergentes;
+	}
+
+
+
+	private boolean reconciliar(Long idUsuario) {
+
+		bloquear(idUsuario);
+
+		SaldoUsuario calculado = calcular(idUsuario);
+		SaldoUsuario armazenado = repository.obterParaAtualizacao(idUsuario).orElse(null);
+
+		if (armazenado == null) {
+			repository.save(calculado);
+			return false;
+		}
+
+		if (armazenado.getReceitas().compareTo(calculado.getReceitas()) == 0
+				&& armazenado.getDespesas().compareTo(calculado.getDespesas()) == 0) {
+			return false;
+		}
+
+		armazenado.setReceitas(calculado.getReceitas());
+		armazenado.setDespesas(calculado.getDespesas());
+		armazenado.setVersao(armazenado.getVersao() + 1);
+		repository.save(armazenado);
+		publicarVersao(idUsuario, armazenado.getVersao());
+		return true;
+	}
+
+
+
+	private SaldoUsuario obterParaAtualizacao(Long idUsuario) {
+
+		bloquear(idUsuario);
+
+		return repository.obterParaAtualizacao(idUsuario)
+				.orElseGet( () -> calcular(idUsuario) );
+	}
+
+
+
+	private SaldoUsuario calcular(Long idUsuario) {
+
+		BigDecimal receitas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuario
+				(idUsuario, TipoLancamento.RECEITA);
+
+		BigDecimal despesas = lancamentoRepository.obterSaldoPorTipoLancamentoEUsuario
+				(idUsuario, TipoLancamento.DESPESA);
+
+		return SaldoUsuario.builder()
+				.idUsuario(idUsuario)
+				.receitas(receitas == null ? BigDecimal.ZERO : receitas)
+				.despesas(despesas == null ? BigDecimal.ZERO : despesas)
+				.versao(0L)
+				.build();
+	}
+
+}
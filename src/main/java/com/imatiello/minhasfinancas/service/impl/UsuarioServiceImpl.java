@@ -3,9 +3,12 @@ package com.imatiello.minhasfinancas.service.impl;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.imatiello.minhasfinancas.config.CacheConfiguration;
 import com.imatiello.minhasfinancas.exception.ErroAutenticacao;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
@@ -43,6 +46,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 
 	@Override
 	@Transactional
+	@CachePut(cacheNames = CacheConfiguration.USUARIOS, key = "#result.id")
 	public Usuario salvarUsuario(Usuario usuario) {
 		validarEmail(usuario.getEmail());
 		return repository.save(usuario);
@@ -57,7 +61,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 		}
 	}
 
+	// usuários quase não mudam; ids inexistentes não são guardados
 	@Override
+	@Cacheable(cacheNames = CacheConfiguration.USUARIOS, unless = "#result == null")
 	public Optional<Usuario> obterPorId(Long id) {
 		
 		
@@ -70,6 +76,13 @@ public class UsuarioServiceImpl implements UsuarioService {
 		return repository.findById(id);
 	}
 
+	// proxy sem SELECT, para associar o usuário a uma entidade que vai ser gravada
+	@Override
+	public Usuario obterReferencia(Long id) {
+		
+		return repository.getOne(id);
+	}
+
 	
 	
 }
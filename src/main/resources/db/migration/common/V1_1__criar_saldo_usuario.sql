@@ -0,0 +1,7 @@
+-- Fora da V1 porque os bancos anteriores ao Flyway entram no baseline da versão 1 e não
+-- a executam; nos que já tinham a tabela (criada pelo ddl-auto) esta migração não muda nada.
+create table if not exists financas.saldo_usuario (
+	id_usuario bigint primary key,
+	receitas numeric(19, 2) not null,
+	despesas numeric(19, 2) not null
+);
@@ -0,0 +1,21 @@
+-- O schema financas é criado pelo Flyway (spring.flyway.schemas). Tipos e tamanhos
+-- são os que o ddl-auto gerava, para que bancos antigos (baseline) fiquem iguais aos novos.
+
+create table financas.usuario (
+	id bigint generated by default as identity primary key,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255)
+);
+
+create table financas.lancamento (
+	id bigint primary key,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	valor numeric(19, 2),
+	tipo varchar(255),
+	status varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	data_cadastro timestamp
+);
@@ -0,0 +1,8 @@
+-- obterSaldoPorTipoLancamentoEUsuario: soma lida só do índice
+create index idx_lancamento_usuario_tipo on financas.lancamento (id_usuario, tipo, valor);
+
+-- buscar, buscarPagina e exportar: filtro por usuário/ano/mês na ordem (ano, mes, id)
+create index idx_lancamento_usuario_periodo on financas.lancamento (id_usuario, ano, mes, id);
+
+-- findByEmail / existsByEmail
+create index idx_usuario_email on financas.usuario (email);
@@ -0,0 +1,18 @@
+-- totais mensais por usuário, tipo e status, mantidos pelas escritas em lançamentos;
+-- a chave primária já atende a leitura por (id_usuario, ano)
+create table financas.resumo_mensal (
+	id_usuario bigint not null,
+	ano integer not null,
+	mes integer not null,
+	tipo varchar(255) not null,
+	status varchar(255) not null,
+	total numeric(19, 2) not null,
+	quantidade bigint not null,
+	primary key (id_usuario, ano, mes, tipo, status)
+);
+
+insert into financas.resumo_mensal (id_usuario, ano, mes, tipo, status, total, quantidade)
+select id_usuario, ano, mes, tipo, status, sum(valor), count(*)
+from financas.lancamento
+where id_usuario is not null and ano is not null and mes is not null and tipo is not null and status is not null
+group by id_usuario, ano, mes, tipo, status;
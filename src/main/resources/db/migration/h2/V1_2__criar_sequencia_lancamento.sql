@@ -0,0 +1,2 @@
+-- allocationSize do @SequenceGenerator de Lancamento; no H2 o banco sempre nasce vazio
+create sequence if not exists financas.lancamento_seq start with 1 increment by 50;
@@ -0,0 +1,10 @@
+-- allocationSize do @SequenceGenerator de Lancamento. Num banco do baseline os ids vieram da
+-- antiga coluna identity (ou de uma sequência criada pelo ddl-auto), e a sequência precisa
+-- continuar acima deles: o otimizador pooled do Hibernate usa os 49 ids anteriores ao valor
+-- obtido, por isso o próximo nextval devolve o maior id já usado mais 50.
+create sequence if not exists financas.lancamento_seq start with 1 increment by 50;
+
+select setval('financas.lancamento_seq',
+		greatest((select last_value from financas.lancamento_seq),
+				(select coalesce(max(id), 0) from financas.lancamento)) + 50,
+		false);
@@ -0,0 +1,4 @@
+-- IndiceTextualPostgres: a expressão precisa ser idêntica à usada na consulta
+-- "if not exists": bancos antigos já podem ter o índice criado na inicialização
+create index if not exists idx_lancamento_descricao_fts on financas.lancamento
+	using gin (to_tsvector('portuguese', coalesce(descricao, '')));
@@ -0,0 +1,13 @@
+-- IndiceTextualPostgres: a pesquisa ignora acentos, como IndiceInvertidoLancamentos no perfil de teste.
+-- unaccent() é STABLE (o dicionário é resolvido pelo search_path) e não pode entrar num índice;
+-- o invólucro fixa o dicionário pelo schema e pode se declarar IMMUTABLE.
+create extension if not exists unaccent with schema public;
+
+create or replace function financas.sem_acentos(texto text) returns text as $$
+	select public.unaccent('public.unaccent'::regdictionary, texto)
+$$ language sql immutable strict parallel safe;
+
+-- a expressão precisa ser idêntica à usada na consulta
+drop index if exists financas.idx_lancamento_descricao_fts;
+create index idx_lancamento_descricao_fts on financas.lancamento
+	using gin (to_tsvector('portuguese', financas.sem_acentos(coalesce(descricao, ''))));
@@ -0,0 +1,40 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+public class CodificacaoTest {
+
+	@Test
+	public void deveEscolherPeloAcceptRespeitandoAQualidade() {
+		
+		assertThat(Codificacao.negociar(MediaType.parseMediaTypes("application/x-jackson-smile")))
+			.isEqualTo(Codificacao.SMILE);
+		assertThat(Codificacao.negociar(MediaType.parseMediaTypes("application/json;q=0.5, application/cbor")))
+			.isEqualTo(Codificacao.CBOR);
+		assertThat(Codificacao.negociar(MediaType.parseMediaTypes("application/cbor;q=0.2, application/json")))
+			.isEqualTo(Codificacao.JSON);
+	}
+	
+	
+	@Test
+	public void deveResponderJsonQuandoOClienteAceitaQualquerCoisa() {
+		
+		assertThat(Codificacao.negociar(Collections.emptyList())).isEqualTo(Codificacao.JSON);
+		assertThat(Codificacao.negociar(MediaType.parseMediaTypes("*/*"))).isEqualTo(Codificacao.JSON);
+		assertThat(Codificacao.negociar(MediaType.parseMediaTypes("application/*, text/html"))).isEqualTo(Codificacao.JSON);
+	}
+	
+	
+	@Test
+	public void deveResponderJsonQuandoOAcceptForMalFormado() {
+		
+		assertThat(Codificacao.negociar("json")).isEqualTo(Codificacao.JSON);
+		assertThat(Codificacao.negociar("application/cbor, text/")).isEqualTo(Codificacao.JSON);
+		assertThat(Codificacao.negociar("application/cbor")).isEqualTo(Codificacao.CBOR);
+	}
+}
@@ -0,0 +1,121 @@
+package com.imatiello.minhasfinancas.api.exportacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.importacao.LeitorCsvLancamentos;
+
+public class FormatoExportacaoTest {
+
+	
+	@Test
+	public void deveEscreverUmLancamentoPorLinhaEmNdjson() throws Exception {
+		
+		String saida = exportar(FormatoExportacao.NDJSON, criarLancamento("salario"), criarLancamento("aluguel"));
+		
+		assertThat(saida.split("\n")).containsExactly(
+				"{\"id\":1,\"descricao\":\"salario\",\"mes\":1,\"ano\":2020,\"valor\":10.50,\"usuario\":7,\"tipo\":\"RECEITA\",\"status\":\"PENDENTE\"}",
+				"{\"id\":1,\"descricao\":\"aluguel\",\"mes\":1,\"ano\":2020,\"valor\":10.50,\"usuario\":7,\"tipo\":\"RECEITA\",\"status\":\"PENDENTE\"}");
+	}
+	
+	
+	@Test
+	public void deveEscaparDescricaoNoCsv() throws Exception {
+		
+		String saida = exportar(FormatoExportacao.CSV, criarLancamento("luz, \"agua\""));
+		
+		assertThat(saida).isEqualTo(EscritorCsv.CABECALHO + "\r\n"
+				+ "1,\"luz, \"\"agua\"\"\",1,2020,10.50,7,RECEITA,PENDENTE\r\n");
+	}
+	
+	
+	@Test
+	public void deveReimportarOCsvExportadoComQuebrasDeLinhaNaDescricao() throws Exception {
+		
+		//cenario
+		byte[] csv = exportarBytes(FormatoExportacao.CSV, criarLancamento("luz\r\n\"agua\", gas"),
+				criarLancamento("primeira\n\nterceira"), criarLancamento("salario"));
+		
+		//execução
+		List<String> descricoes = new ArrayList<>();
+		new LeitorCsvLancamentos(new ByteArrayInputStream(csv))
+			.forEachRemaining( lancamento -> descricoes.add(lancamento.getDescricao()) );
+		
+		//verificação
+		assertThat(descricoes).containsExactly("luz\r\n\"agua\", gas", "primeira\n\nterceira", "salario");
+	}
+	
+	
+	@Test
+	public void deveEscreverUmArraySmileMenorQueONdjson() throws Exception {
+		
+		LancamentoDTO[] lancamentos = new LancamentoDTO[100];
+		for (int i = 0; i < lancamentos.length; i++) {
+			lancamentos[i] = criarLancamento(i % 2 == 0 ? "salario" : "aluguel");
+		}
+		
+		byte[] smile = exportarBytes(FormatoExportacao.SMILE, lancamentos);
+		byte[] ndjson = exportarBytes(FormatoExportacao.NDJSON, lancamentos);
+		
+		List<LancamentoDTO> lidos = new ObjectMapper(new SmileFactory())
+				.readValue(smile, new TypeReference<List<LancamentoDTO>>() {});
+		assertThat(lidos).hasSize(100).containsOnly(criarLancamento("salario"), criarLancamento("aluguel"));
+		assertThat(smile.length).isLessThan(ndjson.length / 3);
+	}
+	
+	
+	@Test
+	public void deveEscreverUmArrayCbor() throws Exception {
+		
+		byte[] cbor = exportarBytes(FormatoExportacao.CBOR, criarLancamento("salario"));
+		
+		List<LancamentoDTO> lidos = new ObjectMapper(new CBORFactory())
+				.readValue(cbor, new TypeReference<List<LancamentoDTO>>() {});
+		assertThat(lidos).containsExactly(criarLancamento("salario"));
+	}
+	
+	
+	private String exportar(FormatoExportacao formato, LancamentoDTO... lancamentos) throws Exception {
+		
+		return new String(exportarBytes(formato, lancamentos), StandardCharsets.UTF_8);
+	}
+	
+	
+	private byte[] exportarBytes(FormatoExportacao formato, LancamentoDTO... lancamentos) throws Exception {
+		
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+		try (EscritorLancamentos escritor = formato.criarEscritor(saida)) {
+			for (LancamentoDTO lancamento : lancamentos) {
+				escritor.accept(lancamento);
+			}
+		}
+		return saida.toByteArray();
+	}
+	
+	
+	private LancamentoDTO criarLancamento(String descricao) {
+		return LancamentoDTO.builder()
+				.id(1l)
+				.descricao(descricao)
+				.mes(1)
+				.ano(2020)
+				.valor(new BigDecimal("10.50"))
+				.usuario(7l)
+				.tipo("RECEITA")
+				.status("PENDENTE")
+				.build();
+	}
+}
@@ -0,0 +1,418 @@
+package com.imatiello.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Conta os comandos SQL de cada requisição para garantir que as leituras
+ * não caiam em N+1 conforme o número de lançamentos cresce.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class LancamentoResourceTest {
+
+	static final String API = "/api/lancamentos";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	EntityManager entityManager;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	Usuario usuario;
+	
+	// testes sem transação confirmam o cenário do @Before e precisam removê-lo
+	boolean confirmado;
+	
+	
+	@Before
+	public void cadastrarLancamentos() {
+		
+		usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		for (int i = 0; i < 20; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamentoRepository.save(lancamento);
+		}
+		lancamentoRepository.flush();
+	}
+	
+	
+	@After
+	public void removerConfirmados() {
+		
+		if (!confirmado) {
+			return;
+		}
+		new TransactionTemplate(transactionManager).execute( status -> {
+			for (String entidade : new String[] { "ResumoMensal", "SaldoUsuario" }) {
+				entityManager.createQuery("delete from " + entidade + " e where e.idUsuario = :id")
+					.setParameter("id", usuario.getId()).executeUpdate();
+			}
+			entityManager.createQuery("delete from Lancamento l where l.usuario.id = :id")
+				.setParameter("id", usuario.getId()).executeUpdate();
+			return entityManager.createQuery("delete from Usuario u where u.id = :id")
+				.setParameter("id", usuario.getId()).executeUpdate();
+		});
+	}
+	
+	
+	@Test
+	public void deveBuscarOsLancamentosComUmaUnicaConsulta() throws Exception {
+		
+		//cenario: a primeira chamada coloca o usuário no cache
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()));
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () -> executar(
+				MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+					.accept(MediaType.APPLICATION_JSON)) );
+		
+		//verificação: a versão para a ETag e uma única consulta de lançamentos
+		assertThat(sqls).hasSize(2);
+		assertThat(sqls.get(0)).contains("financas.saldo_usuario");
+		assertThat(sqls.get(1)).contains("financas.lancamento").doesNotContain("financas.usuario");
+	}
+	
+	
+	@Test
+	public void deveLerApenasAsColunasDosCamposPedidos() throws Exception {
+		
+		//cenario
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()));
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () ->
+				mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+						.param("fields", "id,valor,mes,status"))
+					.andExpect(MockMvcResultMatchers.status().isOk())
+					.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(20))
+					.andExpect(MockMvcResultMatchers.jsonPath("$[0].valor").value(10))
+					.andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("PENDENTE"))
+					.andExpect(MockMvcResultMatchers.jsonPath("$[0].descricao").doesNotExist())
+					.andExpect(MockMvcResultMatchers.jsonPath("$[0].usuario").doesNotExist()) );
+		
+		//verificação
+		assertThat(sqls).hasSize(2);
+		assertThat(sqls.get(1)).contains("financas.lancamento")
+			.doesNotContain("financas.usuario").doesNotContain("descricao").doesNotContain("tipo");
+		
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.param("fields", "id,senha"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+	
+	
+	@Test
+	public void deveCarregarOLancamentoSemOUsuarioAoAtualizarOStatus() throws Exception {
+		
+		//cenario
+		Long id = lancamentoRepository.buscarProjecoes(filtroDoUsuario()).get(0).getId();
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () -> executar(
+				MockMvcRequestBuilders.put(API + "/" + id + "/atualiza-status")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"status\":\"EFETIVADO\"}")) );
+		
+		//verificação
+		assertThat(sqls).noneMatch( sql -> sql.contains("financas.usuario") );
+	}
+	
+	
+	@Test
+	public void deveGravarOStatusInformado() throws Exception {
+		
+		//cenario
+		Long id = lancamentoRepository.buscarProjecoes(filtroDoUsuario()).get(0).getId();
+		
+		//execução
+		mvc.perform(MockMvcRequestBuilders.put(API + "/" + id + "/atualiza-status")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"EFETIVADO\"}"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.status").value("EFETIVADO"));
+		
+		//verificação: a consulta de projeções descarrega o contexto e lê o que foi gravado
+		assertThat(lancamentoRepository.buscarProjecoes(filtroDoUsuario()))
+			.filteredOn( lancamento -> lancamento.getId().equals(id) )
+			.extracting(LancamentoDTO::getStatus).containsExactly("EFETIVADO");
+	}
+	
+	
+	@Test
+	public void deveResponderNaoModificadoSemConsultarOsLancamentos() throws Exception {
+		
+		//cenario
+		String etag = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()))
+				.andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () ->
+				mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(MockMvcResultMatchers.status().isNotModified()) );
+		
+		//verificação
+		assertThat(sqls).noneMatch( sql -> sql.contains("financas.lancamento") );
+	}
+	
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void listagemRepetidaNaoDeveConsultarOBanco() throws Exception {
+		
+		//cenario: sem transação o cenário está confirmado e a primeira listagem enche os caches
+		confirmado = true;
+		String etag = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () -> executar(
+				MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())) );
+		
+		//verificação: nem a versão para a ETag vai ao banco
+		assertThat(sqls).isEmpty();
+		
+		// uma escrita confirmada publica a versão nova
+		Long id = lancamentoRepository.buscarProjecoes(filtroDoUsuario()).get(0).getId();
+		executar(MockMvcRequestBuilders.put(API + "/" + id + "/atualiza-status")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"EFETIVADO\"}"));
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+	}
+	
+	
+	@Test
+	public void paginaEPesquisaDevemFicarDentroDoOrcamentoDeSql() throws Exception {
+		
+		//cenario: usuário em cache e índice de pesquisa montado
+		executar(MockMvcRequestBuilders.get(API + "/pesquisa").param("usuario", usuario.getId().toString())
+				.param("q", "qualquer"));
+		
+		//execução e verificação: versão para a ETag + uma consulta, independente dos 20 lançamentos
+		OrcamentoSql.noMaximo(2, () -> executar(
+				MockMvcRequestBuilders.get(API + "/pagina").param("usuario", usuario.getId().toString())
+					.param("limite", "50")) );
+		OrcamentoSql.noMaximo(1, () -> executar(
+				MockMvcRequestBuilders.get(API + "/pesquisa").param("usuario", usuario.getId().toString())
+					.param("q", "qualquer")) );
+	}
+	
+	
+	@Test
+	public void deveAtualizarSomenteComIfMatchDaVersaoAtual() throws Exception {
+		
+		//cenario
+		Long id = lancamentoRepository.buscarProjecoes(filtroDoUsuario()).get(0).getId();
+		String etag = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String corpo = "{\"descricao\":\"alterado\",\"mes\":2,\"ano\":2020,\"valor\":15,"
+				+ "\"usuario\":" + usuario.getId() + ",\"tipo\":\"DESPESA\"}";
+		
+		//execução e verificação
+		mvc.perform(MockMvcRequestBuilders.put(API + "/" + id).contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, etag).content(corpo))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+		
+		// a atualização anterior mudou a versão, então a mesma ETag já não vale
+		mvc.perform(MockMvcRequestBuilders.put(API + "/" + id).contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, etag).content(corpo))
+			.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+	}
+	
+	
+	@Test
+	public void deveServirOResumoMensalDoAnoSemLerOsLancamentos() throws Exception {
+		
+		//cenario: lançamentos gravados pela API, que mantém o resumo
+		for (int mes = 1; mes <= 3; mes++) {
+			mvc.perform(MockMvcRequestBuilders.post(API).contentType(MediaType.APPLICATION_JSON)
+					.content("{\"descricao\":\"conta\",\"mes\":" + mes + ",\"ano\":2021,\"valor\":10,"
+							+ "\"usuario\":" + usuario.getId() + ",\"tipo\":\"DESPESA\"}"))
+				.andExpect(MockMvcResultMatchers.status().isCreated());
+		}
+		executar(MockMvcRequestBuilders.get(API + "/resumo/anual").param("usuario", usuario.getId().toString()));
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () -> mvc.perform(
+				MockMvcRequestBuilders.get(API + "/resumo/mensal").param("usuario", usuario.getId().toString())
+					.param("ano", "2021"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].quantidade").value(1)) );
+		
+		//verificação: a versão para a ETag e uma consulta ao resumo
+		assertThat(sqls).hasSize(2);
+		assertThat(sqls).noneMatch( sql -> sql.contains("financas.lancamento") );
+	}
+	
+	
+	@Test
+	public void deveAgregarPelasColunasSemVoltarAosLancamentos() throws Exception {
+		
+		//cenario: a primeira análise monta as colunas do usuário
+		mvc.perform(MockMvcRequestBuilders.get(API + "/analise").param("usuario", usuario.getId().toString()));
+		
+		//execução
+		List<String> sqls = OrcamentoSql.comandos( () -> mvc.perform(
+				MockMvcRequestBuilders.get(API + "/analise").param("usuario", usuario.getId().toString())
+					.param("agrupar", "tipo").param("status", "PENDENTE"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+					.andExpect(MockMvcResultMatchers.jsonPath("$[0].grupo").value("RECEITA"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].receitas").value(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].quantidade").value(20)) );
+		
+		//verificação
+		assertThat(sqls).noneMatch( sql -> sql.contains("financas.lancamento") );
+		mvc.perform(MockMvcRequestBuilders.get(API + "/analise").param("usuario", usuario.getId().toString())
+				.param("agrupar", "semana"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+	
+	
+	@Test
+	public void deveGerarETagsDiferentesParaCadaCodificacao() throws Exception {
+		
+		//cenario
+		String json = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString()))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String smile = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.accept("application/x-jackson-smile"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		
+		//execução e verificação: a ETag do JSON não valida a resposta em Smile
+		assertThat(smile).isNotEqualTo(json);
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.accept("application/x-jackson-smile").header(HttpHeaders.IF_NONE_MATCH, json))
+			.andExpect(MockMvcResultMatchers.status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.accept("application/x-jackson-smile").header(HttpHeaders.IF_NONE_MATCH, smile))
+			.andExpect(MockMvcResultMatchers.status().isNotModified());
+	}
+	
+	
+	@Test
+	public void deveNegociarSmileNaListagem() throws Exception {
+		
+		//execução
+		MvcResult smile = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.accept("application/x-jackson-smile"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("application/x-jackson-smile"))
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+			.andReturn();
+		MvcResult json = mvc.perform(MockMvcRequestBuilders.get(API).param("usuario", usuario.getId().toString())
+				.accept(MediaType.APPLICATION_JSON))
+			.andReturn();
+		
+		//verificação
+		byte[] corpo = smile.getResponse().getContentAsByteArray();
+		List<LancamentoDTO> lidos = new ObjectMapper(new SmileFactory())
+				.readValue(corpo, new TypeReference<List<LancamentoDTO>>() {});
+		assertThat(lidos).hasSize(20).allMatch( lancamento -> "RECEITA".equals(lancamento.getTipo()) );
+		assertThat(corpo.length).isLessThan(json.getResponse().getContentAsByteArray().length / 2);
+	}
+	
+	
+	@Test
+	public void deveTransmitirUmMesPorItemDoPeriodo() throws Exception {
+		
+		//execução: a série é gravada em outra thread, fora da transação do teste,
+		//então aqui só se verifica o formato; o acúmulo está em ResumoMensalServiceTest
+		MvcResult iniciada = mvc.perform(MockMvcRequestBuilders.get(API + "/saldos")
+				.param("usuario", usuario.getId().toString()).param("de", "2021-11").param("ate", "2022-01")
+				.param("status", "EFETIVADO"))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		
+		//verificação
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(iniciada))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[1].ano").value(2021))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[1].mes").value(12))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[2].ano").value(2022))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[2].saldo").value(0));
+		
+		// um Accept mal formado vale como ausente
+		MvcResult malFormado = mvc.perform(MockMvcRequestBuilders.get(API + "/saldos")
+				.param("usuario", usuario.getId().toString()).param("de", "2021-11").param("ate", "2022-01")
+				.header(HttpHeaders.ACCEPT, "json"))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(malFormado))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3));
+		
+		mvc.perform(MockMvcRequestBuilders.get(API + "/saldos").param("usuario", usuario.getId().toString())
+				.param("de", "2021-03").param("ate", "2021-01"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		mvc.perform(MockMvcRequestBuilders.get(API + "/saldos").param("usuario", usuario.getId().toString())
+				.param("de", "2021-01").param("ate", "2021-03").param("status", "CANCELADO"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+	
+	
+	private Lancamento filtroDoUsuario() {
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		return filtro;
+	}
+	
+	
+	private void executar(org.springframework.test.web.servlet.RequestBuilder requisicao) throws Exception {
+		
+		mvc.perform(requisicao)
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$..usuario.nome").doesNotExist());
+	}
+}
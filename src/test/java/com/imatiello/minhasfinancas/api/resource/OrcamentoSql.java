@@ -0,0 +1,40 @@
+package com.imatiello.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.imatiello.minhasfinancas.config.ContagemSql;
+
+/**
+ * Apoio para os testes de resource: mede os comandos SQL que chegam ao JDBC durante uma
+ * execução, para travar regressões de N+1 com "no máximo N comandos".
+ */
+public final class OrcamentoSql {
+
+	@FunctionalInterface
+	public interface Execucao {
+		void executar() throws Exception;
+	}
+	
+	
+	private OrcamentoSql() {
+	}
+	
+	
+	public static List<String> comandos(Execucao execucao) throws Exception {
+		
+		try (ContagemSql contagem = ContagemSql.iniciar()) {
+			execucao.executar();
+			return contagem.getComandos();
+		}
+	}
+	
+	
+	public static List<String> noMaximo(int maximo, Execucao execucao) throws Exception {
+		
+		List<String> comandos = comandos(execucao);
+		assertThat(comandos.size()).as("comandos SQL executados: %s", comandos).isLessThanOrEqualTo(maximo);
+		return comandos;
+	}
+}
@@ -0,0 +1,131 @@
+package com.imatiello.minhasfinancas.api.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.imatiello.minhasfinancas.service.LancamentoService;
+
+/**
+ * Orçamento de comandos SQL dos endpoints de usuário, contado no JDBC.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class UsuarioResourceSqlTest {
+
+	static final String API = "/api/usuarios";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	Usuario usuario;
+	
+	
+	@Before
+	public void cadastrarLancamentos() {
+		
+		usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		for (int i = 0; i < 20; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamentoRepository.save(lancamento);
+		}
+		lancamentoRepository.flush();
+	}
+	
+	
+	@Test
+	public void saldoNaoDeveCrescerComOsLancamentos() throws Exception {
+		
+		//cenario: a primeira chamada coloca o usuário no cache
+		executar(MockMvcRequestBuilders.get(API + "/" + usuario.getId() + "/saldo"));
+		
+		//execução e verificação: versão, saldo materializado e, sem ele, as duas somas por tipo
+		OrcamentoSql.noMaximo(4, () -> executar(MockMvcRequestBuilders.get(API + "/" + usuario.getId() + "/saldo")) );
+	}
+	
+	
+	@Test
+	public void autenticarDeveUsarUmaUnicaConsulta() throws Exception {
+		
+		String corpo = "{\"email\":\"" + usuario.getEmail() + "\",\"senha\":\"" + usuario.getSenha() + "\"}";
+		
+		OrcamentoSql.noMaximo(1, () -> executar(MockMvcRequestBuilders.post(API + "/autenticar")
+				.contentType(MediaType.APPLICATION_JSON).content(corpo)) );
+	}
+	
+	
+	@Test
+	public void saldosEmLoteNaoDevemCrescerComOsUsuarios() throws Exception {
+		
+		//cenario: metade dos usuários com saldo materializado
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Usuario outro = usuarioRepository.save(Usuario.builder().email("lote" + i + "@email.com").build());
+			ids.add(outro.getId());
+			if (i % 2 == 0) {
+				lancamentoService.salvar(lancamento(outro));
+			}
+		}
+		lancamentoRepository.flush();
+		List<SaldoUsuarioDTO> saldos = new ArrayList<>();
+		
+		//execução e verificação: o endpoint grava em outra thread, então o orçamento é medido
+		//no serviço: saldos materializados e uma soma agrupada para os demais
+		OrcamentoSql.noMaximo(2, () -> lancamentoService.obterSaldosPorUsuarios(ids, saldos::add) );
+		assertThat(saldos).hasSize(30);
+		
+		mvc.perform(MockMvcRequestBuilders.get(API + "/saldos").param("ids", "1,2").param("de", "1").param("ate", "2"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		mvc.perform(MockMvcRequestBuilders.get(API + "/saldos").param("de", "1").param("ate", "100"))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted());
+	}
+	
+	
+	private Lancamento lancamento(Usuario dono) {
+		
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(dono);
+		return lancamento;
+	}
+	
+	
+	private void executar(RequestBuilder requisicao) throws Exception {
+		mvc.perform(requisicao).andExpect(MockMvcResultMatchers.status().isOk());
+	}
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,6 +24,7 @@ import com.imatiello.minhasfinancas.exception.ErroAutenticacao;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
 import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.SaldoUsuarioService;
 import com.imatiello.minhasfinancas.service.UsuarioService;
 
 @RunWith(SpringRunner.class)
@@ -44,6 +46,12 @@ public class UsuarioResourceTeste {
 	@MockBean
 	LancamentoService lancamentoService;
 	
+	@MockBean
+	SaldoUsuarioService saldoUsuarioService;
+	
+	@MockBean
+	CacheManager cacheManager;
+	
 	@Test
 	public void deveAutenticarUmUsuario() throws Exception{
 		//cenario
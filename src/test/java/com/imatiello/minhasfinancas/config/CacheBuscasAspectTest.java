@@ -0,0 +1,174 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CacheBuscasAspectTest {
+
+	MeterRegistry registry = new SimpleMeterRegistry();
+	
+	LancamentoService alvo = Mockito.mock(LancamentoService.class);
+	
+	DefaultListableBeanFactory contexto = new DefaultListableBeanFactory();
+	
+	CacheBuscasAspect aspecto;
+	
+	LancamentoService service;
+	
+	
+	@Before
+	public void setUp() {
+		
+		Mockito.when(alvo.buscarProjecoes(Mockito.any())).thenAnswer( invocacao -> new ArrayList<>(Arrays.asList(
+				new LancamentoDTO(1l, "conta", 1, 2020, BigDecimal.TEN, 1l, "DESPESA", "PENDENTE"))) );
+	}
+	
+	
+	@Test
+	public void deveResponderUmFiltroJaConsultadoSemIrAoBanco() {
+		
+		//cenario
+		criar();
+		service.buscarProjecoes(filtro(1l, "Conta"));
+		
+		//execução
+		List<LancamentoDTO> lancamentos = service.buscarProjecoes(filtro(1l, "CONTA"));
+		
+		//verificação
+		assertThat(lancamentos).extracting(LancamentoDTO::getId).containsExactly(1l);
+		Mockito.verify(alvo, Mockito.times(1)).buscarProjecoes(Mockito.any());
+		assertThat(registry.get("minhasfinancas.busca.cache.acertos").gauge().value()).isEqualTo(0.5);
+		assertThat(registry.get("cache.gets").tag("name", "buscasLancamentos").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+	}
+	
+	
+	@Test
+	public void deveDescartarApenasOsResultadosDoUsuarioAlterado() {
+		
+		//cenario
+		criar();
+		service.buscarProjecoes(filtro(1l, null));
+		service.buscarProjecoes(filtro(2l, null));
+		
+		//execução
+		aspecto.invalidar(new LancamentosAlteradosEvent(1l));
+		service.buscarProjecoes(filtro(1l, null));
+		service.buscarProjecoes(filtro(2l, null));
+		
+		//verificação
+		Mockito.verify(alvo, Mockito.times(3)).buscarProjecoes(Mockito.any());
+		Mockito.verify(alvo, Mockito.times(2)).buscarProjecoes(Mockito.argThat(
+				filtro -> filtro.getUsuario().getId().equals(1l) ));
+	}
+	
+	
+	@Test
+	public void naoDeveGuardarOResultadoDeUmaConsultaCruzadaPorUmaEscrita() {
+		
+		//cenario: a escrita é confirmada enquanto a consulta está no banco
+		criar();
+		Mockito.when(alvo.buscarProjecoes(Mockito.any())).thenAnswer( invocacao -> {
+			aspecto.invalidar(new LancamentosAlteradosEvent(1l));
+			return new ArrayList<>();
+		});
+		service.buscarProjecoes(filtro(1l, null));
+		
+		//execução
+		service.buscarProjecoes(filtro(1l, null));
+		
+		//verificação
+		Mockito.verify(alvo, Mockito.times(2)).buscarProjecoes(Mockito.any());
+	}
+	
+	
+	@Test
+	public void naoDeveVoltarAUmResultadoAntigoQuandoAVersaoExpira() throws InterruptedException {
+		
+		//cenario
+		criar(Duration.ofMillis(200));
+		service.buscarProjecoes(filtro(1l, null));
+		aspecto.invalidar(new LancamentosAlteradosEvent(1l));
+		
+		//execução: a versão da escrita expira, mas o resultado anterior a ela expirou antes
+		Thread.sleep(300);
+		service.buscarProjecoes(filtro(1l, null));
+		
+		//verificação
+		Mockito.verify(alvo, Mockito.times(2)).buscarProjecoes(Mockito.any());
+	}
+	
+	
+	@Test
+	public void naoDeveGuardarLeiturasDaReplicaLogoDepoisDeUmaEscrita() {
+		
+		//cenario
+		EscritasRecentes escritas = new EscritasRecentes(new SessaoLeitura(Duration.ofMinutes(1)), Duration.ofMinutes(1));
+		contexto.registerSingleton("escritasRecentes", escritas);
+		criar();
+		escritas.registrar(new LancamentosAlteradosEvent(1l));
+		aspecto.invalidar(new LancamentosAlteradosEvent(1l));
+		
+		//execução
+		service.buscarProjecoes(filtro(1l, null));
+		service.buscarProjecoes(filtro(1l, null));
+		service.buscarProjecoes(filtro(2l, null));
+		service.buscarProjecoes(filtro(2l, null));
+		
+		//verificação
+		Mockito.verify(alvo, Mockito.times(3)).buscarProjecoes(Mockito.any());
+	}
+	
+	
+	@Test
+	public void deveEstimarOsBytesPelaQuantidadeEPelasDescricoes() {
+		
+		List<LancamentoDTO> curtos = Arrays.asList(LancamentoDTO.builder().descricao("a").build());
+		List<LancamentoDTO> longos = Arrays.asList(LancamentoDTO.builder().descricao("descricao longa").build());
+		
+		assertThat(CacheBuscasAspect.estimarBytes(longos)).isGreaterThan(CacheBuscasAspect.estimarBytes(curtos));
+		assertThat(CacheBuscasAspect.estimarBytes(Arrays.asList(curtos.get(0), curtos.get(0))))
+			.isGreaterThan(CacheBuscasAspect.estimarBytes(curtos));
+	}
+	
+	
+	private void criar() {
+		criar(Duration.ofMinutes(10));
+	}
+	
+	
+	private void criar(Duration validade) {
+		
+		aspecto = new CacheBuscasAspect(registry, contexto.getBeanProvider(SessaoLeitura.class),
+				contexto.getBeanProvider(EscritasRecentes.class), DataSize.ofMegabytes(1), validade);
+		AspectJProxyFactory fabrica = new AspectJProxyFactory(alvo);
+		fabrica.addAspect(aspecto);
+		service = fabrica.getProxy();
+	}
+	
+	
+	private Lancamento filtro(Long idUsuario, String descricao) {
+		return Lancamento.builder().usuario(Usuario.builder().id(idUsuario).build()).descricao(descricao).mes(1).build();
+	}
+}
@@ -0,0 +1,151 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.service.LancamentoService;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CoalescenciaAspectTest {
+
+	MeterRegistry registry = new SimpleMeterRegistry();
+	
+	LancamentoService alvo = Mockito.mock(LancamentoService.class);
+	
+	CoalescenciaAspect aspecto;
+	
+	LancamentoService service;
+	
+	ExecutorService executor = Executors.newFixedThreadPool(2);
+	
+	CountDownLatch iniciada = new CountDownLatch(1);
+	
+	CountDownLatch liberada = new CountDownLatch(1);
+	
+	AtomicInteger consultas = new AtomicInteger();
+	
+	
+	@Before
+	public void setUp() {
+		
+		aspecto = new CoalescenciaAspect(registry,
+				new DefaultListableBeanFactory().getBeanProvider(SessaoLeitura.class));
+		AspectJProxyFactory fabrica = new AspectJProxyFactory(alvo);
+		fabrica.addAspect(aspecto);
+		service = fabrica.getProxy();
+		
+		// a primeira consulta fica presa até o teste liberar; as seguintes respondem na hora
+		Mockito.when(alvo.obterSaldoPorUsuario(Mockito.anyLong())).thenAnswer( invocacao -> {
+			int consulta = consultas.incrementAndGet();
+			if (consulta == 1) {
+				iniciada.countDown();
+				liberada.await(5, TimeUnit.SECONDS);
+			}
+			return BigDecimal.valueOf(consulta);
+		});
+	}
+	
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	
+	@Test
+	public void deveCompartilharAConsultaEntreChamadasSimultaneas() throws Exception {
+		
+		//cenario
+		Future<BigDecimal> primeira = executor.submit( () -> service.obterSaldoPorUsuario(1l) );
+		iniciada.await(5, TimeUnit.SECONDS);
+		Future<BigDecimal> segunda = executor.submit( () -> service.obterSaldoPorUsuario(1l) );
+		aguardarCompartilhadas(1);
+		
+		//execução
+		liberada.countDown();
+		
+		//verificação
+		assertThat(primeira.get(5, TimeUnit.SECONDS)).isEqualTo(BigDecimal.ONE);
+		assertThat(segunda.get(5, TimeUnit.SECONDS)).isEqualTo(BigDecimal.ONE);
+		assertThat(consultas.get()).isEqualTo(1);
+		assertThat(registry.get(CoalescenciaAspect.CHAMADAS).tag("resultado", "executada").counter().count())
+			.isEqualTo(1);
+	}
+	
+	
+	@Test
+	public void deveConsultarDeNovoDepoisDeUmaEscritaDoUsuario() throws Exception {
+		
+		//cenario
+		Future<BigDecimal> anterior = executor.submit( () -> service.obterSaldoPorUsuario(1l) );
+		iniciada.await(5, TimeUnit.SECONDS);
+		
+		//execução
+		aspecto.invalidar(new LancamentosAlteradosEvent(1l));
+		BigDecimal posterior = service.obterSaldoPorUsuario(1l);
+		liberada.countDown();
+		
+		//verificação
+		assertThat(posterior).isEqualTo(BigDecimal.valueOf(2));
+		assertThat(anterior.get(5, TimeUnit.SECONDS)).isEqualTo(BigDecimal.ONE);
+		assertThat(consultas.get()).isEqualTo(2);
+	}
+	
+	
+	@Test
+	public void naoDeveCompartilharBuscasComFiltrosDiferentes() throws Exception {
+		
+		//cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		Lancamento janeiro = Lancamento.builder().usuario(usuario).mes(1).build();
+		Lancamento fevereiro = Lancamento.builder().usuario(usuario).mes(2).build();
+		Mockito.when(alvo.buscarProjecoes(Mockito.any())).thenAnswer( invocacao -> {
+			iniciada.countDown();
+			liberada.await(5, TimeUnit.SECONDS);
+			return new ArrayList<>();
+		});
+		Future<?> primeira = executor.submit( () -> service.buscarProjecoes(janeiro) );
+		iniciada.await(5, TimeUnit.SECONDS);
+		
+		//execução
+		Future<?> segunda = executor.submit( () -> service.buscarProjecoes(fevereiro) );
+		Mockito.verify(alvo, Mockito.timeout(5000).times(2)).buscarProjecoes(Mockito.any());
+		liberada.countDown();
+		
+		//verificação
+		primeira.get(5, TimeUnit.SECONDS);
+		segunda.get(5, TimeUnit.SECONDS);
+		assertThat(registry.get(CoalescenciaAspect.CHAMADAS).tag("resultado", "compartilhada").counter().count())
+			.isEqualTo(0);
+	}
+	
+	
+	private void aguardarCompartilhadas(int esperadas) throws InterruptedException {
+		
+		long limite = System.currentTimeMillis() + 5000;
+		while (registry.get(CoalescenciaAspect.CHAMADAS).tag("resultado", "compartilhada").counter().count() < esperadas
+				&& System.currentTimeMillis() < limite) {
+			Thread.sleep(5);
+		}
+	}
+}
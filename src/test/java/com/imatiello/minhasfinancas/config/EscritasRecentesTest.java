@@ -0,0 +1,28 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+public class EscritasRecentesTest {
+
+	EscritasRecentes escritas = new EscritasRecentes(new SessaoLeitura(Duration.ofMillis(50)), Duration.ofMillis(50));
+	
+	
+	@Test
+	public void naoDeveGuardarLeiturasDoUsuarioAteOAtrasoPassar() throws InterruptedException {
+		
+		//cenario
+		escritas.registrar(new LancamentosAlteradosEvent(1l));
+		
+		//execução e verificação
+		assertThat(escritas.podeGuardar(1l)).isFalse();
+		assertThat(escritas.podeGuardar(2l)).isTrue();
+		Thread.sleep(100);
+		assertThat(escritas.podeGuardar(1l)).isTrue();
+	}
+}
@@ -0,0 +1,176 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+
+/**
+ * Dois bancos H2 fazem o papel de primário e réplica. Não há replicação entre eles, então
+ * o que está só em um dos dois mostra para onde cada leitura foi.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"minhasfinancas.leitura.replicas[0].url=" + LeituraReplicaTest.URL_REPLICA,
+		"minhasfinancas.leitura.replicas[0].username=sa",
+		"minhasfinancas.leitura.replicas[0].password=sa",
+		"minhasfinancas.leitura.consulta-atraso=select coalesce(max(segundos), 0) from public.atraso_replica",
+		"minhasfinancas.leitura.intervalo-verificacao=1h" })
+public class LeituraReplicaTest {
+
+	static final String URL_REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas";
+	
+	@Autowired
+	DataSource dataSource;
+	
+	RoteamentoDataSource roteamento;
+	
+	@Autowired
+	SessaoLeitura sessaoLeitura;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	JdbcTemplate replica;
+	
+	
+	@Before
+	public void prepararReplica() throws SQLException {
+		
+		roteamento = dataSource.unwrap(RoteamentoDataSource.class);
+		
+		Flyway.configure().dataSource(URL_REPLICA, "sa", "sa").schemas("FINANCAS")
+			.locations("classpath:db/migration/common", "classpath:db/migration/h2").load().migrate();
+		
+		replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", "sa"));
+		replica.execute("create table if not exists public.atraso_replica (segundos int)");
+		replica.update("delete from public.atraso_replica");
+		
+		roteamento.verificarReplicas();
+		sessaoLeitura.encerrar();
+	}
+	
+	
+	@Test
+	public void transacoesSomenteLeituraDevemLerDaReplica() {
+		
+		//cenario
+		cadastrarNaReplica("replica@email.com");
+		
+		//execução e verificação
+		assertThat(leitura( () -> usuarioRepository.existsByEmail("replica@email.com") )).isTrue();
+		assertThat(escrita( () -> usuarioRepository.existsByEmail("replica@email.com") )).isFalse();
+	}
+	
+	
+	@Test
+	public void replicaAtrasadaDemaisNaoDeveReceberLeituras() {
+		
+		//cenario
+		cadastrarNaReplica("atrasada@email.com");
+		replica.update("insert into public.atraso_replica values (60)");
+		
+		//execução
+		roteamento.verificarReplicas();
+		
+		//verificação
+		assertThat(leitura( () -> usuarioRepository.existsByEmail("atrasada@email.com") )).isFalse();
+	}
+	
+	
+	@Test
+	public void deveLerAPropriaEscritaNaMesmaThread() {
+		
+		//cenario
+		escrita( () -> usuarioRepository.save(Usuario.builder().nome("nova").email("nova@email.com").build()) );
+		
+		//execução e verificação
+		assertThat(leitura( () -> usuarioRepository.existsByEmail("nova@email.com") )).isTrue();
+		
+		sessaoLeitura.encerrar();
+		assertThat(leitura( () -> usuarioRepository.existsByEmail("nova@email.com") )).isFalse();
+	}
+	
+	
+	@Test
+	public void cookieDeEscritaDeveLevarAsProximasLeiturasDoClienteAoPrimario() throws Exception {
+		
+		//cenario
+		String resposta = mvc.perform(MockMvcRequestBuilders.post("/api/usuarios")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"nome\":\"cliente\",\"email\":\"cliente@email.com\",\"senha\":\"1\"}"))
+			.andExpect(MockMvcResultMatchers.cookie().exists(SessaoLeitura.COOKIE))
+			.andReturn().getResponse().getContentAsString();
+		Long idUsuario = new ObjectMapper().readTree(resposta).get("id").asLong();
+		
+		Cookie escrita = mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"descricao\":\"luz\",\"mes\":1,\"ano\":2020,\"valor\":10,"
+						+ "\"usuario\":" + idUsuario + ",\"tipo\":\"DESPESA\"}"))
+			.andExpect(MockMvcResultMatchers.status().isCreated())
+			.andReturn().getResponse().getCookie(SessaoLeitura.COOKIE);
+		
+		//execução e verificação: com o cookie lê do primário; sem ele, da réplica
+		mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos").param("usuario", idUsuario.toString())
+				.cookie(escrita))
+			.andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)));
+		
+		mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos").param("usuario", idUsuario.toString()))
+			.andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(0)));
+	}
+	
+	
+	private void cadastrarNaReplica(String email) {
+		replica.update("insert into financas.usuario (nome, email, senha) values ('replica', ?, 'senha')", email);
+	}
+	
+	
+	private <T> T leitura(Supplier<T> execucao) {
+		
+		TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+		transacao.setReadOnly(true);
+		return transacao.execute( status -> execucao.get() );
+	}
+	
+	
+	private <T> T escrita(Supplier<T> execucao) {
+		return new TransactionTemplate(transactionManager).execute( status -> execucao.get() );
+	}
+}
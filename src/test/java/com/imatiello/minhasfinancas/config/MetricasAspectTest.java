@@ -0,0 +1,92 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.imatiello.minhasfinancas.exception.ErroAutenticacao;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+import com.imatiello.minhasfinancas.service.UsuarioService;
+import com.imatiello.minhasfinancas.service.impl.UsuarioServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MetricasAspectTest {
+
+	MeterRegistry registry = new SimpleMeterRegistry();
+	
+	UsuarioRepository repository = Mockito.mock(UsuarioRepository.class);
+	
+	UsuarioService service;
+	
+	
+	@Before
+	public void setUp() {
+		
+		MetricasAspect aspecto = new MetricasAspect(registry);
+		service = comAspecto(new UsuarioServiceImpl(comAspecto(repository, aspecto)), aspecto);
+	}
+	
+	
+	@Test
+	public void deveMedirOServicoEORepositorioComSucesso() {
+		
+		//cenario
+		Usuario usuario = Usuario.builder().email("email@email.com").senha("senha").build();
+		Mockito.when(repository.findByEmail("email@email.com")).thenReturn(Optional.of(usuario));
+		
+		//execução
+		service.autenticar("email@email.com", "senha");
+		
+		//verificação
+		assertThat(registry.get(MetricasAspect.SERVICO)
+				.tags("class", "UsuarioServiceImpl", "method", "autenticar", "endpoint", "none",
+						"outcome", "SUCCESS", "exception", "None")
+				.timer().count()).isEqualTo(1);
+		assertThat(registry.get(MetricasAspect.REPOSITORIO)
+				.tags("class", "UsuarioRepository", "method", "findByEmail", "outcome", "SUCCESS")
+				.timer().count()).isEqualTo(1);
+	}
+	
+	
+	@Test
+	public void deveMarcarErroDeAutenticacaoComoErroDoCliente() {
+		
+		//cenario
+		Mockito.when(repository.findByEmail(Mockito.anyString())).thenReturn(Optional.empty());
+		
+		//execução
+		Throwable erro = catchThrowable( () -> service.autenticar("email@email.com", "senha") );
+		
+		//verificação
+		assertThat(erro).isInstanceOf(ErroAutenticacao.class);
+		assertThat(registry.get(MetricasAspect.SERVICO)
+				.tags("method", "autenticar", "outcome", "CLIENT_ERROR", "exception", "ErroAutenticacao")
+				.timer().count()).isEqualTo(1);
+	}
+	
+	
+	@Test
+	public void deveMarcarExcecoesInesperadasComoErroDoServidor() {
+		
+		assertThat(MetricasAspect.outcome(new IllegalStateException())).isEqualTo("SERVER_ERROR");
+		assertThat(MetricasAspect.outcome(null)).isEqualTo("SUCCESS");
+	}
+	
+	
+	@SuppressWarnings("unchecked")
+	private <T> T comAspecto(T alvo, MetricasAspect aspecto) {
+		
+		AspectJProxyFactory fabrica = new AspectJProxyFactory(alvo);
+		fabrica.addAspect(aspecto);
+		return (T) fabrica.getProxy();
+	}
+}
@@ -0,0 +1,78 @@
+package com.imatiello.minhasfinancas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class RoteamentoDataSourceTest {
+
+	DataSource primario = Mockito.mock(DataSource.class);
+	DataSource replica = Mockito.mock(DataSource.class);
+	Connection conexaoPrimario = Mockito.mock(Connection.class);
+	Connection conexaoReplica = Mockito.mock(Connection.class);
+	
+	RoteamentoDataSource roteamento;
+	
+	
+	@Before
+	public void setUp() throws SQLException {
+		
+		Mockito.when(primario.getConnection()).thenReturn(conexaoPrimario);
+		Mockito.when(replica.getConnection()).thenReturn(conexaoReplica);
+		Mockito.when(conexaoReplica.isValid(Mockito.anyInt())).thenReturn(true);
+		
+		roteamento = new RoteamentoDataSource(primario, Collections.singletonMap("replica-0", replica),
+				new SessaoLeitura(Duration.ofSeconds(5)), new LeituraProperties());
+		roteamento.verificarReplicas();
+	}
+	
+	
+	@After
+	public void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+	
+	
+	@Test
+	public void deveUsarAReplicaSomenteEmTransacaoSomenteLeitura() throws SQLException {
+		
+		assertThat(destino(roteamento.getConnection())).isSameAs(conexaoPrimario);
+		
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat(destino(roteamento.getConnection())).isSameAs(conexaoReplica);
+	}
+	
+	
+	@Test
+	public void deveLerDoPrimarioQuandoAReplicaFalhar() throws SQLException {
+		
+		//cenario
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		Mockito.when(replica.getConnection()).thenThrow(new SQLException("fora do ar"));
+		
+		//execução
+		Connection conexao = destino(roteamento.getConnection());
+		
+		//verificação: a réplica sai do rodízio até a próxima verificação
+		assertThat(conexao).isSameAs(conexaoPrimario);
+		assertThat(roteamento.replicaParaLeitura()).isNull();
+	}
+	
+	
+	// a conexão entregue é tardia; o destino só é escolhido quando ela é de fato usada
+	private Connection destino(Connection conexao) {
+		return ((ConnectionProxy) conexao).getTargetConnection();
+	}
+}
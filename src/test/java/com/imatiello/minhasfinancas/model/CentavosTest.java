@@ -0,0 +1,57 @@
+package com.imatiello.minhasfinancas.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+public class CentavosTest {
+
+	@Test
+	public void deveConverterSemPerderPrecisaoNosDoisSentidos() {
+		
+		//execução
+		long centavos = Centavos.de(new BigDecimal("1234567890123.45"));
+		
+		//verificação
+		assertThat(centavos).isEqualTo(123456789012345l);
+		assertThat(Centavos.de(new BigDecimal("10"))).isEqualTo(1000);
+		assertThat(Centavos.de(new BigDecimal("-0.1"))).isEqualTo(-10);
+		assertThat(Centavos.paraReais(centavos)).isEqualTo(new BigDecimal("1234567890123.45"));
+		assertThat(Centavos.paraReais(-5)).isEqualTo(new BigDecimal("-0.05"));
+	}
+	
+	
+	@Test
+	public void naoDeveArredondarValoresComMaisDeDuasCasas() {
+		
+		//execução
+		Throwable erro = catchThrowable(() -> Centavos.de(new BigDecimal("0.005")));
+		
+		//verificação
+		assertThat(erro).isInstanceOf(ArithmeticException.class);
+	}
+	
+	
+	@Test
+	public void deveAcusarEstouroEmVezDeDarAVolta() {
+		
+		//cenario
+		long maximo = Long.MAX_VALUE;
+		
+		//execução
+		Throwable soma = catchThrowable(() -> Centavos.somar(maximo, 1));
+		Throwable subtracao = catchThrowable(() -> Centavos.subtrair(Long.MIN_VALUE, 1));
+		Throwable negacao = catchThrowable(() -> Centavos.negar(Long.MIN_VALUE));
+		Throwable conversao = catchThrowable(() -> Centavos.de(new BigDecimal("99999999999999999.99")));
+		
+		//verificação
+		assertThat(soma).isInstanceOf(ArithmeticException.class);
+		assertThat(subtracao).isInstanceOf(ArithmeticException.class);
+		assertThat(negacao).isInstanceOf(ArithmeticException.class);
+		assertThat(conversao).isInstanceOf(ArithmeticException.class);
+		assertThat(Centavos.subtrair(Centavos.somar(150, 2050), 300)).isEqualTo(1900);
+	}
+}
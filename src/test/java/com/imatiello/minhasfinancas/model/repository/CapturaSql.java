@@ -0,0 +1,30 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Guarda o SQL gerado pelo Hibernate na thread atual. Registrado nos testes
+ * pela propriedade hibernate.session_factory.statement_inspector.
+ */
+public class CapturaSql implements StatementInspector {
+
+	private static final ThreadLocal<List<String>> CAPTURADOS = ThreadLocal.withInitial(ArrayList::new);
+
+	@Override
+	public String inspect(String sql) {
+		CAPTURADOS.get().add(sql);
+		return sql;
+	}
+
+	public static List<String> capturar(Runnable execucao) {
+
+		CAPTURADOS.get().clear();
+		execucao.run();
+		List<String> capturados = new ArrayList<>(CAPTURADOS.get());
+		CAPTURADOS.get().clear();
+		return capturados;
+	}
+}
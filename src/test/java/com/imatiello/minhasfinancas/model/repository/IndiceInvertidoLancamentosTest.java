@@ -0,0 +1,100 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import(IndiceInvertidoLancamentos.class)
+public class IndiceInvertidoLancamentosTest {
+
+	@Autowired
+	IndiceInvertidoLancamentos indice;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	
+	@Test
+	public void deveCasarTodosOsTermosPorPrefixoIgnorandoAcentos() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Long conta = persistir(usuario, "Conta de água e luz");
+		persistir(usuario, "Conta de telefone");
+		persistir(usuario, "Água mineral");
+		
+		//execução
+		List<Long> ids = indice.pesquisar(usuario.getId(), TermosPesquisa.extrair("agu CONTA"), 10);
+		
+		//verificação
+		assertThat(ids).containsExactly(conta);
+	}
+	
+	
+	@Test
+	public void deveOrdenarPelaRelevanciaELimitarOResultado() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Long prefixo = persistir(usuario, "mercadinho");
+		Long exato = persistir(usuario, "mercado");
+		Long repetido = persistir(usuario, "mercado mercado");
+		
+		//execução
+		List<Long> todos = indice.pesquisar(usuario.getId(), Arrays.asList("mercado"), 10);
+		List<Long> prefixos = indice.pesquisar(usuario.getId(), Arrays.asList("merc"), 2);
+		
+		//verificação
+		assertThat(todos).containsExactly(repetido, exato);
+		assertThat(prefixos).containsExactly(repetido, prefixo);
+	}
+	
+	
+	@Test
+	public void deveReconstruirOIndiceDoUsuarioQuandoSeusLancamentosForemAlterados() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, "aluguel");
+		assertThat(indice.pesquisar(usuario.getId(), Arrays.asList("farmacia"), 10)).isEmpty();
+		Long novo = persistir(usuario, "farmácia");
+		
+		//execução
+		List<Long> antes = indice.pesquisar(usuario.getId(), Arrays.asList("farmacia"), 10);
+		indice.invalidar(new LancamentosAlteradosEvent(usuario.getId()));
+		List<Long> depois = indice.pesquisar(usuario.getId(), Arrays.asList("farmacia"), 10);
+		
+		//verificação
+		assertThat(antes).isEmpty();
+		assertThat(depois).containsExactly(novo);
+	}
+	
+	
+	private Long persistir(Usuario usuario, String descricao) {
+		
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setDescricao(descricao);
+		return entityManager.persistAndFlush(lancamento).getId();
+	}
+}
@@ -4,6 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.persistence.Entity;
@@ -19,7 +24,11 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.CampoLancamento;
 import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
 import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
 
@@ -112,6 +121,149 @@ public class LancamentoRepositoryTest {
 	
 	
 
+	@Test
+	public void deveObterOEstadoPersistidoIgnorandoAlteracoesPendentes() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento lancamento= criarLancamento();
+		lancamento.setUsuario(usuario);
+		entityManager.persistAndFlush(lancamento);
+		
+		lancamento.setValor(BigDecimal.valueOf(99));
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		
+		Optional<EstadoLancamento> estado = repository.obterEstadoPersistido(lancamento.getId());
+		
+		assertThat(estado.isPresent()).isTrue();
+		assertThat(estado.get().getIdUsuario()).isEqualTo(usuario.getId());
+		assertThat(estado.get().getValor()).isEqualByComparingTo(BigDecimal.valueOf(10));
+		assertThat(estado.get().getTipo()).isEqualTo(TipoLancamento.RECEITA);
+	}
+	
+	
+
+	@Test
+	public void deveBuscarAPartirDaChaveNaOrdemAnoMesId() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento marco = persistirLancamento(usuario, 2020, 3);
+		Lancamento janeiro = persistirLancamento(usuario, 2020, 1);
+		Lancamento dezembro = persistirLancamento(usuario, 2019, 12);
+		Lancamento janeiro2 = persistirLancamento(usuario, 2020, 1);
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		
+		List<LancamentoDTO> primeira = repository.buscarAPartirDe(filtro, null, 2);
+		assertThat(primeira).extracting(LancamentoDTO::getId).containsExactly(dezembro.getId(), janeiro.getId());
+		
+		List<LancamentoDTO> segunda = repository.buscarAPartirDe(filtro, new ChaveLancamento(2020, 1, janeiro.getId()), 2);
+		assertThat(segunda).extracting(LancamentoDTO::getId).containsExactly(janeiro2.getId(), marco.getId());
+		assertThat(segunda.get(0).getUsuario()).isEqualTo(usuario.getId());
+		assertThat(segunda.get(0).getTipo()).isEqualTo("RECEITA");
+	}
+	
+	
+	@Test
+	public void deveBuscarApenasOsCamposPedidos() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento fevereiro = persistirLancamento(usuario, 2020, 2);
+		Lancamento janeiro = persistirLancamento(usuario, 2020, 1);
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		
+		List<Map<String, Object>> lancamentos = repository.buscarCampos(filtro,
+				EnumSet.of(CampoLancamento.STATUS, CampoLancamento.ID, CampoLancamento.USUARIO));
+		
+		assertThat(lancamentos).extracting( lancamento -> lancamento.get("id") )
+			.containsExactly(janeiro.getId(), fevereiro.getId());
+		assertThat(lancamentos.get(0)).containsOnlyKeys("id", "usuario", "status");
+		assertThat(lancamentos.get(0).keySet()).containsExactly("id", "usuario", "status");
+		assertThat(lancamentos.get(0).get("usuario")).isEqualTo(usuario.getId());
+		assertThat(lancamentos.get(0).get("status")).isEqualTo(StatusLancamento.PENDENTE);
+	}
+	
+	
+	@Test
+	public void devePercorrerOsLancamentosDoFiltroEmOrdem() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento fevereiro = persistirLancamento(usuario, 2020, 2);
+		Lancamento janeiro = persistirLancamento(usuario, 2020, 1);
+		persistirLancamento(usuario, 2019, 5);
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		filtro.setAno(2020);
+		
+		List<Long> ids = new ArrayList<>();
+		repository.percorrer(filtro, 1, lancamento -> ids.add(lancamento.getId()));
+		
+		assertThat(ids).containsExactly(janeiro.getId(), fevereiro.getId());
+	}
+	
+	
+	@Test
+	public void deveAtualizarOStatusApenasDosLancamentosDoUsuario() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Usuario outro = entityManager.persist(Usuario.builder().email("outro@email.com").build());
+		Lancamento janeiro = persistirLancamento(usuario, 2020, 1);
+		Lancamento fevereiro = persistirLancamento(usuario, 2020, 2);
+		Lancamento doOutro = persistirLancamento(outro, 2020, 1);
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		
+		int alterados = repository.atualizarStatus(filtro,
+				Arrays.asList(janeiro.getId(), doOutro.getId()), StatusLancamento.EFETIVADO);
+		
+		assertThat(alterados).isEqualTo(1);
+		assertThat(entityManager.find(Lancamento.class, janeiro.getId()).getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		assertThat(entityManager.find(Lancamento.class, fevereiro.getId()).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		assertThat(entityManager.find(Lancamento.class, doOutro.getId()).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		
+		filtro.setMes(2);
+		filtro.setStatus(StatusLancamento.PENDENTE);
+		assertThat(repository.atualizarStatus(filtro, null, StatusLancamento.CANCELADO)).isEqualTo(1);
+	}
+	
+	
+	@Test
+	public void deveResumirPorMesOsLancamentosQueMudariamDeStatus() {
+		
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, 2020, 1);
+		persistirLancamento(usuario, 2020, 1);
+		persistirLancamento(usuario, 2020, 2).setStatus(StatusLancamento.EFETIVADO);
+		entityManager.flush();
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(usuario);
+		
+		List<ResumoMensal> resumo = repository.resumirAlteracaoDeStatus(filtro, null, StatusLancamento.EFETIVADO);
+		
+		assertThat(resumo).hasSize(1);
+		assertThat(resumo.get(0).getIdUsuario()).isEqualTo(usuario.getId());
+		assertThat(resumo.get(0).getMes()).isEqualTo(1);
+		assertThat(resumo.get(0).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+		assertThat(resumo.get(0).getTotal()).isEqualByComparingTo("20");
+		assertThat(resumo.get(0).getQuantidade()).isEqualTo(2);
+	}
+	
+	
+	private Lancamento persistirLancamento(Usuario usuario, int ano, int mes) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		return entityManager.persist(lancamento);
+	}
+	
+	
+
 	private Lancamento criarEPersistirUmLancamento() {
 		Lancamento lancamento = criarLancamento();
 		entityManager.persist(lancamento);
@@ -0,0 +1,155 @@
+package com.imatiello.minhasfinancas.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+
+/**
+ * Confere, pelo EXPLAIN do H2, que as consultas quentes usam os índices das
+ * migrações. Se um índice sumir ou a consulta mudar de forma, o plano acusa.
+ *
+ * Com a tabela vazia o otimizador do H2 não distingue os índices, então o teste
+ * usa um banco próprio com um volume representativo e estatísticas coletadas.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:plano;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.imatiello.minhasfinancas.model.repository.CapturaSql" })
+public class PlanoConsultaTest {
+
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+	
+	@Autowired
+	UsuarioRepository usuarioRepository;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+	
+	
+	@Before
+	public void popularBanco() {
+		
+		if (jdbcTemplate.queryForObject("select count(*) from financas.usuario", Long.class) > 0) {
+			return;
+		}
+		jdbcTemplate.update("insert into financas.usuario (nome, email, senha) "
+				+ "select 'usuario', 'usuario' || x || '@email.com', 'senha' from system_range(1, 100)");
+		jdbcTemplate.update("insert into financas.lancamento (id, descricao, mes, ano, valor, tipo, status, id_usuario) "
+				+ "select x, 'lancamento', mod(x, 12) + 1, 2015 + mod(x, 7), 10, "
+				+ "case when mod(x, 2) = 0 then 'RECEITA' else 'DESPESA' end, 'PENDENTE', mod(x, 100) + 1 "
+				+ "from system_range(1, 5000)");
+		jdbcTemplate.execute("analyze");
+	}
+	
+	
+	@Test
+	public void saldoPorTipoDeveUsarOIndiceDeUsuarioETipo() throws SQLException {
+		
+		String plano = plano(CapturaSql.capturar(
+				() -> lancamentoRepository.obterSaldoPorTipoLancamentoEUsuario(1l, TipoLancamento.RECEITA) ));
+		
+		assertThat(plano).contains("IDX_LANCAMENTO_USUARIO_TIPO");
+	}
+	
+	
+	@Test
+	public void buscaPorPeriodoDeveUsarOIndiceDeUsuarioEPeriodo() throws SQLException {
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+		filtro.setAno(2020);
+		filtro.setMes(1);
+		
+		String plano = plano(CapturaSql.capturar(
+				() -> lancamentoRepository.buscarAPartirDe(filtro, new ChaveLancamento(2020, 1, 10l), 50) ));
+		
+		assertThat(plano).contains("IDX_LANCAMENTO_USUARIO_PERIODO");
+	}
+	
+	
+	@Test
+	public void paginaProfundaDeveComecarAVarreduraNoCursor() throws SQLException {
+		
+		Lancamento filtro = new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+		
+		String plano = plano(CapturaSql.capturar(
+				() -> lancamentoRepository.buscarAPartirDe(filtro, new ChaveLancamento(2020, 1, 10l), 50) ));
+		
+		// a condição do índice fica no comentário do plano; o que sobra no WHERE é só filtro
+		assertThat(condicaoDoIndice(plano, "IDX_LANCAMENTO_USUARIO_PERIODO")).contains("ID_USUARIO =", "ANO >=");
+	}
+	
+	
+	@Test
+	public void consultasPorEmailDevemUsarOIndiceDeEmail() throws SQLException {
+		
+		String planoBusca = plano(CapturaSql.capturar( () -> usuarioRepository.findByEmail("usuario@email.com") ));
+		String planoExiste = plano(CapturaSql.capturar( () -> usuarioRepository.existsByEmail("usuario@email.com") ));
+		
+		assertThat(planoBusca).contains("IDX_USUARIO_EMAIL");
+		assertThat(planoExiste).contains("IDX_USUARIO_EMAIL");
+	}
+	
+	
+	private String condicaoDoIndice(String plano, String indice) {
+		
+		int inicio = plano.indexOf(indice + ":");
+		assertThat(inicio).as("índice %s no plano %s", indice, plano).isGreaterThanOrEqualTo(0);
+		return plano.substring(inicio, plano.indexOf("*/", inicio));
+	}
+	
+	
+	private String plano(List<String> sqls) throws SQLException {
+		
+		assertThat(sqls).hasSize(1);
+		
+		try (Connection conexao = dataSource.getConnection();
+				PreparedStatement explain = conexao.prepareStatement("explain " + sqls.get(0))) {
+			
+			// o plano não depende dos valores dos parâmetros
+			for (int i = 1; i <= explain.getParameterMetaData().getParameterCount(); i++) {
+				explain.setNull(i, Types.NULL);
+			}
+			
+			try (ResultSet resultado = explain.executeQuery()) {
+				resultado.next();
+				return resultado.getString(1).toUpperCase();
+			}
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package com.imatiello.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.unit.DataSize;
+
+import com.imatiello.minhasfinancas.api.dto.AgregadoLancamentosDTO;
+import com.imatiello.minhasfinancas.config.EscritasRecentes;
+import com.imatiello.minhasfinancas.config.SessaoLeitura;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.AgrupamentoAnalise;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.ArmazemColunarLancamentos;
+import com.imatiello.minhasfinancas.model.repository.FiltroAnalise;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.imatiello.minhasfinancas.service.event.LancamentosAlteradosEvent;
+import com.imatiello.minhasfinancas.service.impl.AnaliseLancamentoServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({AnaliseLancamentoServiceImpl.class, ArmazemColunarLancamentos.class, SimpleMeterRegistry.class})
+public class AnaliseLancamentoServiceTest {
+
+	@Autowired
+	AnaliseLancamentoService service;
+	
+	@Autowired
+	ArmazemColunarLancamentos armazem;
+	
+	@Autowired
+	LancamentoRepository repository;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	
+	@Test
+	public void deveAgregarPorMesSeparandoReceitasEDespesas() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, "salario", 2020, 1, "1000.00", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+		persistir(usuario, "luz", 2020, 1, "150.55", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		persistir(usuario, "aluguel", 2020, 3, "800.00", TipoLancamento.DESPESA, StatusLancamento.EFETIVADO);
+		persistir(usuario, "mercado", 2020, 3, "99.99", TipoLancamento.DESPESA, StatusLancamento.CANCELADO);
+		persistir(usuario, "bonus", 2019, 12, "50.00", TipoLancamento.RECEITA, StatusLancamento.EFETIVADO);
+		FiltroAnalise filtro = FiltroAnalise.builder()
+				.de(YearMonth.of(2020, 1))
+				.status(EnumSet.of(StatusLancamento.EFETIVADO, StatusLancamento.PENDENTE))
+				.build();
+		
+		//execução
+		List<AgregadoLancamentosDTO> agregados = service.agregar(usuario.getId(), filtro, AgrupamentoAnalise.MES);
+		
+		//verificação
+		assertThat(agregados).extracting("grupo", "receitas", "despesas", "quantidade")
+			.containsExactly(
+					tuple("2020-01", new BigDecimal("1000.00"), new BigDecimal("150.55"), 2l),
+					tuple("2020-03", new BigDecimal("0.00"), new BigDecimal("800.00"), 1l));
+	}
+	
+	
+	@Test
+	public void deveFiltrarPelaDescricaoIgnorandoAcentosEAgruparPorDescricao() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, "Conta de Água", 2020, 1, "80.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		persistir(usuario, "Conta de Água", 2020, 2, "70.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		persistir(usuario, "Agua mineral", 2020, 2, "5.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		persistir(usuario, "Luz", 2020, 2, "120.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		
+		//execução
+		List<AgregadoLancamentosDTO> agregados = service.agregar(usuario.getId(),
+				FiltroAnalise.builder().descricao("agua").build(), AgrupamentoAnalise.DESCRICAO);
+		
+		//verificação
+		assertThat(agregados).extracting("grupo", "despesas", "quantidade")
+			.containsExactly(
+					tuple("Agua mineral", new BigDecimal("5.00"), 1l),
+					tuple("Conta de Água", new BigDecimal("150.00"), 2l));
+	}
+	
+	
+	@Test
+	public void deveRemontarAsColunasQuandoOsLancamentosDoUsuarioForemAlterados() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, "salario", 2020, 1, "10.00", TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+		FiltroAnalise filtro = new FiltroAnalise();
+		assertThat(service.agregar(usuario.getId(), filtro, AgrupamentoAnalise.TIPO)).hasSize(1);
+		persistir(usuario, "luz", 2021, 5, "4.00", TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+		
+		//execução
+		List<AgregadoLancamentosDTO> antes = service.agregar(usuario.getId(), filtro, AgrupamentoAnalise.ANO);
+		armazem.invalidar(new LancamentosAlteradosEvent(usuario.getId()));
+		List<AgregadoLancamentosDTO> depois = service.agregar(usuario.getId(), filtro, AgrupamentoAnalise.ANO);
+		
+		//verificação
+		assertThat(antes).extracting("grupo").containsExactly("2020");
+		assertThat(depois).extracting("grupo", "despesas").containsExactly(
+				tuple("2020", new BigDecimal("0.00")),
+				tuple("2021", new BigDecimal("4.00")));
+	}
+	
+	
+	@Test
+	public void deveIgnorarLancamentosSemAnoMesTipoOuStatus() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, "salario", 2020, 1, "10.00", TipoLancamento.RECEITA, StatusLancamento.PENDENTE);
+		Lancamento semMes = LancamentoRepositoryTest.criarLancamento();
+		semMes.setUsuario(usuario);
+		semMes.setMes(null);
+		entityManager.persist(semMes);
+		Lancamento semStatus = LancamentoRepositoryTest.criarLancamento();
+		semStatus.setUsuario(usuario);
+		semStatus.setStatus(null);
+		entityManager.persistAndFlush(semStatus);
+		
+		//execução
+		List<AgregadoLancamentosDTO> agregados = service.agregar(usuario.getId(), new FiltroAnalise(),
+				AgrupamentoAnalise.TIPO);
+		
+		//verificação
+		assertThat(agregados).extracting("receitas", "quantidade")
+			.containsExactly(tuple(new BigDecimal("10.00"), 1l));
+	}
+	
+	
+	@Test
+	public void naoDeveGuardarColunasLidasLogoDepoisDeUmaEscrita() {
+		
+		//cenario
+		DefaultListableBeanFactory contexto = new DefaultListableBeanFactory();
+		EscritasRecentes escritas = new EscritasRecentes(new SessaoLeitura(Duration.ofMinutes(1)), Duration.ofMinutes(1));
+		contexto.registerSingleton("escritasRecentes", escritas);
+		ArmazemColunarLancamentos comReplicas = new ArmazemColunarLancamentos(repository, new SimpleMeterRegistry(),
+				contexto.getBeanProvider(EscritasRecentes.class), DataSize.ofMegabytes(1));
+		Usuario alterado = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Usuario intocado = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		escritas.registrar(new LancamentosAlteradosEvent(alterado.getId()));
+		comReplicas.invalidar(new LancamentosAlteradosEvent(alterado.getId()));
+		
+		//execução e verificação: dentro do atraso as colunas podem ter vindo de uma réplica atrasada
+		assertThat(comReplicas.obter(alterado.getId())).isNotSameAs(comReplicas.obter(alterado.getId()));
+		assertThat(comReplicas.obter(intocado.getId())).isSameAs(comReplicas.obter(intocado.getId()));
+	}
+	
+	
+	@Test
+	public void naoDeveAgregarComPeriodoInvertido() {
+		
+		//cenario
+		FiltroAnalise filtro = FiltroAnalise.builder().de(YearMonth.of(2020, 5)).ate(YearMonth.of(2020, 1)).build();
+		
+		//execução
+		Throwable erro = catchThrowable(() -> service.agregar(1l, filtro, AgrupamentoAnalise.MES));
+		
+		//verificação
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+	
+	
+	@Test
+	public void deveResponderVazioParaUsuarioSemLancamentos() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		
+		//execução
+		List<AgregadoLancamentosDTO> agregados = service.agregar(usuario.getId(), new FiltroAnalise(),
+				AgrupamentoAnalise.MES);
+		
+		//verificação
+		assertThat(agregados).isEmpty();
+	}
+	
+	
+	private void persistir(Usuario usuario, String descricao, int ano, int mes, String valor,
+			TipoLancamento tipo, StatusLancamento status) {
+		
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setDescricao(descricao);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setValor(new BigDecimal(valor));
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		entityManager.persistAndFlush(lancamento);
+	}
+}
@@ -0,0 +1,177 @@
+package com.imatiello.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.imatiello.minhasfinancas.api.dto.ResultadoImportacaoDTO;
+import com.imatiello.minhasfinancas.api.importacao.LeitorCsvLancamentos;
+import com.imatiello.minhasfinancas.api.importacao.LeitorJsonLancamentos;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.IndiceInvertidoLancamentos;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.imatiello.minhasfinancas.service.impl.ImportacaoLancamentoServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.SaldoUsuarioServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.UsuarioServiceImpl;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "minhasfinancas.importacao.tamanho-lote=2")
+@Import({ImportacaoLancamentoServiceImpl.class, LancamentoServiceImpl.class, SaldoUsuarioServiceImpl.class,
+		ResumoMensalServiceImpl.class, UsuarioServiceImpl.class, IndiceInvertidoLancamentos.class})
+public class ImportacaoLancamentoServiceTest {
+
+	@Autowired
+	ImportacaoLancamentoService service;
+	
+	@Autowired
+	SaldoUsuarioService saldoUsuarioService;
+	
+	@Autowired
+	ResumoMensalService resumoMensalService;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	// usuário confirmado pelos testes sem transação, removido no fim
+	Usuario confirmado;
+	
+	
+	@After
+	public void removerConfirmado() {
+		
+		if (confirmado == null) {
+			return;
+		}
+		new TransactionTemplate(transactionManager).execute( status -> {
+			for (String entidade : new String[] { "ResumoMensal", "SaldoUsuario" }) {
+				entityManager.getEntityManager()
+					.createQuery("delete from " + entidade + " e where e.idUsuario = :id")
+					.setParameter("id", confirmado.getId()).executeUpdate();
+			}
+			entityManager.getEntityManager().createQuery("delete from Lancamento l where l.usuario.id = :id")
+				.setParameter("id", confirmado.getId()).executeUpdate();
+			return entityManager.getEntityManager().createQuery("delete from Usuario u where u.id = :id")
+				.setParameter("id", confirmado.getId()).executeUpdate();
+		});
+	}
+	
+	
+	@Test
+	public void deveImportarLinhasValidasERelatarAsInvalidas() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		String csv = "descricao,mes,ano,valor,tipo\n"
+				+ "salario,1,2020,1000.00,RECEITA\n"
+				+ "\"luz, agua\",1,2020,150.50,DESPESA\n"
+				+ "sem mes,,2020,10,DESPESA\n"
+				+ "aluguel,2,2020,abc,DESPESA\n"
+				+ "mercado,2,2020,300,DESPESA\n"
+				+ "bonus,3,2020,50,OUTRO\n";
+		
+		//execução
+		ResultadoImportacaoDTO resultado = service.importar(usuario, new LeitorCsvLancamentos(entrada(csv)));
+		
+		//verificação
+		assertThat(resultado.getTotalLinhas()).isEqualTo(6);
+		assertThat(resultado.getImportadas()).isEqualTo(3);
+		assertThat(resultado.getRejeitadas()).isEqualTo(3);
+		assertThat(resultado.getErros()).extracting("linha").containsExactly(3, 4, 6);
+		assertThat(resultado.getErros().get(0).getMensagem()).isEqualTo("Informe um Mês válido.");
+		
+		Long importados = entityManager.getEntityManager()
+				.createQuery("select count(l) from Lancamento l where l.usuario.id = :id", Long.class)
+				.setParameter("id", usuario.getId())
+				.getSingleResult();
+		assertThat(importados).isEqualTo(3);
+		assertThat(saldoUsuarioService.obterSaldo(usuario.getId())).isEqualByComparingTo("549.50");
+		assertThat(resumoMensalService.obterMensal(usuario.getId(), 2020))
+			.extracting("mes", "tipo", "total", "quantidade")
+			.containsExactly(
+					tuple(1, "DESPESA", new BigDecimal("150.50"), 1l),
+					tuple(1, "RECEITA", new BigDecimal("1000.00"), 1l),
+					tuple(2, "DESPESA", new BigDecimal("300.00"), 1l));
+	}
+	
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void deveRelatarSoALinhaRecusadaPeloBancoQuandoOLoteFalhar() {
+		
+		//cenario: a descrição passa na validação, mas não cabe na coluna
+		confirmado = new TransactionTemplate(transactionManager)
+				.execute( status -> entityManager.persist(UsuarioRepositoryTest.criarUsuario()) );
+		String longa = String.join("", Collections.nCopies(300, "x"));
+		String csv = "descricao,mes,ano,valor,tipo\n"
+				+ "salario,1,2020,1000,RECEITA\n"
+				+ longa + ",1,2020,10,DESPESA\n"
+				+ "mercado,2,2020,300,DESPESA\n";
+		
+		//execução
+		ResultadoImportacaoDTO resultado = service.importar(confirmado, new LeitorCsvLancamentos(entrada(csv)));
+		
+		//verificação
+		assertThat(resultado.getImportadas()).isEqualTo(2);
+		assertThat(resultado.getRejeitadas()).isEqualTo(1);
+		assertThat(resultado.getErros()).extracting("linha").containsExactly(2);
+		assertThat(saldoUsuarioService.obterSaldo(confirmado.getId())).isEqualByComparingTo("700");
+	}
+	
+	
+	@Test
+	public void deveImportarUmArrayJson() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		String json = "[{\"descricao\":\"salario\",\"mes\":1,\"ano\":2020,\"valor\":10,\"tipo\":\"RECEITA\"},"
+				+ "{\"descricao\":\"luz\",\"mes\":\"x\",\"ano\":2020,\"valor\":5,\"tipo\":\"DESPESA\"},"
+				+ "{\"descricao\":\"agua\",\"mes\":2,\"ano\":2020,\"valor\":5,\"tipo\":\"DESPESA\"}]";
+		
+		//execução
+		ResultadoImportacaoDTO resultado = service.importar(usuario, new LeitorJsonLancamentos(entrada(json)));
+		
+		//verificação
+		assertThat(resultado.getImportadas()).isEqualTo(2);
+		assertThat(resultado.getErros()).extracting("linha").containsExactly(2);
+		
+		Lancamento importado = entityManager.getEntityManager()
+				.createQuery("select l from Lancamento l where l.descricao = 'agua'", Lancamento.class)
+				.getSingleResult();
+		assertThat(importado.getUsuario().getId()).isEqualTo(usuario.getId());
+	}
+	
+	
+	private ByteArrayInputStream entrada(String conteudo) {
+		return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+	}
+}
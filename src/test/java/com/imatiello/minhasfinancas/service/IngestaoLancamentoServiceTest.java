@@ -0,0 +1,219 @@
+package com.imatiello.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.imatiello.minhasfinancas.api.dto.SituacaoIngestaoDTO;
+import com.imatiello.minhasfinancas.exception.FilaCheiaException;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.imatiello.minhasfinancas.service.impl.IngestaoLancamentoServiceImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class IngestaoLancamentoServiceTest {
+
+	MeterRegistry registry = new SimpleMeterRegistry();
+	
+	LancamentoService lancamentoService = Mockito.mock(LancamentoService.class);
+	
+	AtomicLong sequencia = new AtomicLong();
+	
+	IngestaoLancamentoServiceImpl service;
+	
+	
+	@After
+	public void tearDown() {
+		
+		if (service != null && service.isRunning()) {
+			service.stop();
+		}
+	}
+	
+	
+	@Test
+	public void deveGravarEmLoteTudoQueFoiAceitoAteOEncerramento() {
+		
+		//cenario
+		service = criar(100, 50);
+		Mockito.when(lancamentoService.salvarEmLote(Mockito.anyList())).thenAnswer(invocacao -> numerar(invocacao.getArgument(0)));
+		service.start();
+		
+		//execução
+		String primeiro = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		String segundo = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		service.stop();
+		
+		//verificação
+		assertThat(service.obterSituacao(primeiro).map(SituacaoIngestaoDTO::getSituacao)).contains("GRAVADO");
+		assertThat(service.obterSituacao(segundo).map(SituacaoIngestaoDTO::getLancamento)).isPresent();
+		Mockito.verify(lancamentoService, Mockito.never()).salvar(Mockito.any());
+		assertThat(registry.get("minhasfinancas.ingestao.fila").gauge().value()).isEqualTo(0);
+	}
+	
+	
+	@Test
+	public void deveRecusarQuandoAFilaEstiverCheia() throws InterruptedException {
+		
+		//cenario
+		service = criar(1, 50);
+		CountDownLatch emGravacao = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		Mockito.when(lancamentoService.salvarEmLote(Mockito.anyList())).thenAnswer(invocacao -> {
+			emGravacao.countDown();
+			liberar.await(5, TimeUnit.SECONDS);
+			return numerar(invocacao.getArgument(0));
+		});
+		service.start();
+		service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		assertThat(emGravacao.await(5, TimeUnit.SECONDS)).isTrue();
+		service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		
+		//execução
+		Throwable erro = catchThrowable(() -> service.enfileirar(LancamentoRepositoryTest.criarLancamento()));
+		
+		//verificação
+		assertThat(erro).isInstanceOf(FilaCheiaException.class);
+		assertThat(registry.get("minhasfinancas.ingestao.fila").gauge().value()).isEqualTo(1);
+		liberar.countDown();
+	}
+	
+	
+	@Test
+	public void naoDeveEnfileirarUmLancamentoInvalido() {
+		
+		//cenario
+		service = criar(10, 50);
+		Lancamento invalido = LancamentoRepositoryTest.criarLancamento();
+		Mockito.doThrow(new RegraNegocioException("Informe um Mês válido.")).when(lancamentoService).validar(invalido);
+		service.start();
+		
+		//execução
+		Throwable erro = catchThrowable(() -> service.enfileirar(invalido));
+		
+		//verificação
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		assertThat(registry.get("minhasfinancas.ingestao.fila").gauge().value()).isEqualTo(0);
+	}
+	
+	
+	@Test
+	public void deveIsolarOLancamentoRecusadoQuandoOLoteFalhar() {
+		
+		//cenario
+		service = criar(100, 50);
+		Lancamento valido = LancamentoRepositoryTest.criarLancamento();
+		Lancamento recusado = LancamentoRepositoryTest.criarLancamento();
+		recusado.setDescricao("recusado");
+		Mockito.when(lancamentoService.salvarEmLote(Mockito.anyList())).thenThrow(new IllegalStateException("lote"));
+		Mockito.when(lancamentoService.salvar(valido)).thenAnswer(invocacao -> {
+			valido.setId(sequencia.incrementAndGet());
+			return valido;
+		});
+		Mockito.when(lancamentoService.salvar(recusado)).thenThrow(new IllegalStateException("valor fora do limite"));
+		service.start();
+		
+		//execução
+		String idValido = service.enfileirar(valido);
+		String idRecusado = service.enfileirar(recusado);
+		service.stop();
+		
+		//verificação
+		assertThat(service.obterSituacao(idValido).map(SituacaoIngestaoDTO::getSituacao)).contains("GRAVADO");
+		SituacaoIngestaoDTO situacao = service.obterSituacao(idRecusado).get();
+		assertThat(situacao.getSituacao()).isEqualTo("REJEITADO");
+		assertThat(situacao.getMensagem()).isEqualTo("valor fora do limite");
+	}
+	
+	
+	@Test
+	public void deveRepetirOLoteQuandoOBancoFalharTransitoriamente() {
+		
+		//cenario: o banco fica fora por duas tentativas
+		service = criar(100, 50);
+		Mockito.when(lancamentoService.salvarEmLote(Mockito.anyList()))
+			.thenThrow(new CannotCreateTransactionException("sem conexão"))
+			.thenThrow(new QueryTimeoutException("timeout"))
+			.thenAnswer(invocacao -> numerar(invocacao.getArgument(0)));
+		service.start();
+		
+		//execução
+		String id = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		service.stop();
+		
+		//verificação: nada foi rejeitado nem gravado fora do lote
+		assertThat(service.obterSituacao(id).map(SituacaoIngestaoDTO::getSituacao)).contains("GRAVADO");
+		Mockito.verify(lancamentoService, Mockito.times(3)).salvarEmLote(Mockito.anyList());
+		Mockito.verify(lancamentoService, Mockito.never()).salvar(Mockito.any());
+	}
+	
+	
+	@Test
+	public void deveEsvaziarAFilaNoEncerramentoMesmoQuandoAGravacaoDemora() {
+		
+		//cenario: cada lote leva mais que o intervalo de aviso
+		service = new IngestaoLancamentoServiceImpl(lancamentoService, registry, 100, 1,
+				Duration.ofMillis(50), Duration.ofMillis(20), Duration.ofMillis(10));
+		Mockito.when(lancamentoService.salvarEmLote(Mockito.anyList())).thenAnswer(invocacao -> {
+			Thread.sleep(100);
+			return numerar(invocacao.getArgument(0));
+		});
+		service.start();
+		String primeiro = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		String segundo = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		String terceiro = service.enfileirar(LancamentoRepositoryTest.criarLancamento());
+		
+		//execução
+		service.stop();
+		
+		//verificação
+		for (String id : new String[] {primeiro, segundo, terceiro}) {
+			assertThat(service.obterSituacao(id).map(SituacaoIngestaoDTO::getSituacao)).contains("GRAVADO");
+		}
+		assertThat(registry.get("minhasfinancas.ingestao.fila").gauge().value()).isEqualTo(0);
+	}
+	
+	
+	@Test
+	public void deveRecusarDepoisDoEncerramento() {
+		
+		//cenario
+		service = criar(10, 50);
+		service.start();
+		service.stop();
+		
+		//execução
+		Throwable erro = catchThrowable(() -> service.enfileirar(LancamentoRepositoryTest.criarLancamento()));
+		
+		//verificação
+		assertThat(erro).isInstanceOf(FilaCheiaException.class);
+	}
+	
+	
+	private IngestaoLancamentoServiceImpl criar(int capacidade, int tamanhoLote) {
+		
+		return new IngestaoLancamentoServiceImpl(lancamentoService, registry, capacidade, tamanhoLote,
+				Duration.ofMillis(50), Duration.ofSeconds(5), Duration.ofMillis(10));
+	}
+	
+	
+	private List<Lancamento> numerar(List<Lancamento> lote) {
+		
+		lote.forEach(lancamento -> lancamento.setId(sequencia.incrementAndGet()));
+		return lote;
+	}
+}
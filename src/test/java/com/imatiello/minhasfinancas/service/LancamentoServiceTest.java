@@ -1,6 +1,7 @@
 package com.imatiello.minhasfinancas.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -17,10 +18,19 @@ import org.springframework.data.domain.Example;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.imatiello.minhasfinancas.api.dto.LancamentoDTO;
+import com.imatiello.minhasfinancas.api.dto.PaginaDTO;
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
 import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
 import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.ResumoMensal;
 import com.imatiello.minhasfinancas.model.entity.Usuario;
 import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.ChaveLancamento;
+import com.imatiello.minhasfinancas.model.repository.EstadoLancamento;
+import com.imatiello.minhasfinancas.model.repository.IndiceTextualLancamentos;
 import com.imatiello.minhasfinancas.model.repository.LancamentoRepository;
 import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
 import com.imatiello.minhasfinancas.service.impl.LancamentoServiceImpl;
@@ -42,6 +52,15 @@ public class LancamentoServiceTest {
 	@MockBean
 	LancamentoRepository repository;
 	
+	@MockBean
+	SaldoUsuarioService saldoUsuarioService;
+	
+	@MockBean
+	ResumoMensalService resumoMensalService;
+	
+	@MockBean
+	IndiceTextualLancamentos indiceTextual;
+	
 	
 	@Test
 	public void deveSalvarUmLancamento() {
@@ -92,6 +111,40 @@ public class LancamentoServiceTest {
 	
 	
 	
+	@Test
+	public void deveSalvarUmLoteAgregandoSaldoEResumoPorUsuario() {
+		
+		//cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		Lancamento salario = LancamentoRepositoryTest.criarLancamento();
+		Lancamento bonus = LancamentoRepositoryTest.criarLancamento();
+		Lancamento aluguel = LancamentoRepositoryTest.criarLancamento();
+		aluguel.setTipo(TipoLancamento.DESPESA);
+		aluguel.setValor(BigDecimal.valueOf(3));
+		for (Lancamento lancamento : Arrays.asList(salario, bonus, aluguel)) {
+			lancamento.setUsuario(usuario);
+			lancamento.setStatus(null);
+		}
+		List<Lancamento> lote = Arrays.asList(salario, bonus, aluguel);
+		Mockito.when(repository.saveAll(lote)).thenReturn(lote);
+		
+		//execução
+		service.salvarEmLote(lote);
+		
+		//verificação
+		Assertions.assertThat(lote).extracting("status").containsOnly(StatusLancamento.PENDENTE);
+		Mockito.verify(saldoUsuarioService).aplicarDelta(1l, TipoLancamento.RECEITA, new BigDecimal("20.00"));
+		Mockito.verify(saldoUsuarioService).aplicarDelta(1l, TipoLancamento.DESPESA, new BigDecimal("3.00"));
+		Mockito.verify(resumoMensalService).aplicar(1l, 2019, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE,
+				new BigDecimal("20.00"), 2);
+		Mockito.verify(resumoMensalService).aplicar(1l, 2019, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE,
+				new BigDecimal("3.00"), 1);
+		Mockito.verify(repository).saveAll(lote);
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any(Lancamento.class));
+	}
+	
+	
+	
 	@Test
 	public void deveAtualizarUmLancamento() {
 		//cenario
@@ -201,23 +254,27 @@ public class LancamentoServiceTest {
 		//cenario
 		Lancamento lancamento= LancamentoRepositoryTest.criarLancamento();
 		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
 		
 		lancamento.setStatus(StatusLancamento.PENDENTE);
 		
 		StatusLancamento statusNovo= StatusLancamento.EFETIVADO;
 		
-		Mockito.doReturn(lancamento).when(service).atualizar(lancamento);
+		Mockito.doNothing().when(service).validar(lancamento);
+		Mockito.when(repository.save(lancamento)).thenReturn(lancamento);
 		
 		
 		//execução
 		
 		service.atulizarStatus(lancamento, statusNovo);
 		
-		//verificações
+		//verificações: o status novo é o gravado, e não o PENDENTE da edição
 		
 		Assertions.assertThat(lancamento.getStatus()).isEqualTo(statusNovo);
 		
-		Mockito.verify(service).atualizar(lancamento);
+		Mockito.verify(repository).save(lancamento);
+		Mockito.verify(resumoMensalService).aplicar(1l, lancamento.getAno(), lancamento.getMes(),
+				lancamento.getTipo(), statusNovo, lancamento.getValor(), 1);
 		
 		
 		
@@ -340,6 +397,12 @@ public class LancamentoServiceTest {
 			Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
 			.hasMessage("Informe um Valor Válido.");
 			
+			lancamento.setValor(new BigDecimal("1.005"));
+			
+			erro=   Assertions.catchThrowable(  ()-> service.validar(lancamento) );
+			Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+			.hasMessage("Informe um Valor com no máximo duas casas decimais.");
+			
 			lancamento.setValor(BigDecimal.valueOf(1));
 			
 			erro=   Assertions.catchThrowable(  ()-> service.validar(lancamento) );
@@ -351,4 +414,277 @@ public class LancamentoServiceTest {
 	
 	
 	
+	@Test
+	public void deveAplicarOValorNoSaldoAoSalvarUmLancamento() {
+		
+		//cenario
+		Lancamento lancamento= LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		Mockito.doNothing().when(service).validar(lancamento);
+		
+		//execução
+		service.salvar(lancamento);
+		
+		//verificação
+		Mockito.verify(saldoUsuarioService).aplicarDelta(1l, TipoLancamento.RECEITA, BigDecimal.valueOf(10));
+	}
+	
+	
+	@Test
+	public void deveEstornarOValorAnteriorAoAtualizarUmLancamento() {
+		
+		//cenario
+		Lancamento lancamento= LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		lancamento.setValor(BigDecimal.valueOf(30));
+		Mockito.doNothing().when(service).validar(lancamento);
+		
+		EstadoLancamento anterior= Mockito.mock(EstadoLancamento.class);
+		Mockito.when(anterior.getIdUsuario()).thenReturn(1l);
+		Mockito.when(anterior.getTipo()).thenReturn(TipoLancamento.DESPESA);
+		Mockito.when(anterior.getValor()).thenReturn(BigDecimal.valueOf(10));
+		Mockito.when(repository.obterEstadoPersistido(1l)).thenReturn(Optional.of(anterior));
+		
+		//execução
+		service.atualizar(lancamento);
+		
+		//verificação
+		Mockito.verify(saldoUsuarioService).aplicarDelta(1l, TipoLancamento.DESPESA, BigDecimal.valueOf(-10));
+		Mockito.verify(saldoUsuarioService).aplicarDelta(1l, TipoLancamento.RECEITA, BigDecimal.valueOf(30));
+	}
+	
+	
+	@Test
+	public void deveObterOSaldoMaterializadoDoUsuario() {
+		
+		//cenario
+		Mockito.when(saldoUsuarioService.obterSaldo(1l)).thenReturn(BigDecimal.valueOf(100));
+		
+		//execução
+		BigDecimal saldo= service.obterSaldoPorUsuario(1l);
+		
+		//verificação
+		Assertions.assertThat(saldo).isEqualTo(BigDecimal.valueOf(100));
+		Mockito.verify(repository, Mockito.never()).obterSaldoPorTipoLancamentoEUsuario(Mockito.anyLong(), Mockito.any());
+	}
+	
+	
+	
+	@Test
+	public void deveRetornarCursorDaProximaPaginaQuandoHouverMaisItens() {
+		
+		//cenario
+		Lancamento filtro= new Lancamento();
+		List<LancamentoDTO> itens = Arrays.asList(
+				LancamentoDTO.builder().id(1l).ano(2020).mes(1).build(),
+				LancamentoDTO.builder().id(2l).ano(2020).mes(2).build(),
+				LancamentoDTO.builder().id(3l).ano(2020).mes(3).build());
+		Mockito.when(repository.buscarAPartirDe(filtro, null, 3)).thenReturn(itens);
+		
+		//execução
+		PaginaDTO<LancamentoDTO> pagina = service.buscarPagina(filtro, null, 2);
+		
+		//verificação
+		Assertions.assertThat(pagina.getItens()).hasSize(2);
+		Assertions.assertThat(pagina.getProximoCursor()).isNotNull();
+		
+		service.buscarPagina(filtro, pagina.getProximoCursor(), 2);
+		Mockito.verify(repository).buscarAPartirDe(filtro, new ChaveLancamento(2020, 2, 2l), 3);
+	}
+	
+	
+	@Test
+	public void naoDeveRetornarCursorNaUltimaPagina() {
+		
+		//cenario
+		Lancamento filtro= new Lancamento();
+		Mockito.when(repository.buscarAPartirDe(filtro, null, 51))
+			.thenReturn(Arrays.asList(LancamentoDTO.builder().id(1l).ano(2020).mes(1).build()));
+		
+		//execução
+		PaginaDTO<LancamentoDTO> pagina = service.buscarPagina(filtro, null, null);
+		
+		//verificação
+		Assertions.assertThat(pagina.getItens()).hasSize(1);
+		Assertions.assertThat(pagina.getProximoCursor()).isNull();
+	}
+	
+	
+	@Test
+	public void deveLancarErroParaCursorOuLimiteInvalidos() {
+		
+		Lancamento filtro= new Lancamento();
+		
+		Throwable erro = Assertions.catchThrowable( () -> service.buscarPagina(filtro, "invalido", 10) );
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+		.hasMessage("Cursor de paginação inválido.");
+		
+		erro = Assertions.catchThrowable( () -> service.buscarPagina(filtro, null, 501) );
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+	
+	
+	
+	@Test
+	public void deveAtualizarOStatusEmLotesDeIds() {
+		
+		//cenario
+		Lancamento filtro= new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= 1200; id++) {
+			ids.add(id);
+		}
+		Mockito.when(repository.atualizarStatus(Mockito.eq(filtro), Mockito.anyCollection(), Mockito.eq(StatusLancamento.EFETIVADO)))
+			.thenReturn(500, 500, 200);
+		
+		//execução
+		int atualizados = service.atualizarStatusEmLote(filtro, ids, StatusLancamento.EFETIVADO);
+		
+		//verificação
+		Assertions.assertThat(atualizados).isEqualTo(1200);
+		Mockito.verify(repository, Mockito.times(3))
+			.atualizarStatus(Mockito.eq(filtro), Mockito.anyCollection(), Mockito.eq(StatusLancamento.EFETIVADO));
+		Mockito.verify(saldoUsuarioService).registrarAlteracao(1l);
+	}
+	
+	
+	@Test
+	public void deveMoverOsTotaisDoResumoMensalAoAtualizarOStatusEmLote() {
+		
+		//cenario
+		Lancamento filtro= new Lancamento();
+		filtro.setUsuario(Usuario.builder().id(1l).build());
+		ResumoMensal pendentes = new ResumoMensal(1l, 2020, 3, TipoLancamento.DESPESA, StatusLancamento.PENDENTE,
+				BigDecimal.valueOf(30), 2l);
+		Mockito.when(repository.resumirAlteracaoDeStatus(filtro, null, StatusLancamento.EFETIVADO))
+			.thenReturn(Arrays.asList(pendentes));
+		Mockito.when(repository.atualizarStatus(filtro, null, StatusLancamento.EFETIVADO)).thenReturn(2);
+		
+		//execução
+		service.atualizarStatusEmLote(filtro, null, StatusLancamento.EFETIVADO);
+		
+		//verificação
+		Mockito.verify(resumoMensalService).aplicar(1l, 2020, 3, TipoLancamento.DESPESA, StatusLancamento.PENDENTE,
+				BigDecimal.valueOf(-30), -2);
+		Mockito.verify(resumoMensalService).aplicar(1l, 2020, 3, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO,
+				BigDecimal.valueOf(30), 2);
+	}
+	
+	
+	@Test
+	public void deveObterOsSaldosEmLotesDeUsuariosDistintos() {
+		
+		//cenario
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= 1200; id++) {
+			ids.add(id);
+			ids.add(id);
+		}
+		Mockito.when(saldoUsuarioService.obterSaldos(Mockito.anyList()))
+			.thenAnswer( chamada -> Arrays.asList(new SaldoUsuarioDTO(1l, BigDecimal.TEN)) );
+		List<SaldoUsuarioDTO> saldos = new ArrayList<>();
+		
+		//execução
+		service.obterSaldosPorUsuarios(ids, saldos::add);
+		
+		//verificação: 1200 usuários distintos em lotes de 500
+		Mockito.verify(saldoUsuarioService, Mockito.times(3)).obterSaldos(Mockito.anyList());
+		Assertions.assertThat(saldos).hasSize(3);
+	}
+	
+	
+	@Test
+	public void deveObterOsSaldosDeUmIntervaloPorChave() {
+		
+		//cenario
+		List<SaldoUsuarioDTO> cheio = new ArrayList<>();
+		for (long id = 1; id <= 500; id++) {
+			cheio.add(new SaldoUsuarioDTO(id, BigDecimal.ZERO));
+		}
+		Mockito.when(saldoUsuarioService.obterSaldosAPartirDe(0l, 900l, 500)).thenReturn(cheio);
+		Mockito.when(saldoUsuarioService.obterSaldosAPartirDe(500l, 900l, 500))
+			.thenReturn(Arrays.asList(new SaldoUsuarioDTO(501l, BigDecimal.ZERO)));
+		List<SaldoUsuarioDTO> saldos = new ArrayList<>();
+		
+		//execução
+		service.obterSaldosPorUsuarios(1l, 900l, saldos::add);
+		
+		//verificação: o segundo lote veio incompleto, então não há terceiro
+		Assertions.assertThat(saldos).hasSize(501);
+		Mockito.verify(saldoUsuarioService, Mockito.times(2))
+			.obterSaldosAPartirDe(Mockito.anyLong(), Mockito.eq(900l), Mockito.eq(500));
+	}
+	
+	
+	@Test
+	public void naoDeveAtualizarComVersaoDesatualizada() {
+		
+		//cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		EstadoLancamento estado = Mockito.mock(EstadoLancamento.class);
+		Mockito.when(estado.getIdUsuario()).thenReturn(1l);
+		Mockito.when(repository.obterEstadoPersistido(1l)).thenReturn(Optional.of(estado));
+		Mockito.doThrow(new VersaoDesatualizadaException("alterado"))
+			.when(saldoUsuarioService).verificarVersao(1l, 3l);
+		
+		//execução
+		Throwable erro = Assertions.catchThrowable( () -> service.atualizar(lancamento, 3l) );
+		
+		//verificação
+		Assertions.assertThat(erro).isInstanceOf(VersaoDesatualizadaException.class);
+		Mockito.verify(repository, Mockito.never()).save(lancamento);
+	}
+	
+	
+	@Test
+	public void naoDeveAtualizarStatusEmLoteSemUsuario() {
+		
+		Throwable erro = Assertions.catchThrowable(
+				() -> service.atualizarStatusEmLote(new Lancamento(), null, StatusLancamento.EFETIVADO) );
+		
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um Usuário.");
+		Mockito.verify(repository, Mockito.never()).atualizarStatus(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+	
+	
+	
+	@Test
+	public void deveDevolverAPesquisaNaOrdemDeRelevanciaDoIndice() {
+		
+		//cenario
+		Mockito.when(indiceTextual.pesquisar(1l, Arrays.asList("mercado", "feira"), 10))
+			.thenReturn(Arrays.asList(3l, 1l, 2l));
+		Mockito.when(repository.buscarPorIds(Mockito.eq(1l), Mockito.anyCollection()))
+			.thenReturn(new ArrayList<>(Arrays.asList(dto(1l), dto(2l), dto(3l))));
+		
+		//execução
+		List<LancamentoDTO> resultado = service.pesquisar(1l, "Mercado, feira", 10);
+		
+		//verificação
+		Assertions.assertThat(resultado).extracting(LancamentoDTO::getId).containsExactly(3l, 1l, 2l);
+	}
+	
+	
+	@Test
+	public void naoDevePesquisarSemTermos() {
+		
+		Throwable erro = Assertions.catchThrowable( () -> service.pesquisar(1l, " ,; ", null) );
+		
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe os termos da pesquisa.");
+		Mockito.verify(indiceTextual, Mockito.never()).pesquisar(Mockito.any(), Mockito.any(), Mockito.anyInt());
+	}
+	
+	
+	private static LancamentoDTO dto(Long id) {
+		
+		return new LancamentoDTO(id, "lancamento " + id, 1, 2020, BigDecimal.TEN, 1l,
+				TipoLancamento.DESPESA, StatusLancamento.PENDENTE);
+	}
+	
+	
+	
 }
@@ -0,0 +1,126 @@
+package com.imatiello.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.imatiello.minhasfinancas.api.dto.SaldoMensalDTO;
+import com.imatiello.minhasfinancas.exception.RegraNegocioException;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.imatiello.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.SaldoUsuarioServiceImpl;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({ResumoMensalServiceImpl.class, SaldoUsuarioServiceImpl.class})
+public class ResumoMensalServiceTest {
+
+	@Autowired
+	ResumoMensalService service;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	
+	@Test
+	public void deveAcumularOsDeltasDoMesERemoverALinhaQueFicaSemLancamentos() {
+		
+		//cenario
+		Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+		
+		//execução
+		service.aplicar(idUsuario, 2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(100), 1);
+		service.aplicar(idUsuario, 2020, 1, TipoLancamento.RECEITA, StatusLancamento.PENDENTE, BigDecimal.valueOf(50), 1);
+		service.aplicar(idUsuario, 2020, 2, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(30), 1);
+		service.aplicar(idUsuario, 2020, 2, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(-30), -1);
+		entityManager.flush();
+		
+		//verificação
+		assertThat(service.obterMensal(idUsuario, 2020))
+			.extracting("mes", "tipo", "status", "total", "quantidade")
+			.containsExactly(tuple(1, "RECEITA", "PENDENTE", new BigDecimal("150.00"), 2l));
+	}
+	
+	
+	@Test
+	public void deveSomarOsMesesNoResumoAnual() {
+		
+		//cenario
+		Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+		Usuario outro = entityManager.persist(Usuario.builder().email("outro@email.com").build());
+		service.aplicar(idUsuario, 2019, 12, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(5), 1);
+		service.aplicar(idUsuario, 2020, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(10), 1);
+		service.aplicar(idUsuario, 2020, 7, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(20), 2);
+		service.aplicar(outro.getId(), 2020, 7, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(99), 1);
+		entityManager.flush();
+		
+		//execução e verificação
+		assertThat(service.obterAnual(idUsuario))
+			.extracting("ano", "mes", "tipo", "total", "quantidade")
+			.containsExactly(
+					tuple(2019, null, "DESPESA", new BigDecimal("5.00"), 1l),
+					tuple(2020, null, "DESPESA", new BigDecimal("30.00"), 3l));
+	}
+	
+	
+	@Test
+	public void deveAcumularOSaldoMesAMesPreenchendoOsMesesSemMovimento() {
+		
+		//cenario
+		Long idUsuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario()).getId();
+		service.aplicar(idUsuario, 2019, 11, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(100), 1);
+		service.aplicar(idUsuario, 2020, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(30), 1);
+		service.aplicar(idUsuario, 2020, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, BigDecimal.valueOf(500), 1);
+		service.aplicar(idUsuario, 2020, 3, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(10), 1);
+		service.aplicar(idUsuario, 2020, 6, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, BigDecimal.valueOf(99), 1);
+		entityManager.flush();
+		List<SaldoMensalDTO> serie = new ArrayList<>();
+		
+		//execução
+		service.percorrerSaldos(idUsuario, YearMonth.of(2019, 12), YearMonth.of(2020, 4),
+				EnumSet.of(StatusLancamento.EFETIVADO), serie::add);
+		
+		//verificação: o saldo de 2019-11 entra como saldo inicial e o PENDENTE é ignorado
+		assertThat(serie).extracting("ano", "mes").containsExactly(tuple(2019, 12), tuple(2020, 1),
+				tuple(2020, 2), tuple(2020, 3), tuple(2020, 4));
+		assertThat(serie).extracting(SaldoMensalDTO::getSaldo).usingElementComparator(BigDecimal::compareTo)
+			.containsExactly(new BigDecimal("100"), new BigDecimal("70"), new BigDecimal("70"),
+					new BigDecimal("80"), new BigDecimal("80"));
+		assertThat(serie.get(1).getDespesas()).isEqualByComparingTo("30");
+	}
+	
+	
+	@Test
+	public void naoDeveAceitarPeriodoInvertidoNemStatusCancelado() {
+		
+		Throwable erro = catchThrowable( () -> service.validarPeriodo(YearMonth.of(2020, 2), YearMonth.of(2020, 1),
+				EnumSet.of(StatusLancamento.EFETIVADO)) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		
+		erro = catchThrowable( () -> service.validarPeriodo(YearMonth.of(2020, 1), YearMonth.of(2020, 1),
+				EnumSet.of(StatusLancamento.CANCELADO)) );
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+}
@@ -0,0 +1,376 @@
+package com.imatiello.minhasfinancas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.imatiello.minhasfinancas.api.dto.SaldoUsuarioDTO;
+import com.imatiello.minhasfinancas.exception.VersaoDesatualizadaException;
+import com.imatiello.minhasfinancas.model.entity.Lancamento;
+import com.imatiello.minhasfinancas.model.entity.SaldoUsuario;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.enums.StatusLancamento;
+import com.imatiello.minhasfinancas.model.enums.TipoLancamento;
+import com.imatiello.minhasfinancas.model.repository.IndiceInvertidoLancamentos;
+import com.imatiello.minhasfinancas.model.repository.LancamentoRepositoryTest;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepositoryTest;
+import com.imatiello.minhasfinancas.service.impl.LancamentoServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.ResumoMensalServiceImpl;
+import com.imatiello.minhasfinancas.service.impl.SaldoUsuarioServiceImpl;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+@Import({SaldoUsuarioServiceImpl.class, LancamentoServiceImpl.class, ResumoMensalServiceImpl.class,
+		IndiceInvertidoLancamentos.class})
+public class SaldoUsuarioServiceTest {
+
+	@Autowired
+	SaldoUsuarioService service;
+	
+	@Autowired
+	LancamentoService lancamentoService;
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	// usuários gravados pelos testes que rodam fora da transação do teste
+	List<Long> confirmados = new ArrayList<>();
+	
+	
+	@After
+	public void removerConfirmados() {
+		
+		if (confirmados.isEmpty()) {
+			return;
+		}
+		emTransacao( () -> {
+			for (String entidade : Arrays.asList("ResumoMensal", "SaldoUsuario")) {
+				entityManager.getEntityManager()
+					.createQuery("delete from " + entidade + " e where e.idUsuario in :ids")
+					.setParameter("ids", confirmados).executeUpdate();
+			}
+			entityManager.getEntityManager().createQuery("delete from Lancamento l where l.usuario.id in :ids")
+				.setParameter("ids", confirmados).executeUpdate();
+			return entityManager.getEntityManager().createQuery("delete from Usuario u where u.id in :ids")
+				.setParameter("ids", confirmados).executeUpdate();
+		});
+	}
+	
+	
+	@Test
+	public void deveInicializarOSaldoAPartirDosLancamentosExistentesAoAplicarODelta() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, 100);
+		persistirLancamento(usuario, TipoLancamento.DESPESA, 30);
+		
+		//execução
+		service.aplicarDelta(usuario.getId(), TipoLancamento.DESPESA, BigDecimal.valueOf(20));
+		entityManager.flush();
+		
+		//verificação
+		SaldoUsuario saldo = entityManager.find(SaldoUsuario.class, usuario.getId());
+		assertThat(saldo.getReceitas()).isEqualByComparingTo("100");
+		assertThat(saldo.getDespesas()).isEqualByComparingTo("50");
+		assertThat(service.obterSaldo(usuario.getId())).isEqualByComparingTo("50");
+	}
+	
+	
+	@Test
+	public void deveCalcularOSaldoQuandoAindaNaoFoiMaterializado() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, 70);
+		
+		//execução e verificação
+		assertThat(service.obterSaldo(usuario.getId())).isEqualByComparingTo("70");
+	}
+	
+	
+	@Test
+	public void deveCorrigirSaldosDivergentesNaReconciliacao() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistirLancamento(usuario, TipoLancamento.RECEITA, 100);
+		entityManager.persist(SaldoUsuario.builder()
+				.idUsuario(usuario.getId())
+				.receitas(BigDecimal.valueOf(1))
+				.despesas(BigDecimal.ZERO)
+				.versao(0L)
+				.build());
+		entityManager.flush();
+		
+		//execução
+		List<Long> corrigidos = service.reconciliar();
+		entityManager.flush();
+		entityManager.clear();
+		
+		//verificação
+		assertThat(corrigidos).containsExactly(usuario.getId());
+		assertThat(entityManager.find(SaldoUsuario.class, usuario.getId()).getSaldo()).isEqualByComparingTo("100");
+	}
+	
+	
+	@Test
+	public void deveObterOsSaldosDeVariosUsuariosMaterializadosOuCalculados() {
+		
+		//cenario
+		Usuario materializado = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Usuario calculado = entityManager.persist(Usuario.builder().email("calculado@email.com").build());
+		Usuario semLancamentos = entityManager.persist(Usuario.builder().email("vazio@email.com").build());
+		persistirLancamento(calculado, TipoLancamento.RECEITA, 100);
+		persistirLancamento(calculado, TipoLancamento.DESPESA, 30);
+		service.aplicarDelta(materializado.getId(), TipoLancamento.RECEITA, BigDecimal.valueOf(40));
+		entityManager.flush();
+		
+		//execução: um id inexistente fica de fora
+		List<SaldoUsuarioDTO> saldos = service.obterSaldos(Arrays.asList(semLancamentos.getId(),
+				calculado.getId(), materializado.getId(), -1l));
+		
+		//verificação
+		assertThat(saldos).extracting(SaldoUsuarioDTO::getUsuario)
+			.containsExactly(materializado.getId(), calculado.getId(), semLancamentos.getId());
+		assertThat(saldos).extracting(SaldoUsuarioDTO::getSaldo).usingElementComparator(BigDecimal::compareTo)
+			.containsExactly(new BigDecimal("40"), new BigDecimal("70"), BigDecimal.ZERO);
+		
+		assertThat(service.obterSaldosAPartirDe(materializado.getId(), semLancamentos.getId(), 10))
+			.extracting(SaldoUsuarioDTO::getUsuario)
+			.containsExactly(calculado.getId(), semLancamentos.getId());
+	}
+	
+	
+	@Test
+	public void deveIncrementarAVersaoACadaEscrita() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		long inicial = service.obterVersao(usuario.getId());
+		
+		//execução
+		service.aplicarDelta(usuario.getId(), TipoLancamento.RECEITA, BigDecimal.TEN);
+		service.registrarAlteracao(usuario.getId());
+		entityManager.flush();
+		
+		//verificação
+		assertThat(inicial).isEqualTo(0);
+		assertThat(service.obterVersao(usuario.getId())).isEqualTo(2);
+	}
+	
+	
+	@Test
+	public void deveRecusarVersaoDesatualizada() {
+		
+		//cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		service.aplicarDelta(usuario.getId(), TipoLancamento.RECEITA, BigDecimal.TEN);
+		entityManager.flush();
+		
+		//execução
+		Throwable erro = catchThrowable( () -> service.verificarVersao(usuario.getId(), 0) );
+		
+		//verificação
+		assertThat(erro).isInstanceOf(VersaoDesatualizadaException.class);
+		service.verificarVersao(usuario.getId(), 1);
+	}
+	
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void deveAtualizarOStatusNaPropriaTransacao() {
+		
+		//cenario
+		Usuario usuario = confirmarUsuario();
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamentoService.salvar(lancamento);
+		long versao = service.obterVersao(usuario.getId());
+		
+		//execução: sem transação aberta pelo chamador
+		lancamentoService.atulizarStatus(lancamento, StatusLancamento.EFETIVADO);
+		
+		//verificação
+		Lancamento gravado = emTransacao( () -> entityManager.find(Lancamento.class, lancamento.getId()) );
+		assertThat(gravado.getStatus()).isEqualTo(StatusLancamento.EFETIVADO);
+		assertThat(service.obterSaldo(usuario.getId())).isEqualByComparingTo("10");
+		assertThat(service.obterVersao(usuario.getId())).isGreaterThan(versao);
+	}
+	
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void lotesConcorrentesComUsuariosEmComumNaoDevemSeBloquearMutuamente() throws Exception {
+		
+		//cenario: p < q < r, com r na listra de p e q numa listra acima da dela;
+		//em ordem de id, o lote {p, q} toma p e depois q, e o lote {q, r} toma q e depois p
+		Usuario p = confirmarUsuario();
+		while (listra(p) == 63) {
+			p = confirmarUsuario();
+		}
+		Usuario q = confirmarUsuario();
+		while (listra(q) <= listra(p)) {
+			q = confirmarUsuario();
+		}
+		Usuario r = confirmarUsuario();
+		while (listra(r) != listra(p)) {
+			r = confirmarUsuario();
+		}
+		Usuario primeiro = p, segundo = q, terceiro = r;
+		int rodadas = 50;
+		
+		//execução
+		emParalelo( () -> gravarLotes(rodadas, primeiro, segundo), () -> gravarLotes(rodadas, segundo, terceiro) );
+		
+		//verificação
+		assertThat(service.obterSaldo(primeiro.getId())).isEqualByComparingTo(BigDecimal.valueOf(10 * rodadas));
+		assertThat(service.obterSaldo(segundo.getId())).isEqualByComparingTo(BigDecimal.valueOf(20 * rodadas));
+		assertThat(service.obterSaldo(terceiro.getId())).isEqualByComparingTo(BigDecimal.valueOf(10 * rodadas));
+	}
+	
+	
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void escritasConcorrentesNaoDevemPerderAtualizacoes() throws Exception {
+		
+		//cenario: dois usuários em listras diferentes, cada um com um lançamento
+		Usuario a = confirmarUsuario();
+		Usuario b = confirmarUsuario();
+		while (listra(b) == listra(a)) {
+			b = confirmarUsuario();
+		}
+		Usuario primeiro = a, segundo = b;
+		Lancamento doPrimeiro = salvarLancamento(primeiro);
+		Lancamento doSegundo = salvarLancamento(segundo);
+		int rodadas = 50;
+		
+		//execução: os lançamentos trocam de dono em sentidos opostos enquanto o primeiro recebe novos
+		emParalelo(
+				() -> trocarDono(rodadas, doPrimeiro.getId(), segundo, primeiro),
+				() -> trocarDono(rodadas, doSegundo.getId(), primeiro, segundo),
+				() -> {
+					for (int i = 0; i < rodadas; i++) {
+						salvarLancamento(primeiro);
+					}
+				});
+		
+		//verificação: com um número par de trocas, cada lançamento volta ao dono original
+		assertThat(service.obterSaldo(primeiro.getId())).isEqualByComparingTo(BigDecimal.valueOf(10 * (rodadas + 1)));
+		assertThat(service.obterSaldo(segundo.getId())).isEqualByComparingTo(BigDecimal.TEN);
+		assertThat(service.reconciliar()).doesNotContain(primeiro.getId(), segundo.getId());
+	}
+	
+	
+	// falha se alguma tarefa não terminar a tempo; presas numa trava, as threads não impedem a JVM de sair
+	private void emParalelo(Runnable... tarefas) throws Exception {
+		
+		ExecutorService executor = Executors.newFixedThreadPool(tarefas.length, tarefa -> {
+			Thread thread = new Thread(tarefa);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<?>> execucoes = new ArrayList<>();
+			for (Runnable tarefa : tarefas) {
+				execucoes.add(executor.submit(tarefa));
+			}
+			for (Future<?> execucao : execucoes) {
+				execucao.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	private void trocarDono(int rodadas, Long id, Usuario... donos) {
+		
+		for (int i = 0; i < rodadas * donos.length; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setId(id);
+			lancamento.setUsuario(donos[i % donos.length]);
+			lancamentoService.atualizar(lancamento);
+		}
+	}
+	
+	
+	private Lancamento salvarLancamento(Usuario usuario) {
+		
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		return lancamentoService.salvar(lancamento);
+	}
+	
+	
+	private void gravarLotes(int rodadas, Usuario... usuarios) {
+		
+		for (int i = 0; i < rodadas; i++) {
+			List<Lancamento> lote = new ArrayList<>();
+			for (Usuario usuario : usuarios) {
+				Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+				lancamento.setUsuario(usuario);
+				lote.add(lancamento);
+			}
+			lancamentoService.salvarEmLote(lote);
+		}
+	}
+	
+	
+	private static int listra(Usuario usuario) {
+		return usuario.getId().hashCode() & 63;
+	}
+	
+	
+	private Usuario confirmarUsuario() {
+		
+		Usuario usuario = emTransacao( () -> entityManager.persist(UsuarioRepositoryTest.criarUsuario()) );
+		confirmados.add(usuario.getId());
+		return usuario;
+	}
+	
+	
+	private <T> T emTransacao(Supplier<T> execucao) {
+		return new TransactionTemplate(transactionManager).execute( status -> execucao.get() );
+	}
+	
+	
+	private void persistirLancamento(Usuario usuario, TipoLancamento tipo, int valor) {
+		
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(BigDecimal.valueOf(valor));
+		entityManager.persist(lancamento);
+	}
+}
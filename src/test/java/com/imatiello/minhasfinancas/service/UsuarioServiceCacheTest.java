@@ -0,0 +1,92 @@
+package com.imatiello.minhasfinancas.service;
+
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.imatiello.minhasfinancas.config.CacheConfiguration;
+import com.imatiello.minhasfinancas.model.entity.Usuario;
+import com.imatiello.minhasfinancas.model.repository.UsuarioRepository;
+import com.imatiello.minhasfinancas.service.impl.UsuarioServiceImpl;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {CacheConfiguration.class, UsuarioServiceImpl.class})
+@ActiveProfiles("test")
+public class UsuarioServiceCacheTest {
+
+	@Autowired
+	UsuarioService service;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@MockBean
+	UsuarioRepository repository;
+	
+	
+	@Before
+	public void limparCache() {
+		cacheManager.getCache(CacheConfiguration.USUARIOS).clear();
+	}
+	
+	
+	@Test
+	public void deveConsultarOBancoUmaVezPorUsuario() {
+		
+		//cenario
+		Usuario usuario = Usuario.builder().id(1l).nome("usuario").build();
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(usuario));
+		
+		//execução
+		service.obterPorId(1l);
+		Optional<Usuario> resultado = service.obterPorId(1l);
+		
+		//verificação
+		Assertions.assertThat(resultado).contains(usuario);
+		Mockito.verify(repository, Mockito.times(1)).findById(1l);
+	}
+	
+	
+	@Test
+	public void naoDeveGuardarUsuarioInexistente() {
+		
+		//cenario
+		Mockito.when(repository.findById(2l)).thenReturn(Optional.empty());
+		
+		//execução
+		service.obterPorId(2l);
+		Optional<Usuario> resultado = service.obterPorId(2l);
+		
+		//verificação
+		Assertions.assertThat(resultado).isEmpty();
+		Mockito.verify(repository, Mockito.times(2)).findById(2l);
+	}
+	
+	
+	@Test
+	public void deveAtualizarOCacheAoSalvarUsuario() {
+		
+		//cenario
+		Usuario salvo = Usuario.builder().id(3l).email("novo@email.com").build();
+		Mockito.when(repository.existsByEmail("novo@email.com")).thenReturn(false);
+		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(salvo);
+		
+		//execução
+		service.salvarUsuario(Usuario.builder().email("novo@email.com").build());
+		Optional<Usuario> resultado = service.obterPorId(3l);
+		
+		//verificação
+		Assertions.assertThat(resultado).contains(salvo);
+		Mockito.verify(repository, Mockito.never()).findById(3l);
+	}
+}